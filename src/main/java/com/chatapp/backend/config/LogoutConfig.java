@@ -1,14 +1,19 @@
 package com.chatapp.backend.config;
 
 import com.chatapp.backend.config.jwt.JwtService;
+import com.chatapp.backend.config.jwt.TokenRevocationRegistry;
 import com.chatapp.backend.repository.UserRepository;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.constraints.NotNull;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.web.authentication.logout.LogoutHandler;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
 
 import static org.springframework.http.HttpHeaders.AUTHORIZATION;
 
@@ -18,8 +23,10 @@ public class LogoutConfig implements LogoutHandler {
 
     private final UserRepository userRepository;
     private final JwtService jwtService;
+    private final ObjectProvider<TokenRevocationRegistry> revocationRegistry;
 
     @Override
+    @Transactional
     public void logout(@NotNull HttpServletRequest request, HttpServletResponse response, Authentication authentication) {
         final String authHeader = request.getHeader(AUTHORIZATION);
         final String jwtToken;
@@ -30,6 +37,8 @@ public class LogoutConfig implements LogoutHandler {
         jwtToken = authHeader.substring(7);
         var username = jwtService.extractUsername(jwtToken);
         var user = this.userRepository.findByUsername(username).get();
-        userRepository.updateRefreshToken(user.getId(), null);
+        Instant loggedOutAt = Instant.now();
+        userRepository.revokeTokens(user.getId(), loggedOutAt);
+        revocationRegistry.ifAvailable(registry -> registry.revokeTokensIssuedBefore(user.getId(), loggedOutAt));
     }
 }
\ No newline at end of file
@@ -1,15 +1,26 @@
 package com.chatapp.backend.config;
 
+import com.chatapp.backend.config.jwt.JwtPrincipalLoader;
 import com.chatapp.backend.config.jwt.JwtService;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.chatapp.backend.config.websocket.BrokerRelay;
+import com.chatapp.backend.config.websocket.ChannelExecutorFactory;
+import com.chatapp.backend.config.websocket.ConversationSubscriptionGuard;
+import com.chatapp.backend.config.websocket.ConversationSubscriptionRegistry;
+import com.chatapp.backend.config.websocket.OutboundCoalescingDecoratorFactory;
+import com.chatapp.backend.config.websocket.SlowConsumerGuard;
+import com.chatapp.backend.config.websocket.StompPayloadCodec;
+import com.chatapp.backend.config.websocket.StompSecurityContextInterceptor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.task.ThreadPoolTaskExecutorBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageChannel;
 import org.springframework.messaging.MessageDeliveryException;
-import org.springframework.messaging.converter.DefaultContentTypeResolver;
-import org.springframework.messaging.converter.MappingJackson2MessageConverter;
 import org.springframework.messaging.converter.MessageConverter;
 import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
@@ -17,10 +28,16 @@ import org.springframework.messaging.simp.stomp.StompCommand;
 import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
 import org.springframework.messaging.support.ChannelInterceptor;
 import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.AsyncAnnotationBeanPostProcessor;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.task.DelegatingSecurityContextAsyncTaskExecutor;
 import org.springframework.web.socket.WebSocketSession;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
@@ -31,8 +48,6 @@ import org.springframework.web.socket.server.standard.ServletServerContainerFact
 
 import java.util.List;
 
-import static org.springframework.util.MimeTypeUtils.APPLICATION_JSON;
-
 @Configuration
 @EnableWebSocketMessageBroker
 @EnableAsync
@@ -40,16 +55,37 @@ import static org.springframework.util.MimeTypeUtils.APPLICATION_JSON;
 @Slf4j
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
-    private final JwtService jwtService;
+    public static final int SEND_TIME_LIMIT_MILLIS = 15 * 1000;
+    public static final int SEND_BUFFER_SIZE_LIMIT = 512 * 1024;
 
-    public WebSocketConfig(JwtService jwtService) {
+    private final JwtService jwtService;
+    private final JwtPrincipalLoader principalLoader;
+    private final ObjectProvider<BrokerRelay> brokerRelay;
+    private final ObjectProvider<OutboundCoalescingDecoratorFactory> outboundCoalescing;
+    private final ObjectProvider<SlowConsumerGuard> slowConsumerGuard;
+    private final StompPayloadCodec payloadCodec;
+    private final ChannelExecutorFactory channelExecutors;
+    private final ConversationSubscriptionGuard subscriptionGuard;
+
+    public WebSocketConfig(JwtService jwtService, JwtPrincipalLoader principalLoader, ObjectProvider<BrokerRelay> brokerRelay,
+                           ObjectProvider<OutboundCoalescingDecoratorFactory> outboundCoalescing,
+                           ObjectProvider<SlowConsumerGuard> slowConsumerGuard,
+                           StompPayloadCodec payloadCodec, ChannelExecutorFactory channelExecutors,
+                           ConversationSubscriptionGuard subscriptionGuard) {
         this.jwtService = jwtService;
+        this.principalLoader = principalLoader;
+        this.brokerRelay = brokerRelay;
+        this.outboundCoalescing = outboundCoalescing;
+        this.slowConsumerGuard = slowConsumerGuard;
+        this.payloadCodec = payloadCodec;
+        this.channelExecutors = channelExecutors;
+        this.subscriptionGuard = subscriptionGuard;
     }
 
     @Override
     public void configureMessageBroker(MessageBrokerRegistry registry) {
-        // Use a simple in-memory message broker for development
-        // Enable a full-featured message broker like RabbitMQ in production
+        // In-memory broker; in "sharded" mode its subscription registry is replaced with the
+        // per-conversation index (see ConversationSubscriptionRegistry)
         registry.enableSimpleBroker("/topic", "/queue")
                 .setTaskScheduler(taskScheduler()) // Add TaskScheduler for heartbeats
                 .setHeartbeatValue(new long[]{10000, 10000}); // Maintain heartbeats for connection health
@@ -59,6 +95,16 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         //         .setRelayPort(61613)
         //         .setClientLogin("your-rabbitmq-username")
         //         .setClientPasscode("your-rabbitmq-password");
+        // Mirror chat broadcasts to the other nodes when the relay is enabled
+        brokerRelay.ifAvailable(relay -> {
+            registry.configureBrokerChannel().interceptors(relay);
+            log.info("Broker channel configured with multi-node relay.");
+        });
+        // The broker channel stays synchronous in every mode: an executor, virtual threads especially,
+        // could hand two broadcasts sent back to back to the broker in either order
+        // Frames to one session leave in publish order; otherwise the outbound executor, pooled or
+        // one virtual thread per frame, can hand a later broadcast to the session first
+        registry.setPreservePublishOrder(true);
         registry.setApplicationDestinationPrefixes("/app");
         registry.setUserDestinationPrefix("/user");
         log.info("Message broker configured with application destination prefix '/app' and user destination prefix '/user'.");
@@ -66,8 +112,8 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
     @Override
     public void configureWebSocketTransport(WebSocketTransportRegistration registry) {
-        registry.setSendTimeLimit(15 * 1000)
-                .setSendBufferSizeLimit(512 * 1024)
+        registry.setSendTimeLimit(SEND_TIME_LIMIT_MILLIS)
+                .setSendBufferSizeLimit(SEND_BUFFER_SIZE_LIMIT)
                 .setMessageSizeLimit(128 * 1024)
                 .addDecoratorFactory(handler -> new WebSocketHandlerDecorator(handler) {
 
@@ -78,6 +124,12 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
                         // Consider implementing a mechanism to notify the user or retry connection
                     }
                 });
+        // Bounded per-session queues go first so slow clients never back up into Spring's send buffer
+        slowConsumerGuard.ifAvailable(registry::addDecoratorFactory);
+        // Batch outbound STOMP frames per session when coalescing is enabled
+        outboundCoalescing.ifAvailable(registry::addDecoratorFactory);
+        // Registered after coalescing so batches of CBOR frames are turned into binary messages as a whole
+        registry.addDecoratorFactory(payloadCodec.binaryFrameDecorator());
         log.info("WebSocket transport configured with custom error handling.");
     }
 
@@ -89,6 +141,8 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
                 .setStreamBytesLimit(512 * 1024) // Configure stream bytes limit for SockJS
                 .setHttpMessageCacheSize(1000)
                 .setDisconnectDelay(30 * 1000); // Configure disconnect delay to allow for reconnections
+        // One session's frames are handled in the order received, so its SENDs are sequenced in that order
+        registry.setPreserveReceiveOrder(true);
         log.info("STOMP endpoint '/ws' registered with SockJS support and allowed origins: http://localhost:3000, https://production-domain.com");
     }
 
@@ -104,18 +158,15 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
     @Override
     public boolean configureMessageConverters(List<MessageConverter> messageConverters) {
-        DefaultContentTypeResolver resolver = new DefaultContentTypeResolver();
-        resolver.setDefaultMimeType(APPLICATION_JSON);
-        MappingJackson2MessageConverter converter = new MappingJackson2MessageConverter();
-        converter.setObjectMapper(new ObjectMapper());
-        converter.setContentTypeResolver(resolver);
-        messageConverters.add(converter);
-        log.info("Configured Jackson message converter for JSON serialization/deserialization.");
+        // JSON by default, CBOR when the frame's content-type asks for it; both use the application's Jackson settings
+        messageConverters.addAll(payloadCodec.messageConverters());
+        log.info("Configured Jackson message converters for JSON and CBOR serialization/deserialization.");
         return false;
     }
 
     @Override
     public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.executor(channelExecutors.create("clientInboundChannel"));
         registration.interceptors(new ChannelInterceptor() {
             @Override
             public Message<?> preSend(Message<?> message, MessageChannel channel) {
@@ -130,11 +181,12 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
                             String jwt = bearerToken.substring(7);
 
                             try {
-                                // Validate JWT and extract username
-                                String username = jwtService.validateTokenAndGetUsername(jwt);
+                                // Validate JWT (cached per token) and load the same principal as HTTP requests get
+                                UserDetails principal = principalLoader.load(jwtService.verify(jwt));
+                                String username = principal.getUsername();
 
-                                // Set authenticated user in WebSocket connection
-                                accessor.setUser(() -> username);
+                                // Set authenticated user in WebSocket connection; exposed to handlers by StompSecurityContextInterceptor
+                                accessor.setUser(new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
 
                                 log.info("Authenticated WebSocket connection for user: {}", username);
                             } catch (Exception e) {
@@ -147,7 +199,37 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
                 }
                 return message;
             }
-        });
+        }, subscriptionGuard, new StompSecurityContextInterceptor(), payloadCodec.inboundInterceptor());
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.executor(channelExecutors.create("clientOutboundChannel"))
+                    .interceptors(payloadCodec.outboundInterceptor());
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "application.websocket.broker.mode", havingValue = "sharded", matchIfMissing = true)
+    public ConversationSubscriptionRegistry conversationSubscriptionRegistry(@Value("${application.websocket.broker.stripes:64}") int stripes) {
+        log.info("Using conversation-sharded subscription registry with {} stripes.", stripes);
+        return new ConversationSubscriptionRegistry(stripes);
+    }
+
+    /**
+     * The pool behind {@code @Async} service methods, sized by {@code spring.task.execution.pool}. Boot's
+     * own {@code applicationTaskExecutor} backs off because the STOMP channel executors are beans too.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor asyncPool(ThreadPoolTaskExecutorBuilder builder) {
+        return builder.threadNamePrefix("async-").build();
+    }
+
+    /**
+     * Runs {@code @Async} service methods with the caller's security context, which they read to find the current user.
+     */
+    @Bean(name = AsyncAnnotationBeanPostProcessor.DEFAULT_TASK_EXECUTOR_BEAN_NAME)
+    public AsyncTaskExecutor taskExecutor(@Qualifier("asyncPool") ThreadPoolTaskExecutor asyncPool) {
+        return new DelegatingSecurityContextAsyncTaskExecutor(asyncPool);
     }
 
     @Bean
@@ -0,0 +1,14 @@
+package com.chatapp.backend.config.jwt;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * The verified contents of a token. {@code userId} is only present on access tokens.
+ */
+public record JwtClaims(String username, Long userId, List<String> authorities, Instant issuedAt, Instant expiresAt) {
+
+    public boolean isExpired(Instant now) {
+        return !expiresAt.isAfter(now);
+    }
+}
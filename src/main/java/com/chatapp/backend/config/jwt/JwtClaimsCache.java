@@ -0,0 +1,84 @@
+package com.chatapp.backend.config.jwt;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded cache of verified claims keyed by the SHA-256 of the token, so raw tokens are never
+ * retained. Entries are dropped once their token expires; when the cache is full, the least
+ * recently used entry makes room for the new one.
+ */
+class JwtClaimsCache {
+
+    private final int maxSize;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<String, JwtClaims> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    JwtClaimsCache(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    JwtClaims get(String key, Instant now) {
+        lock.lock();
+        try {
+            JwtClaims claims = entries.get(key);
+            if (claims != null && claims.isExpired(now)) {
+                entries.remove(key);
+                return null;
+            }
+            return claims;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void put(String key, JwtClaims claims) {
+        if (maxSize <= 0) {
+            return;
+        }
+        lock.lock();
+        try {
+            entries.put(key, claims);
+            Iterator<JwtClaims> iterator = entries.values().iterator();
+            while (entries.size() > maxSize && iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void invalidate(String key) {
+        lock.lock();
+        try {
+            entries.remove(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    static String keyOf(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.chatapp.backend.config.jwt;
+
+import com.chatapp.backend.entity.User;
+import com.chatapp.backend.exception.ApiException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.stereotype.Component;
+
+import static com.chatapp.backend.exception.ErrorCode.INVALID_TOKEN;
+
+/**
+ * Turns verified token claims into the principal used by HTTP requests and STOMP sessions alike.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class JwtPrincipalLoader {
+
+    private final UserDetailsService userDetailsService;
+    private final ObjectProvider<TokenRevocationRegistry> revocationRegistry;
+
+    /**
+     * With a revocation registry (stateless mode), access tokens carrying a userId are trusted
+     * without reading the user; other tokens still go through the {@link UserDetailsService}.
+     */
+    public UserDetails load(JwtClaims claims) {
+        TokenRevocationRegistry registry = revocationRegistry.getIfAvailable();
+        if (registry == null || claims.userId() == null) {
+            return userDetailsService.loadUserByUsername(claims.username());
+        }
+        if (registry.isRevoked(claims)) {
+            log.warn("Rejected revoked token for user: {}", claims.username());
+            throw new ApiException(INVALID_TOKEN, "Token has been revoked");
+        }
+        return User.builder()
+                   .id(claims.userId())
+                   .username(claims.username())
+                   .isActive(true)
+                   .emailVerified(true)
+                   .claimsOnly(true)
+                   .build();
+    }
+}
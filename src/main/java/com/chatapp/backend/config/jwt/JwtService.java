@@ -3,11 +3,17 @@ package com.chatapp.backend.config.jwt;
 import com.chatapp.backend.exception.ApiException;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
 import io.jsonwebtoken.security.SignatureException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import jakarta.validation.constraints.NotNull;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -22,6 +28,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 import static com.chatapp.backend.exception.ErrorCode.*;
 
@@ -30,6 +37,7 @@ import static com.chatapp.backend.exception.ErrorCode.*;
 public class JwtService {
 
     private static final String AUTHORITIES_CLAIM = "authorities";
+    private static final String USER_ID_CLAIM = "userId";
 
     @Value("${application.security.jwt.secret-key}")
     private String secretKey;
@@ -40,12 +48,45 @@ public class JwtService {
     @Value("${application.security.jwt.refresh-token.expiration}")
     private long refreshTokenExpirationMillis;
 
+    @Value("${application.security.jwt.cache.max-size:10000}")
+    private int claimsCacheMaxSize;
+
+    private final MeterRegistry meterRegistry;
+    private SecretKey signingKey;
+    private JwtParser parser;
+    private JwtClaimsCache claimsCache;
+    private Counter cacheHits;
+    private Counter cacheMisses;
+    private Timer parseTimer;
+
+    public JwtService(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secretKey));
+        parser = Jwts.parser().verifyWith(signingKey).build();
+        claimsCache = new JwtClaimsCache(claimsCacheMaxSize);
+        cacheHits = Counter.builder("chat.jwt.cache").tag("result", "hit").register(meterRegistry);
+        cacheMisses = Counter.builder("chat.jwt.cache").tag("result", "miss").register(meterRegistry);
+        parseTimer = Timer.builder("chat.jwt.parse").description("Signature verification and parsing of uncached tokens").register(meterRegistry);
+        Gauge.builder("chat.jwt.cache.size", claimsCache, JwtClaimsCache::size).register(meterRegistry);
+    }
+
+    /**
+     * Verifies the token and returns its claims, parsing each distinct token only once while it is valid.
+     */
+    public JwtClaims verify(String token) {
+        return translateErrors(() -> verifiedClaims(token));
+    }
+
     public String extractUsername(String token) {
         if (token == null) {
             log.warn("Attempted to extract username from a null token.");
             return null;
         }
-        return extractClaim(token, Claims::getSubject);
+        return verify(token).username();
     }
 
     public String generateAccessToken(@NotNull UserDetails userDetails) {
@@ -71,29 +112,10 @@ public class JwtService {
     }
 
     public void validateToken(String token, UserDetails userDetails) {
-        try {
-            final String username = extractUsername(token);
-            if (isTokenExpired(token)) {
-                log.warn("Token validation failed for user: {}. Token is expired.", username);
-                throw new ApiException(EXPIRED_TOKEN);
-            }
-            if (userDetails != null && !username.equals(userDetails.getUsername())) {
-                log.warn("Token validation failed for user: {}. Username in token does not match user details.", username);
-                throw new ApiException(INVALID_USERNAME, "Username in token does not match provided user details");
-            }
-            log.info("Token validation successful for user: {}", username);
-        } catch (ExpiredJwtException e) {
-            log.warn("Token validation failed. Token is expired: {}", e.getMessage());
-            throw new ApiException(JWT_EXPIRED);
-        } catch (MalformedJwtException e) {
-            log.error("Token validation failed. Token is malformed: {}", e.getMessage());
-            throw new ApiException(JWT_MALFORMED);
-        } catch (SignatureException e) {
-            log.error("Token validation failed. Signature is invalid: {}", e.getMessage());
-            throw new ApiException(JWT_SIGNATURE_INVALID);
-        } catch (Exception e) {
-            log.error("Token validation failed: {}", e.getMessage());
-            throw new ApiException(INTERNAL_SERVER_ERROR, "Token validation failed: " + e.getMessage());
+        JwtClaims claims = verify(token);
+        if (userDetails != null && !claims.username().equals(userDetails.getUsername())) {
+            log.warn("Token validation failed for user: {}. Username in token does not match user details.", claims.username());
+            throw new ApiException(INVALID_USERNAME, "Username in token does not match provided user details");
         }
     }
 
@@ -119,7 +141,7 @@ public class JwtService {
                    .subject(userDetails.getUsername())
                    .issuedAt(Date.from(now))
                    .expiration(Date.from(now.plusMillis(expiration)))
-                   .signWith(getSigningKey())
+                   .signWith(signingKey)
                    .compact();
     }
 
@@ -131,36 +153,59 @@ public class JwtService {
         return claims;
     }
 
-    private SecretKey getSigningKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secretKey);
-        return Keys.hmacShaKeyFor(keyBytes);
-    }
-
-    private boolean isTokenExpired(String token) {
+    private JwtClaims verifiedClaims(String token) {
         if (token == null) {
             throw new IllegalArgumentException("Token cannot be null");
         }
-        return extractExpiration(token).before(new Date());
+        Instant now = Instant.now();
+        String key = JwtClaimsCache.keyOf(token);
+        JwtClaims cached = claimsCache.get(key, now);
+        if (cached != null) {
+            cacheHits.increment();
+            return cached;
+        }
+        cacheMisses.increment();
+        JwtClaims claims = parseTimer.record(() -> toJwtClaims(extractAllClaims(token)));
+        if (claims.isExpired(now)) {
+            throw new ApiException(EXPIRED_TOKEN);
+        }
+        claimsCache.put(key, claims);
+        log.info("Token validation successful for user: {}", claims.username());
+        return claims;
     }
 
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+    @SuppressWarnings("unchecked")
+    private JwtClaims toJwtClaims(Claims claims) {
+        Object userId = claims.get(USER_ID_CLAIM);
+        Object authorities = claims.get(AUTHORITIES_CLAIM);
+        return new JwtClaims(claims.getSubject(),
+                             userId instanceof Number number ? number.longValue() : null,
+                             authorities instanceof List<?> list ? List.copyOf((List<String>) list) : List.of(),
+                             claims.getIssuedAt() != null ? claims.getIssuedAt().toInstant() : null,
+                             claims.getExpiration() != null ? claims.getExpiration().toInstant() : Instant.MAX);
     }
 
-    private Claims extractAllClaims(String token) {
-        if (token == null) {
-            throw new IllegalArgumentException("Token cannot be null");
-        }
-        return Jwts.parser().verifyWith(getSigningKey()).build().parseSignedClaims(token).getPayload();
-    }
-
-    public String validateTokenAndGetUsername(String jwt) {
+    private JwtClaims translateErrors(Supplier<JwtClaims> verification) {
         try {
-            validateToken(jwt);
-            return extractUsername(jwt);
+            return verification.get();
+        } catch (ApiException e) {
+            throw e;
+        } catch (ExpiredJwtException e) {
+            log.warn("Token validation failed. Token is expired: {}", e.getMessage());
+            throw new ApiException(JWT_EXPIRED);
+        } catch (MalformedJwtException e) {
+            log.error("Token validation failed. Token is malformed: {}", e.getMessage());
+            throw new ApiException(JWT_MALFORMED);
+        } catch (SignatureException e) {
+            log.error("Token validation failed. Signature is invalid: {}", e.getMessage());
+            throw new ApiException(JWT_SIGNATURE_INVALID);
         } catch (Exception e) {
             log.error("Token validation failed: {}", e.getMessage());
             throw new ApiException(INTERNAL_SERVER_ERROR, "Token validation failed: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    private Claims extractAllClaims(String token) {
+        return parser.parseSignedClaims(token).getPayload();
+    }
+}
@@ -0,0 +1,98 @@
+package com.chatapp.backend.config.jwt;
+
+import com.chatapp.backend.repository.UserRepository;
+import com.chatapp.backend.repository.UserRepository.UserAccessState;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Revocations checked when principals are built from token claims
+ * ({@code application.security.jwt.stateless-principal=true}), in place of the per-request user lookup.
+ * <p>
+ * Holds, per user id, the instant before which tokens are rejected: forever for disabled or deleted
+ * users, the logout time ({@code tokensValidAfter}) otherwise. Revoked users are loaded once at
+ * startup and then followed incrementally through {@code updatedAt}, so a logout on another instance
+ * takes effect here within {@code refresh-millis}; entries are forgotten once every token they could
+ * affect has expired.
+ */
+@Component
+@ConditionalOnProperty(name = "application.security.jwt.stateless-principal", havingValue = "true")
+@Slf4j
+public class TokenRevocationRegistry {
+
+    private final UserRepository userRepository;
+    private final long accessTokenExpirationMillis;
+    private final Map<Long, Instant> revokedBefore = new ConcurrentHashMap<>();
+    private volatile Instant watermark = Instant.EPOCH;
+
+    public TokenRevocationRegistry(UserRepository userRepository,
+                                   @Value("${application.security.jwt.expiration}") long accessTokenExpirationMillis,
+                                   MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.accessTokenExpirationMillis = accessTokenExpirationMillis;
+        Gauge.builder("chat.jwt.revocations", revokedBefore, Map::size).register(meterRegistry);
+    }
+
+    @PostConstruct
+    void loadRevokedUsers() {
+        Instant startedAt = Instant.now();
+        List<UserAccessState> revoked = userRepository.findRevokedAccessStates(startedAt.minusMillis(accessTokenExpirationMillis));
+        revoked.forEach(this::apply);
+        watermark = startedAt;
+        log.info("Loaded {} disabled or logged out users into the token revocation set.", revoked.size());
+    }
+
+    public boolean isRevoked(JwtClaims claims) {
+        Instant before = revokedBefore.get(claims.userId());
+        return before != null && (claims.issuedAt() == null || claims.issuedAt().isBefore(before));
+    }
+
+    /**
+     * Rejects the user's tokens issued before the given instant, e.g. on logout. Token {@code iat}
+     * claims are whole seconds, so the instant is truncated to its second: a token issued by a login
+     * right after the logout stays valid, at the cost of also accepting one issued earlier in that second.
+     */
+    public void revokeTokensIssuedBefore(Long userId, Instant instant) {
+        Instant second = instant.truncatedTo(ChronoUnit.SECONDS);
+        revokedBefore.merge(userId, second, (current, requested) -> current.isAfter(requested) ? current : requested);
+    }
+
+    @Scheduled(fixedDelayString = "${application.security.jwt.revocation.refresh-millis:30000}")
+    @Transactional(readOnly = true)
+    public void refresh() {
+        List<UserAccessState> changes = userRepository.findAccessStatesUpdatedSince(watermark);
+        for (UserAccessState change : changes) {
+            apply(change);
+            watermark = change.getUpdatedAt();
+        }
+        Instant expiredBefore = Instant.now().minusMillis(accessTokenExpirationMillis);
+        revokedBefore.values().removeIf(before -> before.isBefore(expiredBefore));
+        if (!changes.isEmpty()) {
+            log.debug("Applied {} user access changes to the token revocation set.", changes.size());
+        }
+    }
+
+    private void apply(UserAccessState state) {
+        if (!state.isActive() || state.isDeleted()) {
+            revokedBefore.put(state.getId(), Instant.MAX);
+            return;
+        }
+        revokedBefore.remove(state.getId(), Instant.MAX);
+        if (state.getTokensValidAfter() != null) {
+            revokeTokensIssuedBefore(state.getId(), state.getTokensValidAfter());
+        }
+    }
+}
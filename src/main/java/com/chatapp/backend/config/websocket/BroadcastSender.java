@@ -0,0 +1,62 @@
+package com.chatapp.backend.config.websocket;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.converter.MessageConversionException;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Sends payloads to broker destinations after running them through the STOMP message converters
+ * exactly once.
+ * <p>
+ * The resulting {@link EncodedPayload} carries the serialized bytes and content type and can be
+ * sent to any number of destinations. The broker hands the same byte array to every subscribed
+ * session, so fan-out never re-enters Jackson. Sessions that negotiated another encoding share a
+ * single re-encoding of the source object (see {@link StompPayloadCodec}).
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class BroadcastSender {
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final StompPayloadCodec payloadCodec;
+
+    @SuppressWarnings("unchecked")
+    public EncodedPayload encode(Object payload) {
+        Message<?> message = messagingTemplate.getMessageConverter().toMessage(payload, null);
+        if (message == null || !(message.getPayload() instanceof byte[])) {
+            throw new MessageConversionException("Unable to encode payload of type " + payload.getClass().getName());
+        }
+        return new EncodedPayload(payloadCodec.withSource((Message<byte[]>) message, payload));
+    }
+
+    public void send(String destination, EncodedPayload payload) {
+        messagingTemplate.send(destination, payload.message());
+    }
+
+    public EncodedPayload broadcast(String destination, Object payload) {
+        EncodedPayload encoded = encode(payload);
+        send(destination, encoded);
+        return encoded;
+    }
+
+    /**
+     * Sends to one user's sessions only, on the {@code /user} prefixed destination.
+     */
+    public void sendToUser(String username, String destination, Object payload) {
+        messagingTemplate.convertAndSendToUser(username, destination, payload);
+    }
+
+    /**
+     * An immutable, already-serialized broker payload. The byte array must not be modified.
+     */
+    public record EncodedPayload(Message<byte[]> message) {
+
+        public int size() {
+            return message.getPayload().length;
+        }
+    }
+}
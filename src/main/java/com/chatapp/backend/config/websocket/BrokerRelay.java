@@ -0,0 +1,106 @@
+package com.chatapp.backend.config.websocket;
+
+import com.chatapp.backend.config.websocket.ConversationSubscriptionRegistry.ChatDestination;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeType;
+
+import java.util.UUID;
+
+/**
+ * Shares {@code /topic/chat/*} and {@code /queue/chat/*} broadcasts between nodes.
+ * <p>
+ * Installed as an interceptor on the broker channel, it publishes every chat message sent by this
+ * node to the relay channel of the conversation's shard, after which the message continues to the
+ * local broker as usual. Messages arriving from other nodes are handed straight to the local
+ * {@link SimpleBrokerMessageHandler}. A node only listens to the shards of conversations that have
+ * a local subscriber; it follows {@link ConversationSubscriptionRegistry} to subscribe and
+ * unsubscribe as sessions come and go.
+ */
+@Slf4j
+public class BrokerRelay implements ChannelInterceptor, ConversationSubscriptionRegistry.Listener {
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final RelayTransport transport;
+    private final ObjectProvider<SimpleBrokerMessageHandler> brokerHandler;
+    private final String channelPrefix;
+    private final int[] activeConversations;
+
+    public BrokerRelay(RelayTransport transport, ObjectProvider<SimpleBrokerMessageHandler> brokerHandler, String channelPrefix, int shards) {
+        this.transport = transport;
+        this.brokerHandler = brokerHandler;
+        this.channelPrefix = channelPrefix;
+        this.activeConversations = new int[shards];
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        if (!SimpMessageType.MESSAGE.equals(SimpMessageHeaderAccessor.getMessageType(message.getHeaders()))) {
+            return message;
+        }
+        String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+        if (destination == null || !(message.getPayload() instanceof byte[] payload)) {
+            return message;
+        }
+        ChatDestination chatDestination = ChatDestination.parse(destination);
+        if (chatDestination.delegated()) {
+            return message;
+        }
+        Object contentType = message.getHeaders().get(MessageHeaders.CONTENT_TYPE);
+        RelayEnvelope envelope = new RelayEnvelope(nodeId, destination, contentType != null ? contentType.toString() : null, payload);
+        try {
+            transport.publish(channelFor(chatDestination.conversationId()), envelope.encode());
+        } catch (Exception e) {
+            // Local subscribers are still served; remote nodes miss this message
+            log.error("Failed to relay message for destination {}", destination, e);
+        }
+        return message;
+    }
+
+    @Override
+    public synchronized void conversationActivated(long conversationId) {
+        int shard = shardOf(conversationId);
+        if (activeConversations[shard]++ == 0) {
+            transport.subscribe(channelPrefix + shard, this::onRelayedMessage);
+            log.debug("Subscribed to relay shard {}", shard);
+        }
+    }
+
+    @Override
+    public synchronized void conversationDeactivated(long conversationId) {
+        int shard = shardOf(conversationId);
+        if (--activeConversations[shard] == 0) {
+            transport.unsubscribe(channelPrefix + shard);
+            log.debug("Unsubscribed from relay shard {}", shard);
+        }
+    }
+
+    private void onRelayedMessage(byte[] bytes) {
+        RelayEnvelope envelope = RelayEnvelope.decode(bytes);
+        if (nodeId.equals(envelope.origin())) {
+            return;
+        }
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setDestination(envelope.destination());
+        if (envelope.contentType() != null) {
+            accessor.setContentType(MimeType.valueOf(envelope.contentType()));
+        }
+        brokerHandler.getObject().handleMessage(MessageBuilder.createMessage(envelope.payload(), accessor.getMessageHeaders()));
+    }
+
+    private String channelFor(long conversationId) {
+        return channelPrefix + shardOf(conversationId);
+    }
+
+    private int shardOf(long conversationId) {
+        return (int) Math.floorMod(conversationId, (long) activeConversations.length);
+    }
+}
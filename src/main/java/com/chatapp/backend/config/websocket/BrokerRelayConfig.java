@@ -0,0 +1,60 @@
+package com.chatapp.backend.config.websocket;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+
+/**
+ * Multi-node broker relay, enabled with {@code application.websocket.relay.enabled=true}.
+ * Requires the conversation-sharded subscription registry ({@code application.websocket.broker.mode=sharded}).
+ */
+@Configuration
+@ConditionalOnProperty(name = "application.websocket.relay.enabled", havingValue = "true")
+@Slf4j
+public class BrokerRelayConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "application.websocket.relay.transport", havingValue = "redis", matchIfMissing = true)
+    public RedisMessageListenerContainer relayListenerContainer(RedisConnectionFactory connectionFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        return container;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "application.websocket.relay.transport", havingValue = "redis", matchIfMissing = true)
+    public RelayTransport redisRelayTransport(StringRedisTemplate redisTemplate, RedisMessageListenerContainer relayListenerContainer) {
+        log.info("Broker relay using Redis pub/sub transport.");
+        return new RedisRelayTransport(redisTemplate, relayListenerContainer);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "application.websocket.relay.transport", havingValue = "in-memory")
+    public RelayTransport inMemoryRelayTransport() {
+        log.info("Broker relay using in-JVM transport.");
+        return new InMemoryRelayTransport();
+    }
+
+    @Bean
+    public BrokerRelay brokerRelay(RelayTransport relayTransport,
+                                   ObjectProvider<ConversationSubscriptionRegistry> subscriptionRegistry,
+                                   ObjectProvider<SimpleBrokerMessageHandler> brokerHandler,
+                                   @Value("${application.websocket.relay.channel-prefix:chat:relay:}") String channelPrefix,
+                                   @Value("${application.websocket.relay.shards:256}") int shards) {
+        ConversationSubscriptionRegistry registry = subscriptionRegistry.getIfAvailable();
+        if (registry == null) {
+            throw new IllegalStateException("Broker relay requires application.websocket.broker.mode=sharded");
+        }
+        BrokerRelay relay = new BrokerRelay(relayTransport, brokerHandler, channelPrefix, shards);
+        registry.addListener(relay);
+        log.info("Broker relay enabled with {} shards on channels '{}*'.", shards, channelPrefix);
+        return relay;
+    }
+}
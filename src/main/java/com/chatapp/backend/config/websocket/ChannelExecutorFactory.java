@@ -0,0 +1,104 @@
+package com.chatapp.backend.config.websocket;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates the executors behind the STOMP message channels.
+ * <p>
+ * {@code application.websocket.executor.mode=platform} reproduces Spring's default pool
+ * (2 x CPUs core threads, unbounded queue); {@code virtual} runs every message on its own virtual
+ * thread so handlers blocked on JDBC no longer hold a pool thread. Both modes publish the same
+ * metrics, tagged by channel and mode, so they can be compared under load:
+ * {@code chat.ws.channel.wait} (time from submit to start), {@code chat.ws.channel.pending}
+ * (submitted, not yet started) and {@code chat.ws.channel.active} (running).
+ */
+@Component
+@Slf4j
+public class ChannelExecutorFactory {
+
+    public static final String PLATFORM = "platform";
+    public static final String VIRTUAL = "virtual";
+
+    private final String mode;
+    private final MeterRegistry meterRegistry;
+
+    public ChannelExecutorFactory(@Value("${application.websocket.executor.mode:platform}") String mode, MeterRegistry meterRegistry) {
+        if (!PLATFORM.equals(mode) && !VIRTUAL.equals(mode)) {
+            throw new IllegalArgumentException("Unsupported application.websocket.executor.mode: " + mode);
+        }
+        this.mode = mode;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public boolean isVirtual() {
+        return VIRTUAL.equals(mode);
+    }
+
+    /**
+     * The returned executor is registered as a bean by the broker configuration, which takes care
+     * of its initialization and shutdown.
+     */
+    public Executor create(String channelName) {
+        TaskDecorator metrics = new ChannelMetrics(channelName);
+        log.info("Channel '{}' running on {} threads.", channelName, mode);
+        if (isVirtual()) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(channelName + "-");
+            executor.setVirtualThreads(true);
+            executor.setTaskDecorator(metrics);
+            return executor;
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(Runtime.getRuntime().availableProcessors() * 2);
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setThreadNamePrefix(channelName + "-");
+        executor.setTaskDecorator(metrics);
+        return executor;
+    }
+
+    private final class ChannelMetrics implements TaskDecorator {
+
+        private final AtomicInteger pending = new AtomicInteger();
+        private final AtomicInteger active = new AtomicInteger();
+        private final Timer waitTimer;
+
+        ChannelMetrics(String channelName) {
+            Tags tags = Tags.of("channel", channelName, "mode", mode);
+            this.waitTimer = Timer.builder("chat.ws.channel.wait")
+                                  .description("Time a message waited for a thread")
+                                  .tags(tags)
+                                  .publishPercentiles(0.5, 0.99, 0.999)
+                                  .register(meterRegistry);
+            Gauge.builder("chat.ws.channel.pending", pending, AtomicInteger::get).tags(tags).register(meterRegistry);
+            Gauge.builder("chat.ws.channel.active", active, AtomicInteger::get).tags(tags).register(meterRegistry);
+        }
+
+        @Override
+        public Runnable decorate(Runnable runnable) {
+            long submitted = System.nanoTime();
+            pending.incrementAndGet();
+            return () -> {
+                pending.decrementAndGet();
+                active.incrementAndGet();
+                waitTimer.record(System.nanoTime() - submitted, TimeUnit.NANOSECONDS);
+                try {
+                    runnable.run();
+                } finally {
+                    active.decrementAndGet();
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.chatapp.backend.config.websocket;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Session decorator that buffers outbound STOMP text frames and writes them as a single
+ * WebSocket message. STOMP frames are NUL-terminated, so clients parse a concatenation of
+ * frames exactly like frames sent one by one.
+ * <p>
+ * A batch is written when it reaches the size threshold, or by the
+ * {@link OutboundCoalescingDecoratorFactory} flusher once the flush window has elapsed.
+ * Binary messages and closes flush the pending batch first to preserve ordering.
+ */
+@Slf4j
+class CoalescingWebSocketSession extends WebSocketSessionDecorator {
+
+    private final OutboundCoalescingDecoratorFactory coalescer;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    private int frames;
+    private long firstFrameNanos;
+    private boolean flushScheduled;
+
+    CoalescingWebSocketSession(WebSocketSession delegate, OutboundCoalescingDecoratorFactory coalescer) {
+        super(delegate);
+        this.coalescer = coalescer;
+    }
+
+    @Override
+    public void sendMessage(WebSocketMessage<?> message) throws IOException {
+        if (!(message instanceof TextMessage textMessage)) {
+            flush();
+            super.sendMessage(message);
+            return;
+        }
+        boolean scheduleFlush = false;
+        lock.lock();
+        try {
+            if (frames == 0) {
+                firstFrameNanos = System.nanoTime();
+                scheduleFlush = !flushScheduled;
+                flushScheduled = true;
+            }
+            // Raw bytes: frame bodies are not necessarily valid UTF-8 (see StompPayloadCodec)
+            buffer.writeBytes(textMessage.asBytes());
+            frames++;
+            if (buffer.size() >= coalescer.getMaxBatchBytes()) {
+                writeBatch();
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (scheduleFlush) {
+            coalescer.scheduleFlush(this);
+        }
+    }
+
+    @Override
+    public void close(CloseStatus status) throws IOException {
+        flush();
+        super.close(status);
+    }
+
+    void flush() throws IOException {
+        lock.lock();
+        try {
+            flushScheduled = false;
+            if (frames > 0) {
+                writeBatch();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void flushQuietly() {
+        try {
+            flush();
+        } catch (IOException | RuntimeException e) {
+            log.debug("Failed to flush coalesced frames for session {}: {}", getId(), e.getMessage());
+        }
+    }
+
+    private void writeBatch() throws IOException {
+        TextMessage batch = new TextMessage(buffer.toByteArray());
+        coalescer.recordBatch(frames, buffer.size(), System.nanoTime() - firstFrameNanos);
+        buffer.reset();
+        frames = 0;
+        getDelegate().sendMessage(batch);
+    }
+}
@@ -0,0 +1,56 @@
+package com.chatapp.backend.config.websocket;
+
+import com.chatapp.backend.config.websocket.ConversationSubscriptionRegistry.ChatDestination;
+import com.chatapp.backend.entity.User;
+import com.chatapp.backend.service.impl.ConversationMembershipIndex;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+
+import static com.chatapp.backend.config.websocket.ConversationSubscriptionRegistry.QUEUE_PREFIX;
+import static com.chatapp.backend.config.websocket.ConversationSubscriptionRegistry.TOPIC_PREFIX;
+
+/**
+ * Rejects SUBSCRIBE frames for {@code /topic/chat/{id}} and {@code /queue/chat/{id}} from users who
+ * are not participants of the conversation, and wildcard subscriptions to chat destinations.
+ * Membership comes from {@link ConversationMembershipIndex}, so the check needs no database access
+ * for known conversations.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ConversationSubscriptionGuard implements ChannelInterceptor {
+
+    private final ConversationMembershipIndex membershipIndex;
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || !StompCommand.SUBSCRIBE.equals(accessor.getCommand()) || accessor.getDestination() == null) {
+            return message;
+        }
+        String destination = accessor.getDestination();
+        if (!destination.startsWith(TOPIC_PREFIX) && !destination.startsWith(QUEUE_PREFIX)) {
+            return message;
+        }
+        ChatDestination chatDestination = ChatDestination.parse(destination);
+        if (chatDestination.delegated()) {
+            log.warn("Rejected subscription to {}: not a single conversation", destination);
+            throw new MessageDeliveryException("Invalid chat destination: " + destination);
+        }
+        if (!(accessor.getUser() instanceof Authentication authentication && authentication.getPrincipal() instanceof User user)
+                || !membershipIndex.isMember(chatDestination.conversationId(), user.getId())) {
+            log.warn("Rejected subscription to {}: not a participant", destination);
+            throw new MessageDeliveryException("Not a participant of conversation " + chatDestination.conversationId());
+        }
+        return message;
+    }
+}
@@ -0,0 +1,228 @@
+package com.chatapp.backend.config.websocket;
+
+import com.chatapp.backend.util.StripedLongMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.broker.AbstractSubscriptionRegistry;
+import org.springframework.messaging.simp.broker.DefaultSubscriptionRegistry;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Subscription registry for the simple broker that indexes chat destinations by conversation id.
+ * <p>
+ * Subscriptions to {@code /topic/chat/{id}} and {@code /queue/chat/{id}} are kept in a
+ * {@link StripedLongMap} holding an immutable, copy-on-write snapshot of the subscribers of each
+ * conversation, so a broadcast is a single lookup that touches only the sessions subscribed to
+ * that conversation. Every other destination (user destinations, patterns) is delegated to
+ * Spring's {@link DefaultSubscriptionRegistry}, which is only consulted for chat destinations
+ * while at least one pattern subscription exists.
+ */
+@Slf4j
+public class ConversationSubscriptionRegistry extends AbstractSubscriptionRegistry {
+
+    static final String TOPIC_PREFIX = "/topic/chat/";
+    static final String QUEUE_PREFIX = "/queue/chat/";
+
+    private static final MultiValueMap<String, String> NO_SUBSCRIBERS = CollectionUtils.unmodifiableMultiValueMap(new LinkedMultiValueMap<>());
+    private static final AntPathMatcher PATH_MATCHER = new AntPathMatcher();
+
+    private final StripedLongMap<MultiValueMap<String, String>> topicSubscribers;
+    private final StripedLongMap<MultiValueMap<String, String>> queueSubscribers;
+    private final DefaultSubscriptionRegistry fallback = new DefaultSubscriptionRegistry();
+    // sessionId -> (subscriptionId -> where it was registered), so unsubscribes never scan
+    private final Map<String, Map<String, ChatDestination>> sessions = new ConcurrentHashMap<>();
+    private final AtomicInteger patternSubscriptions = new AtomicInteger();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    public ConversationSubscriptionRegistry(int stripes) {
+        this.topicSubscribers = new StripedLongMap<>(stripes);
+        this.queueSubscribers = new StripedLongMap<>(stripes);
+    }
+
+    @Override
+    protected void addSubscriptionInternal(String sessionId, String subscriptionId, String destination, Message<?> message) {
+        ChatDestination parsed = ChatDestination.parse(destination);
+        ChatDestination chatDestination = parsed == ChatDestination.OTHER && PATH_MATCHER.isPattern(destination) ? ChatDestination.PATTERN : parsed;
+        if (chatDestination == ChatDestination.PATTERN) {
+            patternSubscriptions.incrementAndGet();
+        }
+        sessions.computeIfAbsent(sessionId, id -> new ConcurrentHashMap<>()).put(subscriptionId, chatDestination);
+        if (chatDestination.delegated()) {
+            fallback.registerSubscription(message);
+            return;
+        }
+        boolean[] activated = new boolean[1];
+        indexFor(chatDestination).update(chatDestination.conversationId(), current -> {
+            activated[0] = current == null;
+            return withSubscription(current, sessionId, subscriptionId);
+        });
+        log.debug("Session {} subscribed to {} ({})", sessionId, destination, subscriptionId);
+        if (activated[0]) {
+            listeners.forEach(listener -> listener.conversationActivated(chatDestination.conversationId()));
+        }
+    }
+
+    @Override
+    protected void removeSubscriptionInternal(String sessionId, String subscriptionId, Message<?> message) {
+        Map<String, ChatDestination> subscriptions = sessions.get(sessionId);
+        ChatDestination chatDestination = subscriptions != null ? subscriptions.remove(subscriptionId) : null;
+        if (chatDestination == null) {
+            return;
+        }
+        if (chatDestination == ChatDestination.PATTERN) {
+            patternSubscriptions.decrementAndGet();
+        }
+        if (chatDestination.delegated()) {
+            fallback.unregisterSubscription(message);
+        } else {
+            removeFromIndex(chatDestination, sessionId, subscriptionId);
+        }
+    }
+
+    @Override
+    public void unregisterAllSubscriptions(String sessionId) {
+        Map<String, ChatDestination> subscriptions = sessions.remove(sessionId);
+        if (subscriptions == null) {
+            return;
+        }
+        subscriptions.forEach((subscriptionId, chatDestination) -> {
+            if (chatDestination == ChatDestination.PATTERN) {
+                patternSubscriptions.decrementAndGet();
+            } else if (!chatDestination.delegated()) {
+                removeFromIndex(chatDestination, sessionId, subscriptionId);
+            }
+        });
+        fallback.unregisterAllSubscriptions(sessionId);
+    }
+
+    @Override
+    protected MultiValueMap<String, String> findSubscriptionsInternal(String destination, Message<?> message) {
+        ChatDestination chatDestination = ChatDestination.parse(destination);
+        if (chatDestination.delegated()) {
+            return fallback.findSubscriptions(message);
+        }
+        MultiValueMap<String, String> subscribers = indexFor(chatDestination).get(chatDestination.conversationId());
+        MultiValueMap<String, String> fallbackSubscribers = patternSubscriptions.get() > 0 ? fallback.findSubscriptions(message) : NO_SUBSCRIBERS;
+        if (fallbackSubscribers.isEmpty()) {
+            return subscribers != null ? subscribers : NO_SUBSCRIBERS;
+        }
+        if (subscribers == null) {
+            return fallbackSubscribers;
+        }
+        MultiValueMap<String, String> merged = copy(subscribers);
+        fallbackSubscribers.forEach(merged::addAll);
+        return merged;
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Number of conversations that currently have at least one local subscriber.
+     */
+    public int getConversationCount() {
+        return topicSubscribers.size() + queueSubscribers.size();
+    }
+
+    private void removeFromIndex(ChatDestination chatDestination, String sessionId, String subscriptionId) {
+        boolean[] deactivated = new boolean[1];
+        indexFor(chatDestination).update(chatDestination.conversationId(), current -> {
+            MultiValueMap<String, String> next = withoutSubscription(current, sessionId, subscriptionId);
+            deactivated[0] = current != null && next == null;
+            return next;
+        });
+        if (deactivated[0]) {
+            listeners.forEach(listener -> listener.conversationDeactivated(chatDestination.conversationId()));
+        }
+    }
+
+    private StripedLongMap<MultiValueMap<String, String>> indexFor(ChatDestination chatDestination) {
+        return chatDestination.topic() ? topicSubscribers : queueSubscribers;
+    }
+
+    private static MultiValueMap<String, String> withSubscription(MultiValueMap<String, String> current, String sessionId, String subscriptionId) {
+        MultiValueMap<String, String> next = current != null ? copy(current) : new LinkedMultiValueMap<>();
+        next.add(sessionId, subscriptionId);
+        return CollectionUtils.unmodifiableMultiValueMap(next);
+    }
+
+    private static MultiValueMap<String, String> withoutSubscription(MultiValueMap<String, String> current, String sessionId, String subscriptionId) {
+        if (current == null || !current.containsKey(sessionId)) {
+            return current;
+        }
+        MultiValueMap<String, String> next = copy(current);
+        List<String> subscriptionIds = next.get(sessionId);
+        subscriptionIds.remove(subscriptionId);
+        if (subscriptionIds.isEmpty()) {
+            next.remove(sessionId);
+        }
+        return next.isEmpty() ? null : CollectionUtils.unmodifiableMultiValueMap(next);
+    }
+
+    private static MultiValueMap<String, String> copy(MultiValueMap<String, String> source) {
+        LinkedMultiValueMap<String, String> copy = new LinkedMultiValueMap<>(source.size() + 1);
+        source.forEach((sessionId, subscriptionIds) -> copy.addAll(sessionId, subscriptionIds));
+        return copy;
+    }
+
+    /**
+     * Notified, outside any registry lock, when a chat destination gains its first local
+     * subscriber or loses its last one. Topic and queue destinations are reported separately.
+     */
+    public interface Listener {
+
+        void conversationActivated(long conversationId);
+
+        void conversationDeactivated(long conversationId);
+    }
+
+    /**
+     * A destination parsed into its conversation id, or {@link #OTHER} / {@link #PATTERN} for
+     * anything that is not an exact {@code /topic/chat/{id}} or {@code /queue/chat/{id}} destination.
+     */
+    record ChatDestination(boolean topic, long conversationId) {
+
+        static final ChatDestination OTHER = new ChatDestination(false, -1);
+        static final ChatDestination PATTERN = new ChatDestination(false, -2);
+
+        boolean delegated() {
+            return conversationId < 0;
+        }
+
+        static ChatDestination parse(String destination) {
+            if (destination.startsWith(TOPIC_PREFIX)) {
+                return of(true, destination, TOPIC_PREFIX.length());
+            }
+            if (destination.startsWith(QUEUE_PREFIX)) {
+                return of(false, destination, QUEUE_PREFIX.length());
+            }
+            return OTHER;
+        }
+
+        private static ChatDestination of(boolean topic, String destination, int start) {
+            int length = destination.length();
+            if (start == length || length - start > 18) {
+                return OTHER;
+            }
+            long id = 0;
+            for (int i = start; i < length; i++) {
+                char c = destination.charAt(i);
+                if (c < '0' || c > '9') {
+                    return OTHER;
+                }
+                id = id * 10 + (c - '0');
+            }
+            return new ChatDestination(topic, id);
+        }
+    }
+}
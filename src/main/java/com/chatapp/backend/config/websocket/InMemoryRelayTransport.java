@@ -0,0 +1,45 @@
+package com.chatapp.backend.config.websocket;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.function.Consumer;
+
+/**
+ * In-JVM stand-in for Redis pub/sub. All instances in the same JVM share one bus, so several
+ * application contexts started side by side behave like separate nodes without a Redis server.
+ * Delivery is synchronous on the publishing thread.
+ */
+public class InMemoryRelayTransport implements RelayTransport {
+
+    private static final Map<String, Set<Consumer<byte[]>>> BUS = new ConcurrentHashMap<>();
+
+    private final Map<String, Consumer<byte[]>> subscriptions = new ConcurrentHashMap<>();
+
+    @Override
+    public void publish(String channel, byte[] message) {
+        Set<Consumer<byte[]>> handlers = BUS.get(channel);
+        if (handlers != null) {
+            handlers.forEach(handler -> handler.accept(message));
+        }
+    }
+
+    @Override
+    public void subscribe(String channel, Consumer<byte[]> handler) {
+        if (subscriptions.putIfAbsent(channel, handler) == null) {
+            BUS.computeIfAbsent(channel, key -> new CopyOnWriteArraySet<>()).add(handler);
+        }
+    }
+
+    @Override
+    public void unsubscribe(String channel) {
+        Consumer<byte[]> handler = subscriptions.remove(channel);
+        if (handler != null) {
+            BUS.computeIfPresent(channel, (key, handlers) -> {
+                handlers.remove(handler);
+                return handlers.isEmpty() ? null : handlers;
+            });
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.chatapp.backend.config.websocket;
+
+import com.chatapp.backend.config.WebSocketConfig;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketHandlerDecoratorFactory;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Opt-in outbound frame coalescing, enabled with {@code application.websocket.outbound.coalescing.enabled=true}.
+ * <p>
+ * Every session handed to the STOMP handler is wrapped in a {@link CoalescingWebSocketSession}
+ * on top of a {@link ConcurrentWebSocketSessionDecorator}, so batches are still subject to the
+ * configured send time and buffer limits. A single flusher thread drains the sessions that have
+ * pending frames once per flush window.
+ * <p>
+ * Metrics: {@code chat.ws.coalescing.batch.frames} and {@code chat.ws.coalescing.batch.bytes}
+ * (per written batch) and {@code chat.ws.coalescing.delay} (time the first frame of a batch waited).
+ */
+@Component
+@ConditionalOnProperty(name = "application.websocket.outbound.coalescing.enabled", havingValue = "true")
+@Slf4j
+public class OutboundCoalescingDecoratorFactory implements WebSocketHandlerDecoratorFactory {
+
+    private final Duration flushWindow;
+    @Getter
+    private final int maxBatchBytes;
+    private final Queue<CoalescingWebSocketSession> pendingFlushes = new ConcurrentLinkedQueue<>();
+    private final ThreadPoolTaskScheduler flusher = new ThreadPoolTaskScheduler();
+    private final DistributionSummary batchFrames;
+    private final DistributionSummary batchBytes;
+    private final Timer batchDelay;
+
+    public OutboundCoalescingDecoratorFactory(@Value("${application.websocket.outbound.coalescing.flush-window-millis:3}") long flushWindowMillis,
+                                              @Value("${application.websocket.outbound.coalescing.max-batch-bytes:16384}") int maxBatchBytes,
+                                              MeterRegistry meterRegistry) {
+        this.flushWindow = Duration.ofMillis(flushWindowMillis);
+        this.maxBatchBytes = maxBatchBytes;
+        this.batchFrames = DistributionSummary.builder("chat.ws.coalescing.batch.frames")
+                                              .description("STOMP frames written per coalesced WebSocket message")
+                                              .publishPercentiles(0.5, 0.99)
+                                              .register(meterRegistry);
+        this.batchBytes = DistributionSummary.builder("chat.ws.coalescing.batch.bytes")
+                                             .description("Size of coalesced WebSocket messages")
+                                             .baseUnit("bytes")
+                                             .register(meterRegistry);
+        this.batchDelay = Timer.builder("chat.ws.coalescing.delay")
+                               .description("Latency added by holding frames for coalescing")
+                               .publishPercentiles(0.5, 0.99)
+                               .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        flusher.setPoolSize(1);
+        flusher.setThreadNamePrefix("websocket-coalescing-");
+        flusher.initialize();
+        flusher.scheduleAtFixedRate(this::flushPending, flushWindow);
+        log.info("Outbound frame coalescing enabled with {}ms window and {} byte batches.", flushWindow.toMillis(), maxBatchBytes);
+    }
+
+    @PreDestroy
+    void stop() {
+        flushPending();
+        flusher.shutdown();
+    }
+
+    @Override
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                WebSocketSession limited = new ConcurrentWebSocketSessionDecorator(session, WebSocketConfig.SEND_TIME_LIMIT_MILLIS, WebSocketConfig.SEND_BUFFER_SIZE_LIMIT);
+                super.afterConnectionEstablished(new CoalescingWebSocketSession(limited, OutboundCoalescingDecoratorFactory.this));
+            }
+        };
+    }
+
+    void scheduleFlush(CoalescingWebSocketSession session) {
+        pendingFlushes.add(session);
+    }
+
+    void recordBatch(int frames, int bytes, long delayNanos) {
+        batchFrames.record(frames);
+        batchBytes.record(bytes);
+        batchDelay.record(delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void flushPending() {
+        // Only drain what was queued when this tick started; later arrivals wait for the next one
+        for (int remaining = pendingFlushes.size(); remaining > 0; remaining--) {
+            CoalescingWebSocketSession session = pendingFlushes.poll();
+            if (session == null) {
+                return;
+            }
+            session.flushQuietly();
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.chatapp.backend.config.websocket;
+
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+
+/**
+ * STOMP body encodings a client can negotiate. JSON is the default; CBOR carries the same
+ * document model in a compact binary form and requires binary WebSocket frames.
+ */
+public enum PayloadFormat {
+
+    JSON(MimeTypeUtils.APPLICATION_JSON),
+    CBOR(new MimeType("application", "cbor"));
+
+    private final MimeType mimeType;
+
+    PayloadFormat(MimeType mimeType) {
+        this.mimeType = mimeType;
+    }
+
+    public MimeType mimeType() {
+        return mimeType;
+    }
+
+    /**
+     * Returns the format matching the given content type, or {@code null} when it names neither.
+     */
+    public static PayloadFormat forContentType(MimeType contentType) {
+        if (contentType == null) {
+            return null;
+        }
+        if (CBOR.mimeType.isCompatibleWith(contentType)) {
+            return CBOR;
+        }
+        if (JSON.mimeType.isCompatibleWith(contentType)) {
+            return JSON;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,46 @@
+package com.chatapp.backend.config.websocket;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * {@link RelayTransport} over Redis pub/sub.
+ */
+@RequiredArgsConstructor
+public class RedisRelayTransport implements RelayTransport {
+
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final Map<String, MessageListener> listeners = new ConcurrentHashMap<>();
+
+    @Override
+    public void publish(String channel, byte[] message) {
+        byte[] channelBytes = channel.getBytes(StandardCharsets.UTF_8);
+        redisTemplate.execute((RedisCallback<Long>) connection -> connection.publish(channelBytes, message));
+    }
+
+    @Override
+    public void subscribe(String channel, Consumer<byte[]> handler) {
+        MessageListener listener = (message, pattern) -> handler.accept(message.getBody());
+        if (listeners.putIfAbsent(channel, listener) == null) {
+            listenerContainer.addMessageListener(listener, new ChannelTopic(channel));
+        }
+    }
+
+    @Override
+    public void unsubscribe(String channel) {
+        MessageListener listener = listeners.remove(channel);
+        if (listener != null) {
+            listenerContainer.removeMessageListener(listener, new ChannelTopic(channel));
+        }
+    }
+}
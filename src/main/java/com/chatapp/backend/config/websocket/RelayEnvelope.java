@@ -0,0 +1,47 @@
+package com.chatapp.backend.config.websocket;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Wire format of a broker message relayed between nodes: the publishing node id, the STOMP
+ * destination and content type, followed by the already-serialized payload.
+ * <p>
+ * Layout: {@code [u16 len][origin][u16 len][destination][u16 len][contentType][payload...]}.
+ */
+record RelayEnvelope(String origin, String destination, String contentType, byte[] payload) {
+
+    byte[] encode() {
+        byte[] originBytes = origin.getBytes(StandardCharsets.UTF_8);
+        byte[] destinationBytes = destination.getBytes(StandardCharsets.UTF_8);
+        byte[] contentTypeBytes = contentType != null ? contentType.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        ByteBuffer buffer = ByteBuffer.allocate(6 + originBytes.length + destinationBytes.length + contentTypeBytes.length + payload.length);
+        putString(buffer, originBytes);
+        putString(buffer, destinationBytes);
+        putString(buffer, contentTypeBytes);
+        buffer.put(payload);
+        return buffer.array();
+    }
+
+    static RelayEnvelope decode(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        String origin = getString(buffer);
+        String destination = getString(buffer);
+        String contentType = getString(buffer);
+        byte[] payload = new byte[buffer.remaining()];
+        buffer.get(payload);
+        return new RelayEnvelope(origin, destination, contentType.isEmpty() ? null : contentType, payload);
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] value) {
+        buffer.putShort((short) value.length);
+        buffer.put(value);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = Short.toUnsignedInt(buffer.getShort());
+        String value = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+}
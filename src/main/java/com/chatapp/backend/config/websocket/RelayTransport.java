@@ -0,0 +1,16 @@
+package com.chatapp.backend.config.websocket;
+
+import java.util.function.Consumer;
+
+/**
+ * Pub/sub channel used by {@link BrokerRelay} to exchange broker messages between nodes.
+ * Implementations must deliver messages published on a channel in publish order.
+ */
+public interface RelayTransport {
+
+    void publish(String channel, byte[] message);
+
+    void subscribe(String channel, Consumer<byte[]> handler);
+
+    void unsubscribe(String channel);
+}
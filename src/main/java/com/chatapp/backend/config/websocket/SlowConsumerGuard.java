@@ -0,0 +1,236 @@
+package com.chatapp.backend.config.websocket;
+
+import com.chatapp.backend.config.WebSocketConfig;
+import com.chatapp.backend.dto.response.ResyncResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketHandlerDecoratorFactory;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Slow-consumer protection, enabled with {@code application.websocket.slow-consumer.enabled=true}.
+ * <p>
+ * Gives each session a bounded outbound queue (see {@link SlowConsumerWebSocketSession}) with a
+ * policy per destination: {@code drop-destinations} (e.g. typing) are dropped and
+ * {@code latest-destinations} (e.g. presence) keep only the newest frame while the client lags;
+ * everything else is retained. A client that lost chat frames receives a {@link ResyncResponse}
+ * on {@value #RESYNC_DESTINATION} and should reload its conversations.
+ * <p>
+ * Metrics: {@code chat.ws.slow.sessions}, {@code chat.ws.slow.dropped} (by policy),
+ * {@code chat.ws.slow.merged}, {@code chat.ws.slow.resync} and {@code chat.ws.slow.closed}.
+ */
+@Component
+@ConditionalOnProperty(name = "application.websocket.slow-consumer.enabled", havingValue = "true")
+@Slf4j
+public class SlowConsumerGuard implements WebSocketHandlerDecoratorFactory {
+
+    public static final String RESYNC_DESTINATION = "/queue/resync";
+
+    private static final String SESSION_ATTRIBUTE = SlowConsumerGuard.class.getName() + ".SESSION";
+    private static final byte[] MESSAGE_COMMAND = "MESSAGE\n".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] DESTINATION_HEADER = "\ndestination:".getBytes(StandardCharsets.UTF_8);
+
+    enum Policy { RETAIN, DROP, LATEST, CONTROL }
+
+    record Frame(WebSocketMessage<?> message, int size, Policy policy, String destination) {
+    }
+
+    @Getter
+    private final long maxQueuedBytes;
+    @Getter
+    private final long slowThresholdBytes;
+    @Getter
+    private final long sendTimeLimitMillis = WebSocketConfig.SEND_TIME_LIMIT_MILLIS;
+    private final List<String> dropDestinations;
+    private final List<String> latestDestinations;
+    private final PathMatcher pathMatcher = new AntPathMatcher();
+    private final ObjectProvider<SimpMessagingTemplate> messagingTemplate;
+    private final Executor drainExecutor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("websocket-drain-", 0).factory());
+    private final AtomicInteger slowSessions = new AtomicInteger();
+    private final Map<Policy, Counter> dropped = new EnumMap<>(Policy.class);
+    private final Counter merged;
+    private final Counter resyncs;
+    private final Counter closedSessions;
+
+    public SlowConsumerGuard(@Value("${application.websocket.slow-consumer.max-queued-bytes:524288}") long maxQueuedBytes,
+                             @Value("${application.websocket.slow-consumer.slow-threshold-bytes:65536}") long slowThresholdBytes,
+                             @Value("${application.websocket.slow-consumer.drop-destinations:}") List<String> dropDestinations,
+                             @Value("${application.websocket.slow-consumer.latest-destinations:}") List<String> latestDestinations,
+                             ObjectProvider<SimpMessagingTemplate> messagingTemplate,
+                             MeterRegistry meterRegistry) {
+        this.maxQueuedBytes = maxQueuedBytes;
+        this.slowThresholdBytes = slowThresholdBytes;
+        this.dropDestinations = dropDestinations;
+        this.latestDestinations = latestDestinations;
+        this.messagingTemplate = messagingTemplate;
+        Gauge.builder("chat.ws.slow.sessions", slowSessions, AtomicInteger::get)
+             .description("Sessions whose outbound queue is above the slow threshold")
+             .register(meterRegistry);
+        for (Policy policy : List.of(Policy.RETAIN, Policy.DROP, Policy.LATEST)) {
+            dropped.put(policy, Counter.builder("chat.ws.slow.dropped")
+                                       .tag("policy", policy.name().toLowerCase())
+                                       .register(meterRegistry));
+        }
+        this.merged = Counter.builder("chat.ws.slow.merged").register(meterRegistry);
+        this.resyncs = Counter.builder("chat.ws.slow.resync").register(meterRegistry);
+        this.closedSessions = Counter.builder("chat.ws.slow.closed").register(meterRegistry);
+        log.info("Slow-consumer protection enabled: slow above {} bytes, queue limit {} bytes.", slowThresholdBytes, maxQueuedBytes);
+    }
+
+    @Override
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                SlowConsumerWebSocketSession guarded = new SlowConsumerWebSocketSession(session, SlowConsumerGuard.this);
+                session.getAttributes().put(SESSION_ATTRIBUTE, guarded);
+                super.afterConnectionEstablished(guarded);
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                if (session.getAttributes().remove(SESSION_ATTRIBUTE) instanceof SlowConsumerWebSocketSession guarded) {
+                    guarded.release();
+                }
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+
+    /**
+     * Reads the command and destination from the start of a STOMP frame.
+     */
+    Frame classify(WebSocketMessage<?> message) {
+        ByteBuffer frame = switch (message) {
+            case TextMessage text -> ByteBuffer.wrap(text.asBytes());
+            case BinaryMessage binary -> binary.getPayload().duplicate();
+            default -> null;
+        };
+        int size = message.getPayloadLength();
+        String destination = frame != null ? messageDestination(frame) : null;
+        if (destination == null) {
+            return new Frame(message, size, Policy.CONTROL, null);
+        }
+        if (destination.endsWith(RESYNC_DESTINATION)) {
+            return new Frame(message, size, Policy.CONTROL, destination);
+        }
+        return new Frame(message, size, policyFor(destination), destination);
+    }
+
+    void startDrain(Runnable drain) {
+        drainExecutor.execute(drain);
+    }
+
+    /**
+     * Sends the notice to this session only: with the session id as user name, user destinations
+     * resolve to the session itself.
+     */
+    void requestResync(String sessionId, int droppedMessages) {
+        resyncs.increment();
+        log.info("Session {} dropped {} chat messages, requesting resync.", sessionId, droppedMessages);
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(sessionId);
+        accessor.setLeaveMutable(true);
+        messagingTemplate.getObject().convertAndSendToUser(sessionId, RESYNC_DESTINATION,
+                ResyncResponse.builder().reason("overflow").droppedMessages(droppedMessages).build(),
+                accessor.getMessageHeaders());
+    }
+
+    void slowSessionChanged(String sessionId, boolean slow, long queuedBytes) {
+        if (slow) {
+            slowSessions.incrementAndGet();
+            log.info("Session {} is consuming slowly, {} bytes queued.", sessionId, queuedBytes);
+        } else {
+            slowSessions.decrementAndGet();
+        }
+    }
+
+    void recordDropped(Policy policy) {
+        dropped.get(policy).increment();
+    }
+
+    void recordMerged() {
+        merged.increment();
+    }
+
+    void recordStuck() {
+        closedSessions.increment();
+    }
+
+    private Policy policyFor(String destination) {
+        for (String pattern : dropDestinations) {
+            if (pathMatcher.match(pattern, destination)) {
+                return Policy.DROP;
+            }
+        }
+        for (String pattern : latestDestinations) {
+            if (pathMatcher.match(pattern, destination)) {
+                return Policy.LATEST;
+            }
+        }
+        return Policy.RETAIN;
+    }
+
+    private static String messageDestination(ByteBuffer frame) {
+        int start = frame.position();
+        if (!startsWith(frame, start, MESSAGE_COMMAND)) {
+            return null;
+        }
+        int limit = frame.limit();
+        for (int i = start + MESSAGE_COMMAND.length - 1; i < limit - 1; i++) {
+            if (frame.get(i) == '\n' && frame.get(i + 1) == '\n') {
+                return null;
+            }
+            if (startsWith(frame, i, DESTINATION_HEADER)) {
+                int valueStart = i + DESTINATION_HEADER.length;
+                int valueEnd = valueStart;
+                while (valueEnd < limit && frame.get(valueEnd) != '\n' && frame.get(valueEnd) != '\r') {
+                    valueEnd++;
+                }
+                byte[] value = new byte[valueEnd - valueStart];
+                frame.get(valueStart, value);
+                return new String(value, StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+
+    private static boolean startsWith(ByteBuffer buffer, int offset, byte[] prefix) {
+        if (buffer.limit() - offset < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (buffer.get(offset + i) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
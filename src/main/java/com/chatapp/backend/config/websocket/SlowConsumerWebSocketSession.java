@@ -0,0 +1,200 @@
+package com.chatapp.backend.config.websocket;
+
+import com.chatapp.backend.config.websocket.SlowConsumerGuard.Policy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Session decorator with a bounded outbound queue drained by a background writer, so a slow
+ * client never blocks the thread delivering to it and never trips Spring's buffer limit.
+ * <p>
+ * Once the queue holds more than the slow threshold, ephemeral frames are dropped and "latest"
+ * frames replace the one still queued for the same destination. Chat frames are kept up to the
+ * queue limit; past it they are discarded and a resync notice is sent once the queue has drained.
+ * A session whose current write has been stuck for longer than the send time limit while the
+ * queue is full is closed.
+ */
+@Slf4j
+class SlowConsumerWebSocketSession extends WebSocketSessionDecorator {
+
+    private final SlowConsumerGuard guard;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Queue<Pending> queue = new ArrayDeque<>();
+    private final Map<String, Pending> latestByDestination = new HashMap<>();
+    private long queuedBytes;
+    private long writeStartedNanos;
+    private boolean draining;
+    private boolean slow;
+    private boolean closed;
+    private int droppedChatFrames;
+
+    SlowConsumerWebSocketSession(WebSocketSession delegate, SlowConsumerGuard guard) {
+        super(delegate);
+        this.guard = guard;
+    }
+
+    @Override
+    public void sendMessage(WebSocketMessage<?> message) throws IOException {
+        SlowConsumerGuard.Frame frame = guard.classify(message);
+        boolean startDrain = false;
+        boolean stuck = false;
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            if (!admit(frame)) {
+                stuck = frame.policy() == Policy.RETAIN && isWriteStuck();
+            } else if (!draining) {
+                draining = true;
+                startDrain = true;
+            }
+            updateSlowState();
+        } finally {
+            lock.unlock();
+        }
+        if (stuck) {
+            guard.recordStuck();
+            log.warn("Closing session {}: write stuck for over {}ms with a full outbound queue", getId(), guard.getSendTimeLimitMillis());
+            close(CloseStatus.SESSION_NOT_RELIABLE);
+        } else if (startDrain) {
+            guard.startDrain(this::drain);
+        }
+    }
+
+    @Override
+    public void close(CloseStatus status) throws IOException {
+        release();
+        super.close(status);
+    }
+
+    /**
+     * Discards anything still queued; called when the connection is closed.
+     */
+    void release() {
+        lock.lock();
+        try {
+            closed = true;
+            queue.clear();
+            latestByDestination.clear();
+            queuedBytes = 0;
+            updateSlowState();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean admit(SlowConsumerGuard.Frame frame) {
+        Policy policy = frame.policy();
+        if (policy == Policy.LATEST) {
+            Pending queued = latestByDestination.get(frame.destination());
+            if (queued != null) {
+                queuedBytes += frame.size() - queued.size;
+                queued.message = frame.message();
+                queued.size = frame.size();
+                guard.recordMerged();
+                return true;
+            }
+        }
+        if (policy == Policy.DROP || policy == Policy.LATEST) {
+            if (queuedBytes + frame.size() > guard.getSlowThresholdBytes()) {
+                guard.recordDropped(policy);
+                return false;
+            }
+        } else if (policy == Policy.RETAIN && queuedBytes + frame.size() > guard.getMaxQueuedBytes()) {
+            droppedChatFrames++;
+            guard.recordDropped(policy);
+            return false;
+        }
+        Pending pending = new Pending(frame.message(), frame.size(), policy == Policy.LATEST ? frame.destination() : null);
+        queue.add(pending);
+        if (pending.latestKey != null) {
+            latestByDestination.put(pending.latestKey, pending);
+        }
+        queuedBytes += pending.size;
+        return true;
+    }
+
+    private void drain() {
+        while (true) {
+            Pending next;
+            int resyncDropped = 0;
+            lock.lock();
+            try {
+                next = queue.poll();
+                if (next == null) {
+                    draining = false;
+                    writeStartedNanos = 0;
+                } else {
+                    queuedBytes -= next.size;
+                    if (next.latestKey != null) {
+                        latestByDestination.remove(next.latestKey);
+                    }
+                    writeStartedNanos = System.nanoTime();
+                }
+                if (droppedChatFrames > 0 && queuedBytes <= guard.getSlowThresholdBytes()) {
+                    resyncDropped = droppedChatFrames;
+                    droppedChatFrames = 0;
+                }
+                updateSlowState();
+            } finally {
+                lock.unlock();
+            }
+            if (resyncDropped > 0) {
+                // Goes back through the broker and lands in this queue as a control frame
+                guard.requestResync(getId(), resyncDropped);
+            }
+            if (next == null) {
+                return;
+            }
+            try {
+                getDelegate().sendMessage(next.message);
+            } catch (IOException | RuntimeException e) {
+                log.debug("Failed to send to session {}, discarding its outbound queue: {}", getId(), e.getMessage());
+                release();
+                lock.lock();
+                try {
+                    draining = false;
+                } finally {
+                    lock.unlock();
+                }
+                return;
+            }
+        }
+    }
+
+    private boolean isWriteStuck() {
+        return writeStartedNanos != 0 && System.nanoTime() - writeStartedNanos > guard.getSendTimeLimitMillis() * 1_000_000L;
+    }
+
+    private void updateSlowState() {
+        boolean nowSlow = queuedBytes > guard.getSlowThresholdBytes();
+        if (nowSlow != slow) {
+            slow = nowSlow;
+            guard.slowSessionChanged(getId(), nowSlow, queuedBytes);
+        }
+    }
+
+    private static final class Pending {
+
+        private WebSocketMessage<?> message;
+        private int size;
+        private final String latestKey;
+
+        Pending(WebSocketMessage<?> message, int size, String latestKey) {
+            this.message = message;
+            this.size = size;
+            this.latestKey = latestKey;
+        }
+    }
+}
@@ -0,0 +1,308 @@
+package com.chatapp.backend.config.websocket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.converter.DefaultContentTypeResolver;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.converter.MessageConverter;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketHandlerDecoratorFactory;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+import org.springframework.web.socket.sockjs.transport.SockJsSession;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * STOMP payload encodings and their per-session negotiation.
+ * <p>
+ * Inbound SEND bodies are decoded according to their {@code content-type} by the converters
+ * from {@link #messageConverters()}. A client opts into CBOR for the messages it receives by
+ * setting {@code content-type:application/cbor} on CONNECT or on any SEND; broadcasts are still
+ * encoded as JSON first and re-encoded on the outbound channel, once per broadcast, for those
+ * sessions. CBOR sessions get binary WebSocket frames, so SockJS sessions always stay on JSON.
+ * <p>
+ * Metrics, all tagged by format so the two encodings can be compared side by side:
+ * {@code chat.ws.payload.bytes} (body size per delivered message), {@code chat.ws.payload.encode}
+ * (encoding time, also tagged by whether it started from the original object or had to transcode
+ * JSON bytes) and {@code chat.ws.payload.decode} (inbound SEND body decoding time).
+ */
+@Component
+@Slf4j
+public class StompPayloadCodec {
+
+    /**
+     * Internal header holding the object a broadcast was encoded from; never written to the wire.
+     */
+    static final String SOURCE_HEADER = "chatPayloadSource";
+
+    private static final String FORMAT_ATTRIBUTE = StompPayloadCodec.class.getName() + ".FORMAT";
+    private static final String BINARY_FRAMES_ATTRIBUTE = StompPayloadCodec.class.getName() + ".BINARY_FRAMES";
+
+    private final ObjectMapper jsonMapper;
+    private final ObjectMapper cborMapper;
+    private final Map<String, PayloadFormat> sessionFormats = new ConcurrentHashMap<>();
+    private final Map<PayloadFormat, DistributionSummary> payloadBytes = new EnumMap<>(PayloadFormat.class);
+    private final Map<PayloadFormat, Timer> encodeFromSource = new EnumMap<>(PayloadFormat.class);
+    private final Map<PayloadFormat, Timer> decode = new EnumMap<>(PayloadFormat.class);
+    private final Timer transcodeFromJson;
+
+    public StompPayloadCodec(Jackson2ObjectMapperBuilder objectMapperBuilder, MeterRegistry meterRegistry) {
+        this.jsonMapper = objectMapperBuilder.build();
+        this.cborMapper = objectMapperBuilder.factory(new CBORFactory()).build();
+        for (PayloadFormat format : PayloadFormat.values()) {
+            payloadBytes.put(format, DistributionSummary.builder("chat.ws.payload.bytes")
+                                                        .description("STOMP MESSAGE body size delivered to clients")
+                                                        .baseUnit("bytes")
+                                                        .tag("format", format.name().toLowerCase())
+                                                        .register(meterRegistry));
+            encodeFromSource.put(format, Timer.builder("chat.ws.payload.encode")
+                                              .description("Time to encode a STOMP MESSAGE body")
+                                              .tag("format", format.name().toLowerCase())
+                                              .tag("path", "source")
+                                              .register(meterRegistry));
+            decode.put(format, Timer.builder("chat.ws.payload.decode")
+                                    .description("Time to decode a STOMP SEND body")
+                                    .tag("format", format.name().toLowerCase())
+                                    .register(meterRegistry));
+        }
+        this.transcodeFromJson = Timer.builder("chat.ws.payload.encode")
+                                      .description("Time to encode a STOMP MESSAGE body")
+                                      .tag("format", PayloadFormat.CBOR.name().toLowerCase())
+                                      .tag("path", "transcode")
+                                      .register(meterRegistry);
+    }
+
+    /**
+     * JSON first, so bodies without a content type and all server-side sends default to JSON.
+     */
+    public List<MessageConverter> messageConverters() {
+        DefaultContentTypeResolver resolver = new DefaultContentTypeResolver();
+        resolver.setDefaultMimeType(PayloadFormat.JSON.mimeType());
+        MappingJackson2MessageConverter json = new TimedConverter(PayloadFormat.JSON,
+                PayloadFormat.JSON.mimeType(), new MimeType("application", "*+json"));
+        json.setObjectMapper(jsonMapper);
+        json.setContentTypeResolver(resolver);
+        MappingJackson2MessageConverter cbor = new TimedConverter(PayloadFormat.CBOR, PayloadFormat.CBOR.mimeType());
+        cbor.setObjectMapper(cborMapper);
+        return List.of(json, cbor);
+    }
+
+    /**
+     * Attaches the source object so CBOR subscribers can be served without parsing the JSON body.
+     */
+    public Message<byte[]> withSource(Message<byte[]> encoded, Object source) {
+        return MessageBuilder.fromMessage(encoded).setHeader(SOURCE_HEADER, new SourcePayload(source)).build();
+    }
+
+    /**
+     * Records the format requested on CONNECT or SEND and forgets it on DISCONNECT.
+     */
+    public ChannelInterceptor inboundInterceptor() {
+        return new ChannelInterceptor() {
+            @Override
+            public Message<?> preSend(Message<?> message, MessageChannel channel) {
+                SimpMessageType type = SimpMessageHeaderAccessor.getMessageType(message.getHeaders());
+                String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+                if (sessionId == null) {
+                    return message;
+                }
+                if (SimpMessageType.DISCONNECT.equals(type)) {
+                    sessionFormats.remove(sessionId);
+                } else if (SimpMessageType.CONNECT.equals(type) || SimpMessageType.MESSAGE.equals(type)) {
+                    negotiate(sessionId, message);
+                }
+                return message;
+            }
+        };
+    }
+
+    /**
+     * Re-encodes JSON MESSAGE bodies for sessions that negotiated CBOR.
+     */
+    public ChannelInterceptor outboundInterceptor() {
+        return new ChannelInterceptor() {
+            @Override
+            public Message<?> preSend(Message<?> message, MessageChannel channel) {
+                if (!SimpMessageType.MESSAGE.equals(SimpMessageHeaderAccessor.getMessageType(message.getHeaders()))
+                        || !(message.getPayload() instanceof byte[] payload)) {
+                    return message;
+                }
+                if (formatOf(message) != PayloadFormat.JSON) {
+                    return message;
+                }
+                String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+                if (sessionId == null || sessionFormats.get(sessionId) != PayloadFormat.CBOR) {
+                    payloadBytes.get(PayloadFormat.JSON).record(payload.length);
+                    return message;
+                }
+                try {
+                    byte[] cbor = toCbor(message, payload);
+                    payloadBytes.get(PayloadFormat.CBOR).record(cbor.length);
+                    MessageHeaderAccessor accessor = MessageHeaderAccessor.getMutableAccessor(message);
+                    accessor.setContentType(PayloadFormat.CBOR.mimeType());
+                    return MessageBuilder.createMessage(cbor, accessor.getMessageHeaders());
+                } catch (IOException e) {
+                    log.warn("Failed to encode CBOR payload, sending JSON instead: {}", e.getMessage());
+                    return message;
+                }
+            }
+        };
+    }
+
+    /**
+     * Marks which sessions can carry binary frames and sends CBOR sessions' frames as binary.
+     */
+    public WebSocketHandlerDecoratorFactory binaryFrameDecorator() {
+        return handler -> new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                if (session instanceof SockJsSession) {
+                    super.afterConnectionEstablished(session);
+                    return;
+                }
+                session.getAttributes().put(BINARY_FRAMES_ATTRIBUTE, Boolean.TRUE);
+                super.afterConnectionEstablished(new BinaryFrameSession(session));
+            }
+        };
+    }
+
+    private void negotiate(String sessionId, Message<?> message) {
+        PayloadFormat format = formatOf(message);
+        Map<String, Object> attributes = SimpMessageHeaderAccessor.getSessionAttributes(message.getHeaders());
+        if (format == null || attributes == null) {
+            return;
+        }
+        if (format == PayloadFormat.CBOR && !attributes.containsKey(BINARY_FRAMES_ATTRIBUTE)) {
+            log.debug("Session {} requested CBOR over a text-only transport; keeping JSON.", sessionId);
+            return;
+        }
+        if (format == PayloadFormat.CBOR) {
+            sessionFormats.put(sessionId, format);
+        } else {
+            sessionFormats.remove(sessionId);
+        }
+        attributes.put(FORMAT_ATTRIBUTE, format);
+    }
+
+    private static PayloadFormat formatOf(Message<?> message) {
+        Object contentType = message.getHeaders().get(MessageHeaders.CONTENT_TYPE);
+        if (contentType instanceof String value) {
+            contentType = MimeType.valueOf(value);
+        }
+        return PayloadFormat.forContentType((MimeType) contentType);
+    }
+
+    private byte[] toCbor(Message<?> message, byte[] json) throws IOException {
+        SourcePayload source = message.getHeaders().get(SOURCE_HEADER, SourcePayload.class);
+        if (source != null) {
+            return source.cbor();
+        }
+        long start = System.nanoTime();
+        byte[] cbor = cborMapper.writeValueAsBytes(jsonMapper.readTree(json));
+        transcodeFromJson.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return cbor;
+    }
+
+    /**
+     * Jackson converter for one format that times what it encodes and decodes.
+     */
+    private final class TimedConverter extends MappingJackson2MessageConverter {
+
+        private final PayloadFormat format;
+
+        TimedConverter(PayloadFormat format, MimeType... supportedMimeTypes) {
+            super(supportedMimeTypes);
+            this.format = format;
+        }
+
+        @Override
+        protected Object convertFromInternal(Message<?> message, Class<?> targetClass, Object conversionHint) {
+            long start = System.nanoTime();
+            try {
+                return super.convertFromInternal(message, targetClass, conversionHint);
+            } finally {
+                decode.get(format).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        @Override
+        protected Object convertToInternal(Object payload, MessageHeaders headers, Object conversionHint) {
+            long start = System.nanoTime();
+            try {
+                return super.convertToInternal(payload, headers, conversionHint);
+            } finally {
+                encodeFromSource.get(format).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    /**
+     * Source object of a broadcast with its CBOR encoding computed on first use. The broker copies
+     * this header onto every subscriber's message, so the encoding is shared across the fan-out.
+     */
+    final class SourcePayload {
+
+        private final Object source;
+        private volatile byte[] cbor;
+
+        SourcePayload(Object source) {
+            this.source = source;
+        }
+
+        byte[] cbor() throws IOException {
+            byte[] encoded = cbor;
+            if (encoded == null) {
+                long start = System.nanoTime();
+                // Concurrent first uses may both encode; the results are identical
+                encoded = cborMapper.writeValueAsBytes(source);
+                encodeFromSource.get(PayloadFormat.CBOR).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                cbor = encoded;
+            }
+            return encoded;
+        }
+    }
+
+    /**
+     * Sends STOMP frames as binary WebSocket messages once the session has negotiated CBOR;
+     * CBOR bodies are not valid UTF-8 text.
+     */
+    private static final class BinaryFrameSession extends WebSocketSessionDecorator {
+
+        BinaryFrameSession(WebSocketSession delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public void sendMessage(WebSocketMessage<?> message) throws IOException {
+            if (message instanceof TextMessage text && getAttributes().get(FORMAT_ATTRIBUTE) == PayloadFormat.CBOR) {
+                super.sendMessage(new BinaryMessage(text.asBytes(), text.isLast()));
+                return;
+            }
+            super.sendMessage(message);
+        }
+    }
+}
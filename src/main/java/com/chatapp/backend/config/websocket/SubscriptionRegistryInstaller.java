@@ -0,0 +1,32 @@
+package com.chatapp.backend.config.websocket;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.stereotype.Component;
+
+/**
+ * Swaps the simple broker's default subscription registry for the {@link ConversationSubscriptionRegistry}
+ * when one is configured. {@code MessageBrokerRegistry} offers no hook for this, so it is done
+ * right after Spring creates the {@link SimpleBrokerMessageHandler}, before the broker starts.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SubscriptionRegistryInstaller implements BeanPostProcessor {
+
+    private final ObjectProvider<ConversationSubscriptionRegistry> subscriptionRegistry;
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof SimpleBrokerMessageHandler brokerHandler) {
+            subscriptionRegistry.ifAvailable(registry -> {
+                brokerHandler.setSubscriptionRegistry(registry);
+                log.info("Installed conversation-sharded subscription registry on broker '{}'", beanName);
+            });
+        }
+        return bean;
+    }
+}
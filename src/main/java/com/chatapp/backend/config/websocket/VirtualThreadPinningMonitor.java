@@ -0,0 +1,86 @@
+package com.chatapp.backend.config.websocket;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Reports virtual threads that stay pinned to their carrier, typically by blocking on JDBC or
+ * other I/O inside a {@code synchronized} block, when the channels run in virtual mode.
+ * <p>
+ * Listens to the JFR {@code jdk.VirtualThreadPinned} event in-process. Every event counts towards
+ * {@code chat.ws.virtual.pinned}; each distinct stack is logged once.
+ */
+@Component
+@ConditionalOnProperty(name = "application.websocket.executor.mode", havingValue = ChannelExecutorFactory.VIRTUAL)
+@Slf4j
+public class VirtualThreadPinningMonitor {
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final int LOGGED_FRAMES = 12;
+    private static final int MAX_REPORTED_STACKS = 256;
+
+    private final Duration threshold;
+    private final Counter pinnedCount;
+    private final Timer pinnedTime;
+    private final Set<String> reportedStacks = ConcurrentHashMap.newKeySet();
+    private RecordingStream recordingStream;
+
+    public VirtualThreadPinningMonitor(@Value("${application.websocket.executor.pinning-threshold-millis:20}") long thresholdMillis,
+                                       MeterRegistry meterRegistry) {
+        this.threshold = Duration.ofMillis(thresholdMillis);
+        this.pinnedCount = Counter.builder("chat.ws.virtual.pinned")
+                                  .description("Virtual threads that blocked while pinned to a carrier thread")
+                                  .register(meterRegistry);
+        this.pinnedTime = Timer.builder("chat.ws.virtual.pinned.duration").register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        recordingStream = new RecordingStream();
+        recordingStream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        recordingStream.onEvent(PINNED_EVENT, this::onPinned);
+        recordingStream.startAsync();
+        log.info("Monitoring virtual thread pinning longer than {}ms.", threshold.toMillis());
+    }
+
+    @PreDestroy
+    void stop() {
+        if (recordingStream != null) {
+            recordingStream.close();
+        }
+    }
+
+    private void onPinned(RecordedEvent event) {
+        pinnedCount.increment();
+        pinnedTime.record(event.getDuration());
+        RecordedStackTrace stackTrace = event.getStackTrace();
+        if (stackTrace == null) {
+            return;
+        }
+        List<RecordedFrame> frames = stackTrace.getFrames();
+        String stack = frames.stream()
+                             .limit(LOGGED_FRAMES)
+                             .map(frame -> frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber())
+                             .collect(Collectors.joining("\n\tat "));
+        if (reportedStacks.size() < MAX_REPORTED_STACKS && reportedStacks.add(stack)) {
+            log.warn("Virtual thread pinned for {}ms at\n\tat {}", event.getDuration().toMillis(), stack);
+        }
+    }
+}
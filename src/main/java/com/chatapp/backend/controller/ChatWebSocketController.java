@@ -1,49 +1,149 @@
 package com.chatapp.backend.controller;
 
+import com.chatapp.backend.config.websocket.BroadcastSender;
+import com.chatapp.backend.dto.request.MessageBatchRequest;
 import com.chatapp.backend.dto.request.MessageRequest;
+import com.chatapp.backend.dto.response.MessageBatchResponse;
+import com.chatapp.backend.dto.response.MessageResponse;
 import com.chatapp.backend.entity.User;
-import com.chatapp.backend.service.ConversationService;
+import com.chatapp.backend.exception.ApiException;
+import com.chatapp.backend.service.MessageIngestionService;
+import com.chatapp.backend.service.impl.ConversationActivityStore;
+import com.chatapp.backend.service.impl.ConversationMembershipIndex;
+import com.chatapp.backend.service.impl.ConversationTailCache;
+import com.chatapp.backend.service.impl.MessageDeduplicator;
+import com.chatapp.backend.service.impl.UnreadCounterStore;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.messaging.handler.annotation.DestinationVariable;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Controller;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static com.chatapp.backend.exception.ErrorCode.INTERNAL_SERVER_ERROR;
+
 @Controller
 @RequiredArgsConstructor
 @Slf4j
 public class ChatWebSocketController {
-    private final ConversationService conversationService;
-    private final SimpMessagingTemplate messagingTemplate;
+    // Per-item results of /app/chat.sendBatch, on /user/queue/chat.sendBatch
+    public static final String BATCH_RESULTS_DESTINATION = "/queue/chat.sendBatch";
+
+    private final MessageIngestionService messageIngestionService;
+    private final ConversationMembershipIndex membershipIndex;
+    private final BroadcastSender broadcastSender;
+    private final MessageDeduplicator messageDeduplicator;
+    private final ConversationActivityStore activityStore;
+    private final ConversationTailCache tailCache;
+    private final UnreadCounterStore unreadCounters;
 
     @MessageMapping("/chat.sendPrivateMessage")
     public void handlePrivateMessage(@Payload @Valid MessageRequest messageRequest) {
         User user = (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
         log.info("User {}: Received private message: {}", user.getUsername(), messageRequest);
 
-        conversationService.processPrivateMessage(messageRequest).thenAccept(response -> {
+        messageDeduplicator.submit(user.getId(), messageRequest, () -> messageIngestionService.submitPrivateMessage(messageRequest)).thenAccept(accepted -> {
+            MessageResponse response = accepted.response();
+            if (accepted.duplicate()) {
+                answerDuplicate(user.getUsername(), "/queue/chat/" + response.conversationId(), response);
+                return;
+            }
+            recordSent(user, response);
             // Send the full response after processing is complete
-            messagingTemplate.convertAndSend("/queue/chat/" + response.conversationId(), response);
+            broadcastSender.broadcast("/queue/chat/" + response.conversationId(), response);
             log.info("User {}: Sent private message response, conversationId: {}", user.getUsername(), response.conversationId());
         });
     }
 
     @MessageMapping("/chat.sendGroupMessage/")
     public void handleGroupMessage( @Payload @Valid MessageRequest messageRequest) {
-        String username = "LOGGED_IN_USER";//TODO : Replace with authenticated user from spring context once implemented Spring security
+        User user = (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        String username = user.getUsername();
         log.info("User {}: Received group message for chat {}: {}", username, messageRequest.conversationId(), messageRequest);
 
         // Process the message asynchronously
-        conversationService.processGroupMessage(messageRequest.conversationId(), messageRequest).thenAccept(response -> {
-            // Send the full response after processing is complete
-            messagingTemplate.convertAndSend("/topic/chat/" + messageRequest.conversationId(), response);
+        messageDeduplicator.submit(user.getId(), messageRequest, () -> messageIngestionService.submitGroupMessage(messageRequest.conversationId(), messageRequest)).thenAccept(accepted -> {
+            MessageResponse response = accepted.response();
+            if (accepted.duplicate()) {
+                answerDuplicate(username, "/topic/chat/" + messageRequest.conversationId(), response);
+                return;
+            }
+            recordSent(user, response);
+            // Send the full response after processing is complete, encoded once for all subscribers
+            broadcastSender.broadcast("/topic/chat/" + messageRequest.conversationId(), response);
             log.info("User {}: Sent group message response to /topic/chat/{}, response: {}", username, messageRequest.conversationId(), response);
         });
     }
+
+    @MessageMapping("/chat.sendBatch")
+    public void handleMessageBatch(@Payload @Valid MessageBatchRequest batchRequest) {
+        User user = (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        String username = user.getUsername();
+        List<MessageRequest> messages = batchRequest.messages();
+        log.info("User {}: Received batch of {} messages", username, messages.size());
+
+        messageIngestionService.submitBatch(messages).whenComplete((response, error) -> {
+            if (error != null) {
+                log.error("User {}: Batch of {} messages failed", username, messages.size(), error);
+                broadcastSender.sendToUser(username, BATCH_RESULTS_DESTINATION, failedBatch(messages));
+                return;
+            }
+            // Coalesced per conversation: one frame carries all of its new messages, in sequence order
+            Map<Long, List<MessageResponse>> saved = new LinkedHashMap<>();
+            response.results().stream()
+                    .filter(item -> item.status() == MessageBatchResponse.Status.SAVED)
+                    .map(MessageBatchResponse.Item::message)
+                    .forEach(message -> {
+                        recordSent(user, message);
+                        saved.computeIfAbsent(message.conversationId(), id -> new ArrayList<>()).add(message);
+                    });
+            saved.forEach((conversationId, conversationMessages) -> {
+                try {
+                    String destination = (membershipIndex.get(conversationId).isGroup() ? "/topic/chat/" : "/queue/chat/") + conversationId;
+                    broadcastSender.broadcast(destination, conversationMessages);
+                } catch (ApiException e) {
+                    // Deleted since the batch was saved
+                    log.warn("User {}: Skipped broadcast of {} messages to conversation {}", username, conversationMessages.size(), conversationId);
+                }
+            });
+            broadcastSender.sendToUser(username, BATCH_RESULTS_DESTINATION, response);
+            log.info("User {}: Sent batch results: {} saved, {} duplicates, {} rejected", username, response.saved(), response.duplicates(), response.rejected());
+        });
+    }
+
+    private static MessageBatchResponse failedBatch(List<MessageRequest> messages) {
+        return MessageBatchResponse.builder()
+                                   .results(IntStream.range(0, messages.size())
+                                                     .mapToObj(i -> MessageBatchResponse.Item.builder()
+                                                                                             .index(i)
+                                                                                             .status(MessageBatchResponse.Status.FAILED)
+                                                                                             .clientMessageId(messages.get(i).clientMessageId())
+                                                                                             .errorCode(INTERNAL_SERVER_ERROR.getCode())
+                                                                                             .error("Error processing message batch")
+                                                                                             .build())
+                                                     .toList())
+                                   .build();
+    }
+
+    private void recordSent(User sender, MessageResponse response) {
+        activityStore.record(response);
+        tailCache.append(response);
+        unreadCounters.recordMessage(response.conversationId(), sender.getId());
+    }
+
+    // A retried send was already broadcast: only the sender hears about it again, on /user<destination>
+    private void answerDuplicate(String username, String destination, MessageResponse response) {
+        broadcastSender.sendToUser(username, destination, response);
+        log.info("User {}: Answered duplicate send {} with message {}", username, response.clientMessageId(), response.id());
+    }
 }
 /**
  * public class WebSocketController {
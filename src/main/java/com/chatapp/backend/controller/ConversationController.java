@@ -13,6 +13,8 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -28,10 +30,15 @@ public class ConversationController {
 
 
     @GetMapping("/conversations")
-    public ResponseEntity<Page<ConversationResponse>> getUserConversations(Pageable pageable) {
+    public ResponseEntity<Page<ConversationSummaryResponse>> getUserConversations(Pageable pageable) {
         return ResponseEntity.ok(conversationService.getUserConversations(pageable));
     }
 
+    @GetMapping("/unread-counts")
+    public ResponseEntity<Map<Long, Long>> getUnreadCounts() {
+        return ResponseEntity.ok(conversationService.getUnreadCounts());
+    }
+
     @GetMapping("/{conversationId}")
     public ResponseEntity<ConversationResponse> getConversation(@PathVariable Long conversationId) {
         return ResponseEntity.ok(conversationService.getConversation(conversationId));
@@ -73,12 +80,35 @@ public class ConversationController {
         return ResponseEntity.ok(conversationService.getMessages(username, conversationId, pageable));
     }
 
+    @GetMapping("/{username}/{conversationId}/messages/sync")
+    public ResponseEntity<List<MessageResponse>> getMessagesAfter(@PathVariable String username, @PathVariable Long conversationId,
+                                                                  @RequestParam(defaultValue = "0") long afterSeq,
+                                                                  @RequestParam(defaultValue = "100") int limit) {
+        log.info("Syncing messages for user: {}, conversation ID: {}, after sequence: {}", username, conversationId, afterSeq);
+        return ResponseEntity.ok(conversationService.getMessagesAfter(username, conversationId, afterSeq, limit));
+    }
+
+    @GetMapping("/{username}/{conversationId}/messages/history")
+    public ResponseEntity<MessageSliceResponse> getMessageHistory(@PathVariable String username, @PathVariable Long conversationId,
+                                                                  @RequestParam(required = false) String before,
+                                                                  @RequestParam(required = false) String after,
+                                                                  @RequestParam(defaultValue = "50") int limit) {
+        log.info("Fetching message history for user: {}, conversation ID: {}", username, conversationId);
+        return ResponseEntity.ok(conversationService.getMessageHistory(username, conversationId, before, after, limit));
+    }
+
     @PutMapping("/{username}/messages/{messageId}/status")
     public ResponseEntity<MessageDeliveryStatusResponse> changeMessageStatus(@PathVariable String username, @PathVariable Long messageId, @RequestBody MessageStatus status) {
         log.info("Changing status of message ID: {}", messageId);
         return ResponseEntity.ok(conversationService.changeMessageStatus(username, messageId, status));
     }
 
+    @GetMapping("/{username}/{conversationId}/read-states")
+    public ResponseEntity<List<ReadStateResponse>> getReadStates(@PathVariable String username, @PathVariable Long conversationId) {
+        log.info("Fetching read states for conversation ID: {}", conversationId);
+        return ResponseEntity.ok(conversationService.getReadStates(username, conversationId));
+    }
+
     @DeleteMapping("/{conversationId}")
     public ResponseEntity<?> deleteConversation(@PathVariable Long conversationId) {
         log.info("Deleting conversation with ID: {}", conversationId);
@@ -87,13 +117,13 @@ public class ConversationController {
     }
 
     @GetMapping("/private-chats")
-    public ResponseEntity<Page<PrivateConversationResponse>> getUserPrivateChats(Pageable pageable) {
+    public ResponseEntity<Page<ConversationSummaryResponse>> getUserPrivateChats(Pageable pageable) {
         log.info("Fetching private chats");
         return ResponseEntity.ok(conversationService.getUserPrivateChats( pageable));
     }
 
     @GetMapping("/group-chats")
-    public ResponseEntity<Page<GroupConversationResponse>> getUserGroupChats( Pageable pageable) {
+    public ResponseEntity<Page<ConversationSummaryResponse>> getUserGroupChats( Pageable pageable) {
         log.info("Fetching group chats");
         return ResponseEntity.ok(conversationService.getUserGroupChats( pageable));
     }
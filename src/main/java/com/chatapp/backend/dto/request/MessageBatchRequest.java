@@ -0,0 +1,16 @@
+package com.chatapp.backend.dto.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Builder;
+
+import java.util.List;
+
+@Builder
+public record MessageBatchRequest(@NotEmpty(message = "A batch must contain at least one message")
+                                  @Size(max = 100, message = "A batch cannot exceed 100 messages")
+                                  List<@Valid MessageRequest> messages
+                                  // Private and group messages, to any number of conversations; saved in list order
+) {
+}
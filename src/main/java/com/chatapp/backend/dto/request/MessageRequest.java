@@ -18,7 +18,10 @@ public record MessageRequest(@NotNull(message = "Conversation ID is required") L
                              MessageType type,
                              // Default to TEXT if not specified
 
-                             @Size(max = 100, message = "Reply thread depth cannot exceed 100") Long replyToMessageId
+                             Long replyToMessageId,
                              // Optional - for threaded replies
+
+                             @Size(max = 64, message = "Client message ID cannot exceed 64 characters") String clientMessageId
+                             // Optional - makes retries of the same send idempotent
 ) {
 }
\ No newline at end of file
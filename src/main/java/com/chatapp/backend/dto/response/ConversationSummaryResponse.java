@@ -0,0 +1,43 @@
+package com.chatapp.backend.dto.response;
+
+import com.chatapp.backend.entity.enums.ConversationType;
+import com.chatapp.backend.entity.enums.MessageType;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * One row of a conversation list: what the inbox and chat list screens show, and nothing else.
+ * {@code title} is the group name, or the contact's display name for a private conversation.
+ */
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ConversationSummaryResponse(Long conversationId,
+                                          ConversationType type,
+                                          String title,
+                                          int participantCount,
+                                          // The contact of a private conversation, the first few members of a group
+                                          List<Participant> participantPreviews,
+                                          LastMessage lastMessage,
+                                          long unreadCount,
+                                          Instant createdAt,
+                                          Instant updatedAt) {
+
+    @Builder
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record Participant(Long id, String username, String displayName) {
+    }
+
+    @Builder
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record LastMessage(Long id,
+                              Long seq,
+                              String senderUsername,
+                              String senderDisplayName,
+                              String content,
+                              MessageType type,
+                              Instant createdAt) {
+    }
+}
@@ -0,0 +1,31 @@
+package com.chatapp.backend.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+
+import java.util.List;
+
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record MessageBatchResponse(int saved,
+                                   int duplicates,
+                                   int rejected,
+                                   List<Item> results
+                                   // One per request message, in request order
+) {
+
+    public enum Status {
+        SAVED,
+        // Sent before with the same clientMessageId; message is the stored one
+        DUPLICATE,
+        // Failed validation; the rest of the batch was still saved
+        REJECTED,
+        // The batch could not be saved
+        FAILED
+    }
+
+    @Builder
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record Item(int index, Status status, String clientMessageId, MessageResponse message, Integer errorCode, String error) {
+    }
+}
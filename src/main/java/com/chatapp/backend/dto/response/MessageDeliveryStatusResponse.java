@@ -8,7 +8,7 @@ import java.time.Instant;
 
 @Builder
 @JsonInclude(JsonInclude.Include.NON_NULL)
-public record MessageDeliveryStatusResponse(Long messageDeliveryStatusId,
+public record MessageDeliveryStatusResponse(Long messageId,
                                             UserResponse recipient,
                                             MessageStatus status,
                                             Instant statusTimestamp) {
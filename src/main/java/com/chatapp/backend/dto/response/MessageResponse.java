@@ -11,6 +11,8 @@ import java.util.Set;
 @JsonInclude(JsonInclude.Include.NON_NULL)
 public record MessageResponse(Long id,
                               Long conversationId,
+                              Long seq,
+                              String clientMessageId,
                               String senderUsername,
                               String senderAvatarUrl,
                               String senderDisplayName,
@@ -19,6 +21,5 @@ public record MessageResponse(Long id,
                               MessageType type,
                               Set<ReactionResponse> reactions,
                               Instant createdAt,
-                              Instant editedAt,
-                              Set<MessageDeliveryStatusResponse> deliveryStatus) {
+                              Instant editedAt) {
 }
\ No newline at end of file
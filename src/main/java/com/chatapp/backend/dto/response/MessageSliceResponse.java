@@ -0,0 +1,18 @@
+package com.chatapp.backend.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+
+import java.util.List;
+
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record MessageSliceResponse(List<MessageResponse> messages,
+                                   // Newest first for a page before a cursor (or the latest page), oldest first after one
+
+                                   boolean hasMore,
+
+                                   String nextCursor
+                                   // Continues in the same direction; null when there is nothing more
+) {
+}
@@ -0,0 +1,15 @@
+package com.chatapp.backend.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+
+import java.time.Instant;
+
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ReadStateResponse(String username,
+                                Long deliveredSeq,
+                                Long readSeq,
+                                Instant deliveredAt,
+                                Instant readAt) {
+}
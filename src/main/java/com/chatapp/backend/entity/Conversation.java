@@ -64,9 +64,6 @@ public class Conversation {
     // Add participant count for quick access
     @Column(name = "participant_count")
     private int participantCount;
-    @OneToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "last_message_id")
-    private Message lastMessage;
     // Use @OneToOne with lazy loading and cascade
     @OneToOne(mappedBy = "conversation",
             cascade = CascadeType.ALL
@@ -0,0 +1,41 @@
+package com.chatapp.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Per-conversation activity, kept apart from {@link Conversation} so that sending a message never
+ * writes the conversation row: the latest message, when it was sent and how many messages the
+ * conversation holds. Rows are written in coalesced batches (see {@code ConversationActivityStore}),
+ * so they may trail the messages table by up to one flush interval.
+ */
+@Entity
+@Table(name = "conversation_activity",
+        indexes = {
+                @Index(name = "idx_activity_last_message_at", columnList = "last_message_at")
+        }
+)
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ConversationActivity {
+    // Same value as the conversation id; no foreign key, the row is dropped with the conversation
+    @Id
+    @Column(name = "conversation_id")
+    private Long conversationId;
+
+    @Column(name = "last_message_id")
+    private Long lastMessageId;
+    @Column(name = "last_message_seq", nullable = false)
+    @Builder.Default
+    private long lastMessageSeq = 0;
+    @Column(name = "last_message_at")
+    private Instant lastMessageAt;
+    @Column(name = "message_count", nullable = false)
+    @Builder.Default
+    private long messageCount = 0;
+}
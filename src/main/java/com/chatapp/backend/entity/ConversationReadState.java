@@ -0,0 +1,97 @@
+package com.chatapp.backend.entity;
+
+import com.chatapp.backend.entity.enums.MessageStatus;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.UpdateTimestamp;
+import org.springframework.data.annotation.CreatedDate;
+
+import java.time.Instant;
+
+/**
+ * Delivered and read watermarks of one participant in one conversation: the highest message
+ * sequence number delivered to and read by the user. The status of any message follows from
+ * comparing its {@code seq} with the watermarks; a missing row means nothing was delivered yet.
+ */
+@Entity
+@Table(name = "conversation_read_state",
+        uniqueConstraints = {
+                @UniqueConstraint(
+                        columnNames = {"conversation_id", "user_id"},
+                        name = "uk_read_state_conversation_user"
+                )
+        },
+        indexes = {
+                @Index(name = "idx_read_state_user", columnList = "user_id")
+        }
+)
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ConversationReadState {
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    private Long id;
+
+    @CreatedDate
+    @Column(name = "created_at", updatable = false, nullable = false)
+    private Instant createdAt;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "conversation_id", nullable = false)
+    private Conversation conversation;
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+    @Column(name = "delivered_seq", nullable = false)
+    @Builder.Default
+    private long deliveredSeq = 0;
+    @Column(name = "read_seq", nullable = false)
+    @Builder.Default
+    private long readSeq = 0;
+    @Column(name = "delivered_at")
+    private Instant deliveredAt;
+    @Column(name = "read_at")
+    private Instant readAt;
+
+    // Watermarks only move forward
+    public void markDeliveredUpTo(long seq) {
+        if (seq > deliveredSeq) {
+            this.deliveredSeq = seq;
+            this.deliveredAt = Instant.now();
+        }
+    }
+
+    public void markReadUpTo(long seq) {
+        markDeliveredUpTo(seq);
+        if (seq > readSeq) {
+            this.readSeq = seq;
+            this.readAt = Instant.now();
+        }
+    }
+
+    public MessageStatus statusOf(long seq) {
+        if (seq <= readSeq) {
+            return MessageStatus.READ;
+        }
+        return seq <= deliveredSeq ? MessageStatus.DELIVERED : MessageStatus.SENT;
+    }
+
+    public Instant statusTimestampOf(long seq) {
+        return switch (statusOf(seq)) {
+            case READ -> readAt;
+            case DELIVERED -> deliveredAt;
+            default -> null;
+        };
+    }
+}
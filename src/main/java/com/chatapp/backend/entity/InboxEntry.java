@@ -0,0 +1,53 @@
+package com.chatapp.backend.entity;
+
+import com.chatapp.backend.entity.enums.ConversationType;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * One conversation in one user's inbox, ordered by the conversation's last activity. Inbox pages
+ * are range reads on {@code (user_id, last_activity_at, conversation_id)} instead of joins through
+ * the participants table. Rows are added and removed with participants and moved forward with the
+ * coalesced activity flush (see {@code ConversationActivityStore}).
+ */
+@Entity
+@Table(name = "user_inbox",
+        indexes = {
+                @Index(name = "idx_inbox_user_activity", columnList = "user_id, last_activity_at, conversation_id"),
+                @Index(name = "idx_inbox_user_type_activity", columnList = "user_id, conversation_type, last_activity_at, conversation_id"),
+                @Index(name = "idx_inbox_conversation", columnList = "conversation_id")
+        }
+)
+@IdClass(InboxEntry.Key.class)
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class InboxEntry {
+    // No foreign keys, like conversation_activity: rows are deleted with the conversation or membership
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+    @Id
+    @Column(name = "conversation_id")
+    private Long conversationId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "conversation_type", nullable = false, length = 20)
+    private ConversationType conversationType;
+    // Last message time, or when the conversation was created or joined
+    @Column(name = "last_activity_at", nullable = false)
+    private Instant lastActivityAt;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long userId;
+        private Long conversationId;
+    }
+}
@@ -2,6 +2,7 @@ package com.chatapp.backend.entity;
 
 import com.chatapp.backend.entity.enums.MediaType;
 import com.chatapp.backend.entity.enums.MediaUploadStatus;
+import com.chatapp.backend.entity.id.SnowflakeId;
 import jakarta.persistence.*;
 import lombok.*;
 import org.hibernate.annotations.CreationTimestamp;
@@ -24,7 +25,7 @@ import java.time.Instant;
 @Builder
 public class Media {
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @SnowflakeId
     private Long id;
 
     @CreatedDate
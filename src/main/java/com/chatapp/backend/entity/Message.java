@@ -1,7 +1,7 @@
 package com.chatapp.backend.entity;
 
-import com.chatapp.backend.entity.enums.MessageStatus;
 import com.chatapp.backend.entity.enums.MessageType;
+import com.chatapp.backend.entity.id.SnowflakeId;
 import jakarta.persistence.*;
 import lombok.*;
 import org.hibernate.annotations.BatchSize;
@@ -11,12 +11,22 @@ import org.springframework.data.annotation.CreatedDate;
 import java.time.Instant;
 import java.util.HashSet;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 @Entity
 @Table(name = "messages",
+        uniqueConstraints = {
+                @UniqueConstraint(
+                        columnNames = {"conversation_id", "seq"},
+                        name = "uk_message_conversation_seq"
+                ),
+                @UniqueConstraint(
+                        columnNames = {"sender_id", "client_message_id"},
+                        name = "uk_message_sender_client_id"
+                )
+        },
         indexes = {
-                @Index(name = "idx_message_conversation", columnList = "conversation_id, created_at"),
+                @Index(name = "idx_message_conversation_created", columnList = "conversation_id, created_at, id"),
+                @Index(name = "idx_message_conversation_id", columnList = "conversation_id, id"),
                 @Index(name = "idx_message_sender", columnList = "sender_id")
         }
 )
@@ -27,7 +37,7 @@ import java.util.stream.Collectors;
 @Builder
 public class Message {
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @SnowflakeId
     private Long id;
 
     @CreatedDate
@@ -48,9 +58,15 @@ public class Message {
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "conversation_id", nullable = false)
     private Conversation conversation;
+    // Dense per-conversation order, assigned at ingestion (MessageSequencer)
+    @Column(name = "seq", updatable = false)
+    private Long seq;
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "sender_id", nullable = false)
     private User sender;
+    // Idempotency key chosen by the sending client, unique per sender
+    @Column(name = "client_message_id", length = 64, updatable = false)
+    private String clientMessageId;
     @Column(length = 4000)
     private String content;
     @Column(name = "edited_at")
@@ -63,10 +79,6 @@ public class Message {
     @Column(name = "message_type", nullable = false, length = 20)
     private MessageType type;
     @OneToMany(mappedBy = "message", cascade = CascadeType.ALL)
-    @BatchSize(size = 50)
-    @Builder.Default
-    private Set<MessageDeliveryStatus> deliveryStatuses = new HashSet<>();
-    @OneToMany(mappedBy = "message", cascade = CascadeType.ALL)
     @BatchSize(size = 30)
     @Builder.Default
     private Set<Reaction> reactions = new HashSet<>();
@@ -103,39 +115,4 @@ public class Message {
         this.content = newContent;
         this.editedAt = Instant.now();
     }
-
-
-    public void initializeDeliveryStatus(Set<User> recipients) {
-        recipients.forEach(recipient -> {
-            if (!this.sender.equals(recipient)) {
-                MessageDeliveryStatus status = MessageDeliveryStatus.builder()
-                                                                    .message(this)
-                                                                    .recipient(recipient)
-                                                                    .status(MessageStatus.SENT)
-                                                                    .build();
-                this.deliveryStatuses.add(status);
-            }
-        });
-    }
-
-    // Get count of recipients who have read the message
-    public long getReadCount() {
-        return deliveryStatuses.stream()
-                               .filter(status -> status.getStatus() == MessageStatus.READ)
-                               .count();
-    }
-
-    // Get recipients who haven't read the message yet
-    public Set<User> getUnreadRecipients() {
-        return deliveryStatuses.stream()
-                               .filter(status -> status.getStatus() != MessageStatus.READ)
-                               .map(MessageDeliveryStatus::getRecipient)
-                               .collect(Collectors.toSet());
-    }
-
-    // Check if all recipients have read the message
-    public boolean isReadByAll() {
-        return deliveryStatuses.stream()
-                               .allMatch(status -> status.getStatus() == MessageStatus.READ);
-    }
 }
\ No newline at end of file
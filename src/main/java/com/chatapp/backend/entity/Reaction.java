@@ -1,6 +1,7 @@
 package com.chatapp.backend.entity;
 
 import com.chatapp.backend.entity.enums.ReactionType;
+import com.chatapp.backend.entity.id.SnowflakeId;
 import jakarta.persistence.*;
 import lombok.*;
 import org.hibernate.annotations.UpdateTimestamp;
@@ -20,7 +21,7 @@ import java.time.Instant;
 @Builder
 public class Reaction {
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @SnowflakeId
     private Long id;
 
     @CreatedDate
@@ -60,6 +60,9 @@ public class User implements UserDetails, Principal {
     private UserStatus status = UserStatus.OFFLINE;
     @Column(name = "last_seen_at")
     private Instant lastSeenAt;
+    // Set on logout; access tokens issued before it are rejected in stateless-principal mode
+    @Column(name = "tokens_valid_after")
+    private Instant tokensValidAfter;
     @OneToMany(mappedBy = "sender")
     @BatchSize(size = 20)
     @Builder.Default
@@ -68,6 +71,15 @@ public class User implements UserDetails, Principal {
     @BatchSize(size = 20)
     @Builder.Default
     private Set<Conversation> conversations = new HashSet<>();
+    /**
+     * Set on principals built from token claims without a database read; only id, username and
+     * authorities are populated. Use {@code FindOrThrowHelper.findManagedUserOrThrow} before persisting
+     * or mapping such a user.
+     */
+    @Transient
+    @Builder.Default
+    private boolean claimsOnly = false;
+
     @Embedded
     @AttributeOverrides({@AttributeOverride(name = "theme", column = @Column(name = "ui_theme")), @AttributeOverride(name = "notificationEnabled", column = @Column(name = "notifications_enabled"))})
     @Builder.Default
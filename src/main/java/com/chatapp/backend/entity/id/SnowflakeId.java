@@ -0,0 +1,18 @@
+package com.chatapp.backend.entity.id;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Assigns a {@link SnowflakeIds} id in memory before insert, so inserts need no database round trip
+ * for their key and can be batched.
+ */
+@IdGeneratorType(SnowflakeIdGenerator.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface SnowflakeId {
+}
@@ -0,0 +1,60 @@
+package com.chatapp.backend.entity.id;
+
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.config.spi.StandardConverters;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.AnnotationBasedGenerator;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.hibernate.generator.EventTypeSets;
+import org.hibernate.generator.GeneratorCreationContext;
+
+import java.lang.reflect.Member;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hibernate generator behind {@link SnowflakeId}. The node id comes from the
+ * {@value #NODE_ID_SETTING} setting ({@code spring.jpa.properties}); all entities share one
+ * {@link SnowflakeIds} per node, so ids are unique across tables too. Ids already assigned from
+ * {@link #forNode} before the insert are kept.
+ */
+public class SnowflakeIdGenerator implements BeforeExecutionGenerator, AnnotationBasedGenerator<SnowflakeId> {
+
+    public static final String NODE_ID_SETTING = "chatapp.id.node-id";
+
+    private static final Map<Integer, SnowflakeIds> NODES = new ConcurrentHashMap<>();
+
+    private SnowflakeIds ids;
+
+    @Override
+    public void initialize(SnowflakeId annotation, Member member, GeneratorCreationContext context) {
+        int nodeId = context.getServiceRegistry()
+                            .requireService(ConfigurationService.class)
+                            .getSetting(NODE_ID_SETTING, StandardConverters.INTEGER, 0);
+        this.ids = forNode(nodeId);
+    }
+
+    /**
+     * The generator shared with the entities, for code that needs an id before the entity is saved.
+     */
+    public static SnowflakeIds forNode(int nodeId) {
+        return NODES.computeIfAbsent(nodeId, SnowflakeIds::new);
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object owner, Object currentValue, EventType eventType) {
+        return currentValue != null ? currentValue : ids.nextId();
+    }
+
+    @Override
+    public boolean allowAssignedIdentifiers() {
+        return true;
+    }
+
+    @Override
+    public EnumSet<EventType> getEventTypes() {
+        return EventTypeSets.INSERT_ONLY;
+    }
+}
@@ -0,0 +1,67 @@
+package com.chatapp.backend.entity.id;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Time-sortable ids generated in memory: milliseconds since {@link #EPOCH} (41 bits), node id
+ * ({@value #NODE_BITS} bits) and a per-millisecond sequence ({@value #SEQUENCE_BITS} bits).
+ * <p>
+ * Ids fit in 53 bits so JSON clients can read them as exact numbers. When a millisecond's sequence
+ * runs out, or the clock moves backwards, ids continue from the last issued timestamp, so ids from
+ * one node always increase.
+ */
+public final class SnowflakeIds {
+
+    public static final Instant EPOCH = Instant.parse("2024-01-01T00:00:00Z");
+    public static final int NODE_BITS = 4;
+    public static final int SEQUENCE_BITS = 8;
+    public static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final long EPOCH_MILLIS = EPOCH.toEpochMilli();
+
+    private final long nodeBits;
+    // Last issued timestamp and sequence, packed as (timestamp << SEQUENCE_BITS) | sequence
+    private final AtomicLong last = new AtomicLong();
+
+    public SnowflakeIds(int nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node id must be between 0 and " + MAX_NODE_ID + ": " + nodeId);
+        }
+        this.nodeBits = (long) nodeId << SEQUENCE_BITS;
+    }
+
+    public long nextId() {
+        while (true) {
+            long previous = last.get();
+            long now = System.currentTimeMillis() - EPOCH_MILLIS;
+            long next;
+            if (now > previous >>> SEQUENCE_BITS) {
+                next = now << SEQUENCE_BITS;
+            } else if ((previous & SEQUENCE_MASK) < SEQUENCE_MASK) {
+                next = previous + 1;
+            } else {
+                // Sequence exhausted: borrow the next millisecond
+                next = ((previous >>> SEQUENCE_BITS) + 1) << SEQUENCE_BITS;
+            }
+            if (last.compareAndSet(previous, next)) {
+                return (next >>> SEQUENCE_BITS) << (NODE_BITS + SEQUENCE_BITS) | nodeBits | (next & SEQUENCE_MASK);
+            }
+        }
+    }
+
+    /**
+     * The creation time encoded in an id, e.g. to turn an id cursor into a timestamp.
+     */
+    public static Instant timestampOf(long id) {
+        return Instant.ofEpochMilli(EPOCH_MILLIS + (id >>> (NODE_BITS + SEQUENCE_BITS)));
+    }
+
+    /**
+     * The smallest id that can be issued at the given instant, e.g. to turn a timestamp into an id cursor.
+     */
+    public static long firstIdAt(Instant instant) {
+        return Math.max(0, instant.toEpochMilli() - EPOCH_MILLIS) << (NODE_BITS + SEQUENCE_BITS);
+    }
+}
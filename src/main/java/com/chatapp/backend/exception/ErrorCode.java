@@ -85,7 +85,8 @@ public enum ErrorCode {
     //Message Errors
     MESSAGE_NOT_FOUND(12001, HttpStatus.NOT_FOUND, "Message not found"),
     INVALID_STATUS_TRANSITION(12002, HttpStatus.BAD_REQUEST, "Invalid message status transition"),
-    CONVERSATION_DELETION_FAILED(12003, HttpStatus.BAD_REQUEST, "Failed to delete conversation");
+    CONVERSATION_DELETION_FAILED(12003, HttpStatus.BAD_REQUEST, "Failed to delete conversation"),
+    MESSAGE_INGESTION_OVERLOADED(12004, HttpStatus.SERVICE_UNAVAILABLE, "Too many messages waiting to be saved");
 
     private final int code;
     private final HttpStatus httpStatus;
@@ -0,0 +1,29 @@
+package com.chatapp.backend.repository;
+
+import com.chatapp.backend.entity.ConversationActivity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+
+@Repository
+public interface ConversationActivityRepository extends JpaRepository<ConversationActivity, Long> {
+
+    // Applies a coalesced batch of messages in place, so concurrent writers add up instead of overwriting
+    // each other; the last message only moves forward. Returns 0 when the conversation has no row yet.
+    @Modifying
+    @Query("UPDATE ConversationActivity a SET " +
+            "a.messageCount = a.messageCount + :count, " +
+            "a.lastMessageId = CASE WHEN :seq > a.lastMessageSeq THEN :messageId ELSE a.lastMessageId END, " +
+            "a.lastMessageAt = CASE WHEN :seq > a.lastMessageSeq THEN :messageAt ELSE a.lastMessageAt END, " +
+            "a.lastMessageSeq = CASE WHEN :seq > a.lastMessageSeq THEN :seq ELSE a.lastMessageSeq END " +
+            "WHERE a.conversationId = :conversationId")
+    int addMessages(@Param("conversationId") Long conversationId,
+                    @Param("count") long count,
+                    @Param("messageId") Long messageId,
+                    @Param("seq") long seq,
+                    @Param("messageAt") Instant messageAt);
+}
@@ -0,0 +1,41 @@
+package com.chatapp.backend.repository;
+
+import com.chatapp.backend.entity.ConversationReadState;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ConversationReadStateRepository extends JpaRepository<ConversationReadState, Long> {
+
+    Optional<ConversationReadState> findByConversationIdAndUserId(Long conversationId, Long userId);
+
+    // Watermarks of every participant that has received something in the conversation
+    @Query("SELECT rs FROM ConversationReadState rs " +
+            "JOIN FETCH rs.user " +
+            "WHERE rs.conversation.id = :conversationId")
+    List<ConversationReadState> findByConversationId(@Param("conversationId") Long conversationId);
+
+    // Count unread messages per conversation for a user: messages from others above the read watermark
+    @Query("SELECT c.id as conversationId, COUNT(m) as unreadCount " +
+            "FROM Conversation c " +
+            "JOIN c.participants p " +
+            "JOIN Message m ON m.conversation = c " +
+            "LEFT JOIN ConversationReadState rs ON rs.conversation = c AND rs.user = p " +
+            "WHERE p.id = :userId " +
+            "AND m.sender <> p " +
+            "AND m.seq > COALESCE(rs.readSeq, 0) " +
+            "GROUP BY c.id")
+    List<UnreadMessageCount> countUnreadMessagesPerConversation(@Param("userId") Long userId);
+
+    // Interface to handle the unread count projection
+    interface UnreadMessageCount {
+        Long getConversationId();
+
+        Long getUnreadCount();
+    }
+}
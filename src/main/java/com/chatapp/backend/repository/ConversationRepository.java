@@ -1,17 +1,18 @@
 package com.chatapp.backend.repository;
 
 import com.chatapp.backend.entity.Conversation;
-import com.chatapp.backend.entity.Message;
 import com.chatapp.backend.entity.User;
+import com.chatapp.backend.entity.enums.ConversationType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 
@@ -29,39 +30,13 @@ public interface ConversationRepository extends JpaRepository<Conversation, Long
             @Param("username1") String username1,
             @Param("username2") String username2);
 
-    // Find all private conversations for a user with latest message
-    @Query("SELECT DISTINCT c FROM Conversation c " +
-            "LEFT JOIN FETCH c.lastMessage " +
-            "JOIN c.participants p " +
-            "WHERE c.type = 'PRIVATE' " +
-            "AND p.username = :username " +
-            "ORDER BY c.lastMessage.createdAt DESC")
-    Page<Conversation> findPrivateConversationsByUserUsername(
-            @Param("username") String username,
-            Pageable pageable);
-
-    // Find all group conversations for a user with group settings
-    @Query("SELECT DISTINCT c FROM Conversation c " +
-            "LEFT JOIN FETCH c.groupSettings gs " +
-            "LEFT JOIN FETCH c.lastMessage " +
-            "JOIN c.participants p " +
-            "WHERE c.type = 'GROUP' " +
-            "AND p.username = :username " +
-            "ORDER BY c.lastMessage.createdAt DESC")
-    Page<Conversation> findGroupConversationsByParticipantUsername(
-            @Param("username") String username,
-            Pageable pageable);
-
-    // Find all conversations (both private and group) for a user
-    @Query("SELECT DISTINCT c FROM Conversation c " +
-            "LEFT JOIN FETCH c.lastMessage " +
-            "LEFT JOIN FETCH c.groupSettings gs " +
-            "JOIN c.participants p " +
-            "WHERE p.username = :username " +
-            "ORDER BY c.lastMessage.createdAt DESC")
-    Page<Conversation> findConversationsByParticipantUsername(
-            @Param("username") String username,
-            Pageable pageable);
+    // Columns of an inbox page (see InboxEntryRepository) for the conversation lists; no entities are loaded
+    @Query("SELECT c.id AS id, c.type AS type, gs.name AS groupName, c.participantCount AS participantCount, " +
+            "c.createdAt AS createdAt, c.updatedAt AS updatedAt " +
+            "FROM Conversation c " +
+            "LEFT JOIN c.groupSettings gs " +
+            "WHERE c.id IN :ids")
+    List<ConversationSummary> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
 
     // Find public group conversations
     @Query("SELECT DISTINCT c FROM Conversation c " +
@@ -84,14 +59,35 @@ public interface ConversationRepository extends JpaRepository<Conversation, Long
     // Count active conversations for a user
     @Query("SELECT COUNT(c) FROM Conversation c " +
             "JOIN c.participants p " +
+            "JOIN ConversationActivity a ON a.conversationId = c.id " +
             "WHERE p.username = :username " +
-            "AND c.lastMessage.createdAt > :since")
+            "AND a.lastMessageAt > :since")
     long countActiveConversations(
             @Param("username") String username,
             @Param("since") Instant since);
 
+    // Membership lookups by id only, without loading User entities (see ConversationMembershipIndex)
+    @Query("SELECT c.type FROM Conversation c WHERE c.id = ?1")
+    Optional<ConversationType> findTypeById(Long conversationId);
+
+    @Query("SELECT p.id FROM Conversation c JOIN c.participants p WHERE c.id = ?1")
+    List<Long> findParticipantIds(Long conversationId);
+
+    @Query("SELECT a.id FROM GroupSettings gs JOIN gs.admins a WHERE gs.conversation.id = ?1")
+    List<Long> findAdminIds(Long conversationId);
+
+    // Projections for the conversation lists
+    interface ConversationSummary {
+        Long getId();
+
+        ConversationType getType();
+
+        String getGroupName();
+
+        int getParticipantCount();
+
+        Instant getCreatedAt();
 
-    @Modifying
-    @Query("UPDATE Conversation c SET c.lastMessage = ?2 WHERE c.id = ?1")
-    void updateLastMessage(Long conversationId, Message message);
-}
\ No newline at end of file
+        Instant getUpdatedAt();
+    }
+}
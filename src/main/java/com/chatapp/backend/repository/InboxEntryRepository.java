@@ -0,0 +1,49 @@
+package com.chatapp.backend.repository;
+
+import com.chatapp.backend.entity.InboxEntry;
+import com.chatapp.backend.entity.enums.ConversationType;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+
+@Repository
+public interface InboxEntryRepository extends JpaRepository<InboxEntry, InboxEntry.Key> {
+
+    // Inbox pages, most recently active first; the counts are index-only
+    @Query(value = "SELECT e.conversationId FROM InboxEntry e " +
+            "WHERE e.userId = :userId " +
+            "ORDER BY e.lastActivityAt DESC, e.conversationId DESC",
+            countQuery = "SELECT COUNT(e) FROM InboxEntry e WHERE e.userId = :userId")
+    Page<Long> findConversationIds(@Param("userId") Long userId, Pageable pageable);
+
+    @Query(value = "SELECT e.conversationId FROM InboxEntry e " +
+            "WHERE e.userId = :userId AND e.conversationType = :type " +
+            "ORDER BY e.lastActivityAt DESC, e.conversationId DESC",
+            countQuery = "SELECT COUNT(e) FROM InboxEntry e WHERE e.userId = :userId AND e.conversationType = :type")
+    Page<Long> findConversationIdsByType(@Param("userId") Long userId, @Param("type") ConversationType type, Pageable pageable);
+
+    // Moves the conversation forward in every member's inbox; never backwards
+    @Modifying
+    @Query("UPDATE InboxEntry e SET e.lastActivityAt = :activityAt " +
+            "WHERE e.conversationId = :conversationId AND e.lastActivityAt < :activityAt")
+    int touch(@Param("conversationId") Long conversationId, @Param("activityAt") Instant activityAt);
+
+    @Modifying
+    @Query("DELETE FROM InboxEntry e WHERE e.conversationId = :conversationId")
+    int deleteByConversationId(@Param("conversationId") Long conversationId);
+
+    // Creates the rows missing for existing memberships, e.g. for data from before the inbox table
+    @Modifying
+    @Query("INSERT INTO InboxEntry (userId, conversationId, conversationType, lastActivityAt) " +
+            "SELECT p.id, c.id, c.type, COALESCE(a.lastMessageAt, c.createdAt) FROM Conversation c " +
+            "JOIN c.participants p " +
+            "LEFT JOIN ConversationActivity a ON a.conversationId = c.id " +
+            "WHERE NOT EXISTS (SELECT 1 FROM InboxEntry e WHERE e.userId = p.id AND e.conversationId = c.id)")
+    int addMissingEntries();
+}
@@ -10,28 +10,62 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface MessageRepository extends JpaRepository<Message, Long> {
 
-    // Find messages in a conversation with efficient loading of related entities
-    @Query("SELECT DISTINCT m FROM Message m " +
-            "LEFT JOIN FETCH m.sender s " +
-            "LEFT JOIN FETCH m.mediaItems " +
-            "LEFT JOIN FETCH m.reactions " +
+    // Keyset history on (conversation_id, created_at, id): no offset and no count query, so a page deep
+    // in the history costs the same as the first one. Collections are fetched separately, see below.
+    @Query("SELECT m FROM Message m " +
+            "JOIN FETCH m.sender " +
+            "WHERE m.conversation.id = :conversationId " +
+            "ORDER BY m.createdAt DESC, m.id DESC")
+    List<Message> findLatestPage(
+            @Param("conversationId") Long conversationId,
+            Pageable pageable);
+
+    @Query("SELECT m FROM Message m " +
+            "JOIN FETCH m.sender " +
             "WHERE m.conversation.id = :conversationId " +
-            "ORDER BY m.createdAt DESC")
-    Page<Message> findByConversationId(
+            "AND (m.createdAt < :createdAt OR (m.createdAt = :createdAt AND m.id < :id)) " +
+            "ORDER BY m.createdAt DESC, m.id DESC")
+    List<Message> findPageBefore(
             @Param("conversationId") Long conversationId,
+            @Param("createdAt") Instant createdAt,
+            @Param("id") Long id,
             Pageable pageable);
 
+    @Query("SELECT m FROM Message m " +
+            "JOIN FETCH m.sender " +
+            "WHERE m.conversation.id = :conversationId " +
+            "AND (m.createdAt > :createdAt OR (m.createdAt = :createdAt AND m.id > :id)) " +
+            "ORDER BY m.createdAt ASC, m.id ASC")
+    List<Message> findPageAfter(
+            @Param("conversationId") Long conversationId,
+            @Param("createdAt") Instant createdAt,
+            @Param("id") Long id,
+            Pageable pageable);
+
+    // Initialize the collections of messages already loaded in this transaction, one query per collection
+    @Query("SELECT DISTINCT m FROM Message m " +
+            "LEFT JOIN FETCH m.mediaItems " +
+            "WHERE m IN :messages")
+    List<Message> fetchMediaItems(@Param("messages") Collection<Message> messages);
+
+    @Query("SELECT DISTINCT m FROM Message m " +
+            "LEFT JOIN FETCH m.reactions r " +
+            "LEFT JOIN FETCH r.user " +
+            "WHERE m IN :messages")
+    List<Message> fetchReactions(@Param("messages") Collection<Message> messages);
+
     // Get the latest message for a conversation with sender details
     @Query("SELECT m FROM Message m " +
             "LEFT JOIN FETCH m.sender " +
             "WHERE m.conversation.id = :conversationId " +
-            "ORDER BY m.createdAt DESC " +
+            "ORDER BY m.id DESC " +
             "LIMIT 1")
     Optional<Message> findLatestMessageByConversationId(
             @Param("conversationId") Long conversationId);
@@ -42,7 +76,7 @@ public interface MessageRepository extends JpaRepository<Message, Long> {
             "LEFT JOIN FETCH m.reactions " +
             "WHERE m.conversation.id = :conversationId " +
             "AND m.sender.username = :username " +
-            "ORDER BY m.createdAt DESC")
+            "ORDER BY m.id DESC")
     Page<Message> findByConversationIdAndSenderUsername(
             @Param("conversationId") Long conversationId,
             @Param("username") String username,
@@ -53,7 +87,7 @@ public interface MessageRepository extends JpaRepository<Message, Long> {
             "LEFT JOIN FETCH m.sender " +
             "WHERE m.conversation.id = :conversationId " +
             "AND LOWER(m.content) LIKE LOWER(CONCAT('%', :searchText, '%')) " +
-            "ORDER BY m.createdAt DESC")
+            "ORDER BY m.id DESC")
     Page<Message> searchMessagesInConversation(
             @Param("conversationId") Long conversationId,
             @Param("searchText") String searchText,
@@ -64,7 +98,7 @@ public interface MessageRepository extends JpaRepository<Message, Long> {
             "LEFT JOIN FETCH m.sender " +
             "WHERE m.conversation.id = :conversationId " +
             "AND m.createdAt BETWEEN :startDate AND :endDate " +
-            "ORDER BY m.createdAt DESC")
+            "ORDER BY m.id DESC")
     Page<Message> findMessagesByDateRange(
             @Param("conversationId") Long conversationId,
             @Param("startDate") Instant startDate,
@@ -83,7 +117,7 @@ public interface MessageRepository extends JpaRepository<Message, Long> {
             "LEFT JOIN FETCH m.sender " +
             "WHERE m.conversation.id = :conversationId " +
             "AND m.type = 'MEDIA' " +
-            "ORDER BY m.createdAt DESC")
+            "ORDER BY m.id DESC")
     Page<Message> findMessagesWithMedia(
             @Param("conversationId") Long conversationId,
             Pageable pageable);
@@ -103,6 +137,41 @@ public interface MessageRepository extends JpaRepository<Message, Long> {
             "WHERE m.conversation.id = ?1 AND m.createdAt < ?2 ORDER BY m.createdAt DESC")
     List<Message> findMessageHistory(Long conversationId, Instant before, Pageable pageable);
 
+    // Sequence-based catch-up, a range scan on (conversation_id, seq)
+    @Query("SELECT m FROM Message m " +
+            "LEFT JOIN FETCH m.sender " +
+            "WHERE m.conversation.id = ?1 AND m.seq > ?2 ORDER BY m.seq ASC")
+    List<Message> findMessagesAfterSeq(Long conversationId, Long afterSeq, Pageable pageable);
+
+    @Query("SELECT m FROM Message m " +
+            "LEFT JOIN FETCH m.sender " +
+            "WHERE m.sender.id = :senderId AND m.clientMessageId = :clientMessageId")
+    Optional<Message> findBySenderIdAndClientMessageId(
+            @Param("senderId") Long senderId,
+            @Param("clientMessageId") String clientMessageId);
+
+    @Query("SELECT m FROM Message m " +
+            "LEFT JOIN FETCH m.sender " +
+            "WHERE m.sender.id = :senderId AND m.clientMessageId IN :clientMessageIds")
+    List<Message> findAllBySenderIdAndClientMessageIdIn(
+            @Param("senderId") Long senderId,
+            @Param("clientMessageIds") Collection<String> clientMessageIds);
+
+    @Query("SELECT m.id FROM Message m WHERE m.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT m FROM Message m " +
+            "LEFT JOIN FETCH m.sender " +
+            "WHERE m.id IN :ids")
+    List<Message> findAllWithSenderByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT COALESCE(MAX(m.seq), 0) FROM Message m WHERE m.conversation.id = ?1")
+    long findMaxSeq(Long conversationId);
+
     @Query("SELECT COUNT(m) FROM Message m WHERE m.conversation.id = ?1 AND m.createdAt > ?2")
     long countUnreadMessages(Long conversationId, Instant since);
+
+    // Unread messages of a user above its read watermark, a range scan on (conversation_id, seq)
+    @Query("SELECT COUNT(m) FROM Message m WHERE m.conversation.id = ?1 AND m.seq > ?2 AND m.sender.id <> ?3")
+    long countMessagesAfterSeqNotSentBy(Long conversationId, Long afterSeq, Long userId);
 }
\ No newline at end of file
@@ -11,6 +11,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -52,6 +53,17 @@ public interface UserRepository extends JpaRepository<User, Long> {
             @Param("userId") Long userId,
             @Param("token") String token);
 
+    // Logout: clears the refresh token and rejects older access tokens; updatedAt lets other instances pick it up
+    @Modifying
+    @Query("UPDATE User u SET " +
+            "u.refreshToken = null, " +
+            "u.tokensValidAfter = :loggedOutAt, " +
+            "u.updatedAt = :loggedOutAt " +
+            "WHERE u.id = :userId")
+    void revokeTokens(
+            @Param("userId") Long userId,
+            @Param("loggedOutAt") Instant loggedOutAt);
+
     // Find users by status
     @Query("SELECT u FROM User u " +
             "WHERE u.status = :status " +
@@ -110,6 +122,25 @@ public interface UserRepository extends JpaRepository<User, Long> {
             "AND u.isActive = true")
     long countOnlineUsers();
 
+    // Access state of users whose tokens must be rejected: disabled, deleted or logged out since the given time
+    @Query("SELECT u.id AS id, u.isActive AS active, u.deleted AS deleted, u.tokensValidAfter AS tokensValidAfter, " +
+            "u.updatedAt AS updatedAt FROM User u " +
+            "WHERE u.deleted = true " +
+            "OR u.isActive = false " +
+            "OR u.tokensValidAfter >= :loggedOutSince")
+    List<UserAccessState> findRevokedAccessStates(@Param("loggedOutSince") Instant loggedOutSince);
+
+    // Access state of users changed at or after the given time
+    @Query("SELECT u.id AS id, u.isActive AS active, u.deleted AS deleted, u.tokensValidAfter AS tokensValidAfter, " +
+            "u.updatedAt AS updatedAt FROM User u " +
+            "WHERE u.updatedAt >= :since " +
+            "ORDER BY u.updatedAt")
+    List<UserAccessState> findAccessStatesUpdatedSince(@Param("since") Instant since);
+
+    // Names only, for conversation list previews
+    @Query("SELECT u.id AS id, u.username AS username, u.displayName AS displayName FROM User u WHERE u.id IN :ids")
+    List<UserPreview> findPreviewsByIdIn(@Param("ids") Collection<Long> ids);
+
     // Update email verification status
     @Modifying
     @Query("UPDATE User u SET " +
@@ -118,4 +149,24 @@ public interface UserRepository extends JpaRepository<User, Long> {
     void updateEmailVerificationStatus(
             @Param("userId") Long userId,
             @Param("verified") boolean verified);
-}
\ No newline at end of file
+
+    interface UserPreview {
+        Long getId();
+
+        String getUsername();
+
+        String getDisplayName();
+    }
+
+    interface UserAccessState {
+        Long getId();
+
+        boolean isActive();
+
+        boolean isDeleted();
+
+        Instant getTokensValidAfter();
+
+        Instant getUpdatedAt();
+    }
+}
@@ -5,11 +5,15 @@ import com.chatapp.backend.dto.request.GroupRequest;
 import com.chatapp.backend.dto.request.GroupSettingsRequest;
 import com.chatapp.backend.dto.request.MessageRequest;
 import com.chatapp.backend.dto.response.*;
+import com.chatapp.backend.entity.User;
 import com.chatapp.backend.entity.enums.MessageStatus;
 import jakarta.validation.Valid;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 
@@ -27,19 +31,39 @@ public interface ConversationService {
 
     Page<MessageResponse> getMessages(String username, Long conversationId, Pageable pageable);
 
+    List<MessageResponse> getMessagesAfter(String username, Long conversationId, long afterSeq, int limit);
+
+    // Cursor paging: at most one of before and after; neither returns the latest messages
+    MessageSliceResponse getMessageHistory(String username, Long conversationId, String before, String after, int limit);
+
     MessageDeliveryStatusResponse changeMessageStatus(String username, Long messageId, MessageStatus status);
 
+    List<ReadStateResponse> getReadStates(String username, Long conversationId);
+
     void deleteConversation(Long conversationId);
 
-    Page<PrivateConversationResponse> getUserPrivateChats(  Pageable pageable);
+    Page<ConversationSummaryResponse> getUserPrivateChats(Pageable pageable);
 
-    Page<GroupConversationResponse> getUserGroupChats( Pageable pageable);
+    Page<ConversationSummaryResponse> getUserGroupChats(Pageable pageable);
 
     CompletableFuture<MessageResponse> processPrivateMessage(MessageRequest messageRequest);
 
     CompletableFuture<MessageResponse> processGroupMessage(Long conversationId, MessageRequest messageRequest);
 
-    Page<ConversationResponse> getUserConversations(Pageable pageable);
+    // Synchronous variants for callers that schedule the work themselves; the sender is passed in
+    MessageResponse savePrivateMessage(User sender, MessageRequest messageRequest);
+
+    MessageResponse saveGroupMessage(User sender, Long conversationId, MessageRequest messageRequest);
+
+    // Saves the batch in one transaction, for direct ingestion mode; invalid messages are reported, not saved
+    CompletableFuture<MessageBatchResponse> processMessageBatch(List<MessageRequest> messageRequests);
+
+    CompletableFuture<Optional<MessageResponse>> findMessageByClientMessageId(Long senderId, String clientMessageId);
+
+    Page<ConversationSummaryResponse> getUserConversations(Pageable pageable);
+
+    // Conversation id to unread message count, for the inbox badges; conversations with nothing unread are left out
+    Map<Long, Long> getUnreadCounts();
 
     ConversationResponse getConversation(Long conversationId);
 }
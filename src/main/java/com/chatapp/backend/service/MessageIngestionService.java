@@ -0,0 +1,22 @@
+package com.chatapp.backend.service;
+
+import com.chatapp.backend.dto.request.MessageRequest;
+import com.chatapp.backend.dto.response.MessageBatchResponse;
+import com.chatapp.backend.dto.response.MessageResponse;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Entry point for chat messages received over STOMP. Must be called on the thread that carries the
+ * sender's security context; the returned future completes once the message is committed.
+ */
+public interface MessageIngestionService {
+
+    CompletableFuture<MessageResponse> submitPrivateMessage(MessageRequest messageRequest);
+
+    CompletableFuture<MessageResponse> submitGroupMessage(Long conversationId, MessageRequest messageRequest);
+
+    // Saves the batch the way this mode saves single messages; invalid messages are reported, not saved
+    CompletableFuture<MessageBatchResponse> submitBatch(List<MessageRequest> messageRequests);
+}
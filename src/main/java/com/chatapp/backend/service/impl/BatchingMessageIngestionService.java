@@ -0,0 +1,248 @@
+package com.chatapp.backend.service.impl;
+
+import com.chatapp.backend.dto.request.MessageRequest;
+import com.chatapp.backend.dto.response.MessageBatchResponse;
+import com.chatapp.backend.dto.response.MessageResponse;
+import com.chatapp.backend.entity.Conversation;
+import com.chatapp.backend.entity.Message;
+import com.chatapp.backend.entity.User;
+import com.chatapp.backend.entity.enums.ConversationType;
+import com.chatapp.backend.exception.ApiException;
+import com.chatapp.backend.repository.ConversationRepository;
+import com.chatapp.backend.repository.MessageRepository;
+import com.chatapp.backend.repository.UserRepository;
+import com.chatapp.backend.service.MessageIngestionService;
+import com.chatapp.backend.util.ObjectMapper;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static com.chatapp.backend.entity.enums.ConversationType.GROUP;
+import static com.chatapp.backend.exception.ErrorCode.*;
+
+/**
+ * Write-behind ingestion, enabled with {@code application.messaging.ingestion.mode=batched}.
+ * <p>
+ * Messages are queued and a single writer saves them in micro-batches: it waits up to
+ * {@code batch-window-millis} after the first message, or until {@code max-batch-size} are queued,
+ * then validates and inserts the whole batch in one transaction (Hibernate JDBC batching, see
+ * {@code hibernate.jdbc.batch_size}). Futures complete after the commit. A message that fails
+ * validation fails alone; if the batch itself fails, its messages are retried one by one. With a
+ * single writer, sequence numbers are committed in order.
+ * <p>
+ * Metrics: {@code chat.ingest.batch.size}, {@code chat.ingest.batch.commit} and {@code chat.ingest.queued}.
+ */
+@Service
+@ConditionalOnProperty(name = "application.messaging.ingestion.mode", havingValue = "batched")
+@Slf4j
+public class BatchingMessageIngestionService implements MessageIngestionService {
+
+    private record PendingMessage(Long senderId, Long conversationId, ConversationType type,
+                                  MessageRequest request, CompletableFuture<MessageResponse> result) {
+    }
+
+    private final ConversationRepository conversationRepository;
+    private final UserRepository userRepository;
+    private final MessageRepository messageRepository;
+    private final ObjectMapper objectMapper;
+    private final MessageSequencer messageSequencer;
+    private final ConversationMembershipIndex membershipIndex;
+    private final MessageBatchSubmitter batchSubmitter;
+    private final TransactionTemplate transactionTemplate;
+    private final BlockingQueue<PendingMessage> queue;
+    private final int maxBatchSize;
+    private final long batchWindowNanos;
+    private final DistributionSummary batchSizes;
+    private final Timer commitTime;
+    private volatile boolean running = true;
+    private Thread writer;
+
+    public BatchingMessageIngestionService(ConversationRepository conversationRepository,
+                                           UserRepository userRepository,
+                                           MessageRepository messageRepository,
+                                           ObjectMapper objectMapper,
+                                           MessageSequencer messageSequencer,
+                                           ConversationMembershipIndex membershipIndex,
+                                           MessageBatchSubmitter batchSubmitter,
+                                           PlatformTransactionManager transactionManager,
+                                           @Value("${application.messaging.ingestion.batch-window-millis:5}") long batchWindowMillis,
+                                           @Value("${application.messaging.ingestion.max-batch-size:256}") int maxBatchSize,
+                                           @Value("${application.messaging.ingestion.queue-capacity:10000}") int queueCapacity,
+                                           MeterRegistry meterRegistry) {
+        this.conversationRepository = conversationRepository;
+        this.userRepository = userRepository;
+        this.messageRepository = messageRepository;
+        this.objectMapper = objectMapper;
+        this.messageSequencer = messageSequencer;
+        this.membershipIndex = membershipIndex;
+        this.batchSubmitter = batchSubmitter;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.maxBatchSize = maxBatchSize;
+        this.batchWindowNanos = TimeUnit.MILLISECONDS.toNanos(batchWindowMillis);
+        this.batchSizes = DistributionSummary.builder("chat.ingest.batch.size").register(meterRegistry);
+        this.commitTime = Timer.builder("chat.ingest.batch.commit").register(meterRegistry);
+        Gauge.builder("chat.ingest.queued", queue, BlockingQueue::size).register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        writer = Thread.ofPlatform().name("message-ingest").daemon().start(this::runWriter);
+        log.info("Batched message ingestion started: window {}ms, up to {} messages per batch.",
+                TimeUnit.NANOSECONDS.toMillis(batchWindowNanos), maxBatchSize);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        // The writer drains what is already queued before exiting
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    @Override
+    public CompletableFuture<MessageResponse> submitPrivateMessage(MessageRequest messageRequest) {
+        return submit(messageRequest.conversationId(), ConversationType.PRIVATE, messageRequest);
+    }
+
+    @Override
+    public CompletableFuture<MessageResponse> submitGroupMessage(Long conversationId, MessageRequest messageRequest) {
+        return submit(conversationId, GROUP, messageRequest);
+    }
+
+    @Override
+    public CompletableFuture<MessageBatchResponse> submitBatch(List<MessageRequest> messageRequests) {
+        return batchSubmitter.submitEach(messageRequests, this);
+    }
+
+    private CompletableFuture<MessageResponse> submit(Long conversationId, ConversationType type, MessageRequest request) {
+        User principal = (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        CompletableFuture<MessageResponse> result = new CompletableFuture<>();
+        if (!running || !queue.offer(new PendingMessage(principal.getId(), conversationId, type, request, result))) {
+            log.warn("Message ingestion queue full, rejecting message for conversation {}", conversationId);
+            result.completeExceptionally(new ApiException(MESSAGE_INGESTION_OVERLOADED));
+        }
+        return result;
+    }
+
+    private void runWriter() {
+        List<PendingMessage> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingMessage first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + batchWindowNanos;
+                while (batch.size() < maxBatchSize) {
+                    queue.drainTo(batch, maxBatchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= maxBatchSize || remaining <= 0) {
+                        break;
+                    }
+                    PendingMessage next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                batch.forEach(pending -> pending.result().completeExceptionally(new ApiException(INTERNAL_SERVER_ERROR, "Message ingestion stopped")));
+                return;
+            } catch (RuntimeException e) {
+                log.error("Unexpected error in message ingestion writer", e);
+                batch.forEach(pending -> pending.result().completeExceptionally(e));
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<PendingMessage> batch) {
+        batchSizes.record(batch.size());
+        List<Object> outcomes;
+        try {
+            outcomes = commitTime.record(() -> transactionTemplate.execute(status -> persist(batch)));
+        } catch (RuntimeException e) {
+            // Sequence numbers handed out to the rolled back messages are reclaimed
+            batch.stream().map(PendingMessage::conversationId).distinct().forEach(messageSequencer::reset);
+            if (batch.size() == 1) {
+                log.error("Error processing {} message", batch.get(0).type().name().toLowerCase(), e);
+                batch.get(0).result().completeExceptionally(new ApiException(INTERNAL_SERVER_ERROR, "Error processing message"));
+                return;
+            }
+            // Isolate the message that broke the batch
+            log.warn("Batch of {} messages failed, retrying individually: {}", batch.size(), e.getMessage());
+            batch.forEach(pending -> write(List.of(pending)));
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            if (outcomes.get(i) instanceof MessageResponse response) {
+                batch.get(i).result().complete(response);
+            } else {
+                batch.get(i).result().completeExceptionally((Throwable) outcomes.get(i));
+            }
+        }
+    }
+
+    /**
+     * Validates and inserts the batch, returning per message either its response or the validation error.
+     */
+    private List<Object> persist(List<PendingMessage> batch) {
+        Map<Long, User> senders = userRepository.findAllById(batch.stream().map(PendingMessage::senderId).distinct().toList())
+                                                .stream()
+                                                .collect(Collectors.toMap(User::getId, Function.identity()));
+
+        List<Object> outcomes = new ArrayList<>(batch.size());
+        List<Message> messages = new ArrayList<>(batch.size());
+        for (PendingMessage pending : batch) {
+            try {
+                ConversationMembershipIndex.Membership membership = membershipIndex.get(pending.conversationId());
+                User sender = senders.get(pending.senderId());
+                if (sender == null) {
+                    throw new ApiException(USER_NOT_FOUND, "User not found: " + pending.senderId());
+                }
+                if (pending.type() == GROUP) {
+                    ConversationServiceImpl.preSaveGroupMessage(membership, pending.conversationId(), sender.getId());
+                } else {
+                    ConversationServiceImpl.preSavePrivateMessage(membership, pending.conversationId(), sender.getId());
+                }
+                Conversation conversation = conversationRepository.getReferenceById(pending.conversationId());
+                Message message = objectMapper.mapMessageRequestToMessage(pending.request(), sender, conversation);
+                message.setSeq(messageSequencer.next(conversation.getId()));
+                messages.add(message);
+                outcomes.add(message);
+            } catch (ApiException e) {
+                outcomes.add(e);
+            }
+        }
+
+        messageRepository.saveAll(messages);
+        messageRepository.flush();
+        outcomes.replaceAll(outcome -> outcome instanceof Message message ? objectMapper.mapMessageToMessageResponse(message) : outcome);
+        log.debug("Saved batch of {} messages ({} rejected)", messages.size(), batch.size() - messages.size());
+        return outcomes;
+    }
+}
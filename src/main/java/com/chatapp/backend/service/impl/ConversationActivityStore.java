@@ -0,0 +1,271 @@
+package com.chatapp.backend.service.impl;
+
+import com.chatapp.backend.dto.response.MessageResponse;
+import com.chatapp.backend.entity.ConversationActivity;
+import com.chatapp.backend.entity.InboxEntry;
+import com.chatapp.backend.entity.Message;
+import com.chatapp.backend.repository.ConversationActivityRepository;
+import com.chatapp.backend.repository.InboxEntryRepository;
+import com.chatapp.backend.repository.MessageRepository;
+import com.chatapp.backend.util.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * Last message and message count of each conversation, served to the inbox from memory.
+ * <p>
+ * Sent messages are coalesced per conversation and written to {@link ConversationActivity} at most
+ * once every {@code flush-millis}, so a busy group costs one small row update per interval instead
+ * of one per message, and the {@code conversations} row only changes with the conversation's own
+ * metadata. The same flush moves the conversation up in its members' inboxes ({@link InboxEntry}).
+ * The cache is write-through: a recorded message is visible to the inbox immediately, before it is
+ * flushed. Conversations not in the cache are loaded from the table, plus whatever is still pending
+ * for them. A failed flush is kept and retried on the next one. Messages recorded through other
+ * instances only reach this cache from the table, so entries are reloaded after
+ * {@code max-age-seconds}.
+ * <p>
+ * Metrics: {@code chat.activity.recorded} (messages), {@code chat.activity.written} (rows) and
+ * {@code chat.activity.flush}.
+ */
+@Component
+@Slf4j
+public class ConversationActivityStore {
+
+    public record Activity(MessageResponse lastMessage, long lastMessageSeq, Instant lastMessageAt, long messageCount) {
+
+        static final Activity NONE = new Activity(null, 0, null, 0);
+
+        private Activity plus(Delta delta) {
+            boolean newer = delta.lastMessage().seq() > lastMessageSeq;
+            return new Activity(newer ? delta.lastMessage() : lastMessage,
+                    Math.max(lastMessageSeq, delta.lastMessage().seq()),
+                    newer ? delta.lastMessage().createdAt() : lastMessageAt,
+                    messageCount + delta.count());
+        }
+    }
+
+    private record Cached(Activity activity, long loadedAtNanos) {
+    }
+
+    // Messages recorded since the last flush
+    private record Delta(MessageResponse lastMessage, long count) {
+
+        private Delta plus(Delta other) {
+            return new Delta(other.lastMessage().seq() > lastMessage.seq() ? other.lastMessage() : lastMessage, count + other.count());
+        }
+    }
+
+    private final ConversationActivityRepository activityRepository;
+    private final InboxEntryRepository inboxRepository;
+    private final MessageRepository messageRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    // Guards pending and cache; flushLock keeps loads from reading the table while a flush is half-applied
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final LinkedHashMap<Long, Cached> cache;
+    private final long maxAgeNanos;
+    private Map<Long, Delta> pending = new HashMap<>();
+    private final Counter recorded;
+    private final Counter written;
+    private final Timer flushTime;
+
+    public ConversationActivityStore(ConversationActivityRepository activityRepository,
+                                     InboxEntryRepository inboxRepository,
+                                     MessageRepository messageRepository,
+                                     ObjectMapper objectMapper,
+                                     PlatformTransactionManager transactionManager,
+                                     @Value("${application.messaging.activity.cache-size:10000}") int cacheSize,
+                                     @Value("${application.messaging.activity.max-age-seconds:60}") long maxAgeSeconds,
+                                     MeterRegistry meterRegistry) {
+        this.activityRepository = activityRepository;
+        this.inboxRepository = inboxRepository;
+        this.messageRepository = messageRepository;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Cached> eldest) {
+                return size() > cacheSize;
+            }
+        };
+        this.maxAgeNanos = TimeUnit.SECONDS.toNanos(maxAgeSeconds);
+        this.recorded = Counter.builder("chat.activity.recorded").register(meterRegistry);
+        this.written = Counter.builder("chat.activity.written").register(meterRegistry);
+        this.flushTime = Timer.builder("chat.activity.flush").register(meterRegistry);
+    }
+
+    /**
+     * Records a saved (or, in journaled mode, journaled) message.
+     */
+    public void record(MessageResponse message) {
+        Delta delta = new Delta(message, 1);
+        lock.lock();
+        try {
+            pending.merge(message.conversationId(), delta, Delta::plus);
+            cache.computeIfPresent(message.conversationId(), (id, cached) -> new Cached(cached.activity().plus(delta), cached.loadedAtNanos()));
+        } finally {
+            lock.unlock();
+        }
+        recorded.increment();
+    }
+
+    public Activity get(Long conversationId) {
+        return getAll(List.of(conversationId)).get(conversationId);
+    }
+
+    /**
+     * Returns the activity of every given conversation, {@link Activity#NONE} for those without messages.
+     */
+    public Map<Long, Activity> getAll(Collection<Long> conversationIds) {
+        Map<Long, Activity> found = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        long now = System.nanoTime();
+        lock.lock();
+        try {
+            for (Long conversationId : conversationIds) {
+                Cached cached = cache.get(conversationId);
+                if (cached != null && now - cached.loadedAtNanos() <= maxAgeNanos) {
+                    found.put(conversationId, cached.activity());
+                } else {
+                    missing.add(conversationId);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (!missing.isEmpty()) {
+            found.putAll(load(missing));
+        }
+        return found;
+    }
+
+    /**
+     * Forgets a deleted conversation.
+     */
+    public void remove(Long conversationId) {
+        flushLock.lock();
+        try {
+            lock.lock();
+            try {
+                pending.remove(conversationId);
+                cache.remove(conversationId);
+            } finally {
+                lock.unlock();
+            }
+            activityRepository.deleteById(conversationId);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${application.messaging.activity.flush-millis:500}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            Map<Long, Delta> batch;
+            lock.lock();
+            try {
+                if (pending.isEmpty()) {
+                    return;
+                }
+                batch = pending;
+                pending = new HashMap<>();
+            } finally {
+                lock.unlock();
+            }
+            try {
+                flushTime.record(() -> transactionTemplate.executeWithoutResult(status -> write(batch)));
+                written.increment(batch.size());
+                log.debug("Flushed activity of {} conversations", batch.size());
+            } catch (RuntimeException e) {
+                log.warn("Saving activity of {} conversations failed, retrying on the next flush: {}", batch.size(), e.getMessage());
+                lock.lock();
+                try {
+                    batch.forEach((conversationId, delta) -> pending.merge(conversationId, delta, Delta::plus));
+                } finally {
+                    lock.unlock();
+                }
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        flush();
+    }
+
+    private void write(Map<Long, Delta> batch) {
+        batch.forEach((conversationId, delta) -> {
+            MessageResponse last = delta.lastMessage();
+            inboxRepository.touch(conversationId, last.createdAt());
+            if (activityRepository.addMessages(conversationId, delta.count(), last.id(), last.seq(), last.createdAt()) == 0) {
+                activityRepository.save(ConversationActivity.builder()
+                                                            .conversationId(conversationId)
+                                                            .lastMessageId(last.id())
+                                                            .lastMessageSeq(last.seq())
+                                                            .lastMessageAt(last.createdAt())
+                                                            .messageCount(delta.count())
+                                                            .build());
+            }
+        });
+    }
+
+    private Map<Long, Activity> load(List<Long> conversationIds) {
+        flushLock.lock();
+        try {
+            Map<Long, Activity> loaded = transactionTemplate.execute(status -> {
+                List<ConversationActivity> rows = activityRepository.findAllById(conversationIds);
+                Map<Long, MessageResponse> lastMessages = messageRepository.findAllWithSenderByIdIn(rows.stream()
+                                                                                                       .map(ConversationActivity::getLastMessageId)
+                                                                                                       .filter(Objects::nonNull)
+                                                                                                       .toList())
+                                                                           .stream()
+                                                                           .collect(Collectors.toMap(Message::getId, objectMapper::mapMessageToMessageResponse));
+                return rows.stream()
+                           .collect(Collectors.toMap(ConversationActivity::getConversationId, row -> new Activity(lastMessages.get(row.getLastMessageId()),
+                                   row.getLastMessageSeq(), row.getLastMessageAt(), row.getMessageCount())));
+            });
+            long loadedAt = System.nanoTime();
+            lock.lock();
+            try {
+                for (Long conversationId : conversationIds) {
+                    Activity activity = loaded.getOrDefault(conversationId, Activity.NONE);
+                    Delta unflushed = pending.get(conversationId);
+                    if (unflushed != null) {
+                        activity = activity.plus(unflushed);
+                    }
+                    loaded.put(conversationId, activity);
+                    cache.put(conversationId, new Cached(activity, loadedAt));
+                }
+            } finally {
+                lock.unlock();
+            }
+            return loaded;
+        } finally {
+            flushLock.unlock();
+        }
+    }
+}
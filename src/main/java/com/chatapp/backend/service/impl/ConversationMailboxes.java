@@ -0,0 +1,118 @@
+package com.chatapp.backend.service.impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs tasks one at a time per conversation, in submission order, on virtual threads.
+ * <p>
+ * Conversation ids are hashed onto {@code count} mailboxes. A mailbox is a queue plus a counter of
+ * queued tasks: the submit that moves the counter from zero starts a virtual thread, which drains
+ * the mailbox until the counter is back at zero. No locks are taken, tasks of one conversation
+ * never overlap, and different conversations run in parallel unless they share a mailbox.
+ * <p>
+ * Metrics: {@code chat.mailbox.queued}, {@code chat.mailbox.busy}, {@code chat.mailbox.depth}
+ * (mailbox depth seen by each submit), {@code chat.mailbox.wait} and {@code chat.mailbox.hot}
+ * (submits finding {@code hot-depth} tasks ahead of them; the conversation is logged).
+ */
+@Component
+@Slf4j
+class ConversationMailboxes {
+
+    private final Mailbox[] mailboxes;
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("conversation-mailbox-", 0).factory());
+    private final int hotDepth;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger busy = new AtomicInteger();
+    private final DistributionSummary depths;
+    private final Timer waitTime;
+    private final Counter hot;
+
+    ConversationMailboxes(@Value("${application.messaging.mailbox.count:1024}") int count,
+                          @Value("${application.messaging.mailbox.hot-depth:64}") int hotDepth,
+                          MeterRegistry meterRegistry) {
+        this.mailboxes = new Mailbox[count];
+        for (int i = 0; i < count; i++) {
+            mailboxes[i] = new Mailbox();
+        }
+        this.hotDepth = hotDepth;
+        this.depths = DistributionSummary.builder("chat.mailbox.depth").register(meterRegistry);
+        this.waitTime = Timer.builder("chat.mailbox.wait").publishPercentiles(0.5, 0.99).register(meterRegistry);
+        this.hot = Counter.builder("chat.mailbox.hot").register(meterRegistry);
+        Gauge.builder("chat.mailbox.queued", queued, AtomicInteger::get).register(meterRegistry);
+        Gauge.builder("chat.mailbox.busy", busy, AtomicInteger::get).register(meterRegistry);
+    }
+
+    @PreDestroy
+    void stop() {
+        // Lets queued tasks finish
+        executor.close();
+    }
+
+    <T> CompletableFuture<T> submit(Long conversationId, Supplier<T> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        long submitted = System.nanoTime();
+        Mailbox mailbox = mailboxes[Math.floorMod(Long.hashCode(conversationId), mailboxes.length)];
+        int ahead = mailbox.enqueue(() -> {
+            waitTime.record(System.nanoTime() - submitted, TimeUnit.NANOSECONDS);
+            try {
+                result.complete(task.get());
+            } catch (Throwable e) {
+                // Also errors: an escaping throwable would stop the drain and strand the mailbox
+                result.completeExceptionally(e);
+            }
+        });
+        depths.record(ahead);
+        if (ahead == hotDepth) {
+            hot.increment();
+            log.warn("Conversation {} has {} messages waiting in its mailbox", conversationId, ahead);
+        }
+        return result;
+    }
+
+    private final class Mailbox implements Runnable {
+
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger depth = new AtomicInteger();
+
+        // Returns the number of tasks that were already queued
+        int enqueue(Runnable task) {
+            tasks.add(task);
+            queued.incrementAndGet();
+            int ahead = depth.getAndIncrement();
+            if (ahead == 0) {
+                executor.execute(this);
+            }
+            return ahead;
+        }
+
+        @Override
+        public void run() {
+            busy.incrementAndGet();
+            try {
+                do {
+                    queued.decrementAndGet();
+                    tasks.poll().run();
+                } while (depth.decrementAndGet() > 0);
+            } finally {
+                busy.decrementAndGet();
+            }
+        }
+    }
+}
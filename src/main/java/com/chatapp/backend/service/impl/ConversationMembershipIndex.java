@@ -0,0 +1,150 @@
+package com.chatapp.backend.service.impl;
+
+import com.chatapp.backend.entity.enums.ConversationType;
+import com.chatapp.backend.exception.ApiException;
+import com.chatapp.backend.repository.ConversationRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.chatapp.backend.entity.enums.ConversationType.GROUP;
+import static com.chatapp.backend.exception.ErrorCode.CONVERSATION_NOT_FOUND;
+
+/**
+ * Conversation id to member and admin ids, for authorizing sends, history reads and subscriptions
+ * without loading {@code Conversation.participants}.
+ * <p>
+ * Entries hold sorted id arrays, loaded with id-only queries on first use. Changes to participants,
+ * admins or the conversation itself {@link #invalidate} the entry once their transaction commits;
+ * entries also expire after {@code ttl-seconds}, which bounds how long another instance can act
+ * on a stale membership.
+ * <p>
+ * Metrics: {@code chat.membership.loads}.
+ */
+@Component
+@Slf4j
+public class ConversationMembershipIndex {
+
+    public record Membership(ConversationType type, long[] memberIds, long[] adminIds, long expiresAtNanos) {
+
+        public boolean isMember(Long userId) {
+            return Arrays.binarySearch(memberIds, userId) >= 0;
+        }
+
+        public boolean isAdmin(Long userId) {
+            return Arrays.binarySearch(adminIds, userId) >= 0;
+        }
+
+        public boolean isGroup() {
+            return type == GROUP;
+        }
+    }
+
+    private final ConversationRepository conversationRepository;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final Map<Long, Membership> memberships = new ConcurrentHashMap<>();
+    private final AtomicLong invalidations = new AtomicLong();
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final Counter loads;
+
+    public ConversationMembershipIndex(ConversationRepository conversationRepository,
+                                       PlatformTransactionManager transactionManager,
+                                       @Value("${application.messaging.membership.ttl-seconds:60}") long ttlSeconds,
+                                       @Value("${application.messaging.membership.max-entries:100000}") int maxEntries,
+                                       MeterRegistry meterRegistry) {
+        this.conversationRepository = conversationRepository;
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.maxEntries = maxEntries;
+        this.loads = Counter.builder("chat.membership.loads").register(meterRegistry);
+    }
+
+    /**
+     * Returns the conversation's membership, or throws {@code CONVERSATION_NOT_FOUND}.
+     */
+    public Membership get(Long conversationId) {
+        Membership membership = memberships.get(conversationId);
+        if (membership == null || membership.expiresAtNanos() - System.nanoTime() < 0) {
+            membership = load(conversationId);
+        }
+        return membership;
+    }
+
+    public boolean isMember(Long conversationId, Long userId) {
+        try {
+            return get(conversationId).isMember(userId);
+        } catch (ApiException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Drops the entry now and, inside a transaction, again once it completes. Loads that overlap an
+     * invalidation are not cached, so the membership from before the change cannot come back.
+     */
+    public void invalidate(Long conversationId) {
+        invalidations.incrementAndGet();
+        memberships.remove(conversationId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    invalidations.incrementAndGet();
+                    memberships.remove(conversationId);
+                }
+            });
+        }
+    }
+
+    private Membership load(Long conversationId) {
+        long generation = invalidations.get();
+        // Not found is reported outside the template so it never marks a surrounding transaction rollback-only
+        Membership membership = readOnlyTransactionTemplate.execute(status -> {
+            ConversationType type = conversationRepository.findTypeById(conversationId).orElse(null);
+            if (type == null) {
+                return null;
+            }
+            long[] memberIds = conversationRepository.findParticipantIds(conversationId).stream().mapToLong(Long::longValue).sorted().toArray();
+            long[] adminIds = type == GROUP
+                    ? conversationRepository.findAdminIds(conversationId).stream().mapToLong(Long::longValue).sorted().toArray()
+                    : new long[0];
+            return new Membership(type, memberIds, adminIds, System.nanoTime() + ttlNanos);
+        });
+        loads.increment();
+        if (membership == null) {
+            log.warn("Conversation not found: {}", conversationId);
+            throw new ApiException(CONVERSATION_NOT_FOUND, "Conversation not found: " + conversationId);
+        }
+        if (invalidations.get() != generation) {
+            return membership;
+        }
+        if (memberships.size() >= maxEntries) {
+            // Any entry will do; evicted conversations are simply loaded again
+            Iterator<Long> iterator = memberships.keySet().iterator();
+            if (iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+            }
+        }
+        memberships.put(conversationId, membership);
+        if (invalidations.get() != generation) {
+            memberships.remove(conversationId, membership);
+        }
+        return membership;
+    }
+}
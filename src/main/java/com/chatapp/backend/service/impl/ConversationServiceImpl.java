@@ -8,12 +8,16 @@ import com.chatapp.backend.entity.*;
 import com.chatapp.backend.entity.enums.ConversationType;
 import com.chatapp.backend.entity.enums.MessageStatus;
 import com.chatapp.backend.exception.ApiException;
+import com.chatapp.backend.repository.ConversationReadStateRepository;
 import com.chatapp.backend.repository.ConversationRepository;
-import com.chatapp.backend.repository.MessageDeliveryStatusRepository;
+import com.chatapp.backend.repository.ConversationRepository.ConversationSummary;
+import com.chatapp.backend.repository.UserRepository.UserPreview;
+import com.chatapp.backend.repository.InboxEntryRepository;
 import com.chatapp.backend.repository.MessageRepository;
 import com.chatapp.backend.repository.UserRepository;
 import com.chatapp.backend.service.ConversationService;
 import com.chatapp.backend.util.FindOrThrowHelper;
+import com.chatapp.backend.util.MessageCursor;
 import com.chatapp.backend.util.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -23,15 +27,22 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
-import static com.chatapp.backend.entity.enums.ConversationType.GROUP;
 import static com.chatapp.backend.exception.ErrorCode.*;
 
 @Service
@@ -43,13 +54,23 @@ public class ConversationServiceImpl implements ConversationService {
     private static final String CONVERSATION_ID_LOG = "conversationId";
     private static final String USERNAME_LOG = "username";
     private static final String MESSAGE_ID = "messageId";
+    private static final int MAX_SYNC_MESSAGES = 500;
+    private static final int MAX_HISTORY_MESSAGES = 100;
+    // Members shown on a conversation list row
+    private static final int PARTICIPANT_PREVIEWS = 3;
 
     private final ConversationRepository conversationRepository;
     private final UserRepository userRepository;
     private final ObjectMapper objectMapper;
     private final MessageRepository messageRepository;
-    private final MessageDeliveryStatusRepository messageDeliveryStatusRepository;
+    private final ConversationReadStateRepository readStateRepository;
     private final FindOrThrowHelper findOrThrowHelper;
+    private final MessageSequencer messageSequencer;
+    private final ConversationActivityStore activityStore;
+    private final ConversationMembershipIndex membershipIndex;
+    private final ConversationTailCache tailCache;
+    private final InboxEntryRepository inboxRepository;
+    private final UnreadCounterStore unreadCounters;
 
     @Override
     @Transactional
@@ -61,9 +82,10 @@ public class ConversationServiceImpl implements ConversationService {
 
             Conversation groupConversation = objectMapper.mapGroupRequestToConversation(request, participants);
             Conversation savedConversation = conversationRepository.save(groupConversation);
+            addToInboxes(savedConversation, participants, savedConversation.getCreatedAt());
 
             log.info("Group conversation created successfully with ID: {}", savedConversation.getId());
-            return objectMapper.mapConversationToGroupConversationResponse(savedConversation);
+            return objectMapper.mapConversationToGroupConversationResponse(savedConversation, null);
         } catch (Exception e) {
             log.error("Error creating group conversation", e);
             throw new ApiException(INTERNAL_SERVER_ERROR, "Error creating group conversation");
@@ -82,6 +104,7 @@ public class ConversationServiceImpl implements ConversationService {
 
             conversation.setGroupSettings(updatedSettings);
             conversationRepository.save(conversation);
+            membershipIndex.invalidate(groupId);
 
             log.info("Group settings updated successfully");
             return objectMapper.mapGroupSettingsToGroupSettingsResponse(updatedSettings);
@@ -92,23 +115,39 @@ public class ConversationServiceImpl implements ConversationService {
     }
 
     @Override
-    @Transactional
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     @Async
     public CompletableFuture<MessageResponse> processPrivateMessage(MessageRequest messageRequest) {
+        return CompletableFuture.completedFuture(savePrivateMessage((User) SecurityContextHolder.getContext().getAuthentication().getPrincipal(), messageRequest));
+    }
+
+    // Not transactional itself: each attempt of the insert runs in its own transaction, see MessageSequencer.save
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public MessageResponse savePrivateMessage(User sender, MessageRequest messageRequest) {
         try (MDC.MDCCloseable ignored = MDC.putCloseable("messageType", "private")) {
-            User user = (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-            MDC.put(USERNAME_LOG, user.getUsername());
-            log.info("Processing private message for user: {}", user.getUsername());
+            MDC.put(USERNAME_LOG, sender.getUsername());
+            log.info("Processing private message for user: {}", sender.getUsername());
 
-            Conversation conversation = findOrThrowHelper.findConversationOrThrow(messageRequest.conversationId());
+            return messageSequencer.save(messageRequest.conversationId(), () -> {
+                User user = findOrThrowHelper.findManagedUserOrThrow(sender);
 
-            Message message = objectMapper.mapMessageRequestToMessage(messageRequest, user, conversation);
+                preSavePrivateMessage(membershipIndex.get(messageRequest.conversationId()), messageRequest.conversationId(), user.getId());
+                rejectResend(user.getId(), messageRequest);
+                Conversation conversation = conversationRepository.getReferenceById(messageRequest.conversationId());
 
-            Message savedMessage = messageRepository.save(message);
-            MDC.put(MESSAGE_ID, String.valueOf(savedMessage.getId()));
-            log.info("Private message saved successfully with ID: {}", savedMessage.getId());
+                Message message = objectMapper.mapMessageRequestToMessage(messageRequest, user, conversation);
+                message.setSeq(messageSequencer.next(conversation.getId()));
 
-            return CompletableFuture.completedFuture(objectMapper.mapMessageToMessageResponse(savedMessage));
+                // Flushed here so a sequence conflict surfaces in this attempt
+                Message savedMessage = messageRepository.saveAndFlush(message);
+                MDC.put(MESSAGE_ID, String.valueOf(savedMessage.getId()));
+                log.info("Private message saved successfully with ID: {}", savedMessage.getId());
+
+                return objectMapper.mapMessageToMessageResponse(savedMessage);
+            });
+        } catch (ApiException e) {
+            throw e;
         } catch (Exception e) {
             throw new ApiException(INTERNAL_SERVER_ERROR, "Error processing private message");
         } finally {
@@ -118,23 +157,37 @@ public class ConversationServiceImpl implements ConversationService {
     }
 
     @Override
-    @Transactional
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     @Async
     public CompletableFuture<MessageResponse> processGroupMessage(Long conversationId, MessageRequest messageRequest) {
+        return CompletableFuture.completedFuture(saveGroupMessage((User) SecurityContextHolder.getContext().getAuthentication().getPrincipal(), conversationId, messageRequest));
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public MessageResponse saveGroupMessage(User sender, Long conversationId, MessageRequest messageRequest) {
         try (MDC.MDCCloseable ignored = MDC.putCloseable(CONVERSATION_ID_LOG, String.valueOf(conversationId))) {
-            User user = (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
             log.info("Processing group message for conversation: {}", conversationId);
 
-            Conversation conversation = findOrThrowHelper.findConversationOrThrow(conversationId);
-            preSaveGroupMessage(conversation);
+            return messageSequencer.save(conversationId, () -> {
+                User user = findOrThrowHelper.findManagedUserOrThrow(sender);
 
-            Message message = objectMapper.mapMessageRequestToMessage(messageRequest, user, conversation);
+                preSaveGroupMessage(membershipIndex.get(conversationId), conversationId, user.getId());
+                rejectResend(user.getId(), messageRequest);
+                Conversation conversation = conversationRepository.getReferenceById(conversationId);
 
-            Message savedMessage = messageRepository.save(message);
-            MDC.put(MESSAGE_ID, String.valueOf(savedMessage.getId()));
-            log.info("Group message saved successfully with ID: {}", savedMessage.getId());
+                Message message = objectMapper.mapMessageRequestToMessage(messageRequest, user, conversation);
+                message.setSeq(messageSequencer.next(conversation.getId()));
 
-            return CompletableFuture.completedFuture(objectMapper.mapMessageToMessageResponse(savedMessage));
+                // Flushed here so a sequence conflict surfaces in this attempt
+                Message savedMessage = messageRepository.saveAndFlush(message);
+                MDC.put(MESSAGE_ID, String.valueOf(savedMessage.getId()));
+                log.info("Group message saved successfully with ID: {}", savedMessage.getId());
+
+                return objectMapper.mapMessageToMessageResponse(savedMessage);
+            });
+        } catch (ApiException e) {
+            throw e;
         } catch (Exception e) {
             throw new ApiException(INTERNAL_SERVER_ERROR, "Error processing group message");
         } finally {
@@ -144,6 +197,105 @@ public class ConversationServiceImpl implements ConversationService {
         }
     }
 
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @Async
+    public CompletableFuture<MessageBatchResponse> processMessageBatch(List<MessageRequest> messageRequests) {
+        User sender = (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        try (MDC.MDCCloseable ignored = MDC.putCloseable(USERNAME_LOG, sender.getUsername())) {
+            log.info("Processing batch of {} messages", messageRequests.size());
+            List<Long> conversationIds = messageRequests.stream().map(MessageRequest::conversationId).distinct().toList();
+            return CompletableFuture.completedFuture(messageSequencer.save(conversationIds, () -> saveMessageBatch(sender, messageRequests)));
+        } catch (Exception e) {
+            log.error("Error processing message batch", e);
+            throw new ApiException(INTERNAL_SERVER_ERROR, "Error processing message batch");
+        }
+    }
+
+    // A retry the deduplicator no longer remembers; caught before it takes a sequence number
+    private void rejectResend(Long senderId, MessageRequest request) {
+        if (request.clientMessageId() != null && messageRepository.findBySenderIdAndClientMessageId(senderId, request.clientMessageId()).isPresent()) {
+            throw new ApiException(UNIQUE_CONSTRAINT_VIOLATION, "Message " + request.clientMessageId() + " was already sent");
+        }
+    }
+
+    // One attempt at saving the batch, in the transaction of MessageSequencer.save
+    private MessageBatchResponse saveMessageBatch(User sender, List<MessageRequest> messageRequests) {
+        User user = findOrThrowHelper.findManagedUserOrThrow(sender);
+
+        // Earlier sends and repeats within the batch are both answered with the first message
+        Set<String> clientMessageIds = messageRequests.stream()
+                                                      .map(MessageRequest::clientMessageId)
+                                                      .filter(Objects::nonNull)
+                                                      .collect(Collectors.toSet());
+        Map<String, Message> sent = clientMessageIds.isEmpty() ? new HashMap<>()
+                : messageRepository.findAllBySenderIdAndClientMessageIdIn(user.getId(), clientMessageIds)
+                                   .stream()
+                                   .collect(Collectors.toMap(Message::getClientMessageId, Function.identity()));
+
+        List<BatchOutcome> outcomes = new ArrayList<>(messageRequests.size());
+        List<Message> messages = new ArrayList<>(messageRequests.size());
+        for (MessageRequest request : messageRequests) {
+            Message original = request.clientMessageId() == null ? null : sent.get(request.clientMessageId());
+            if (original != null) {
+                outcomes.add(new BatchOutcome(MessageBatchResponse.Status.DUPLICATE, original, null));
+                continue;
+            }
+            try {
+                ConversationMembershipIndex.Membership membership = membershipIndex.get(request.conversationId());
+                if (membership.isGroup()) {
+                    preSaveGroupMessage(membership, request.conversationId(), user.getId());
+                } else {
+                    preSavePrivateMessage(membership, request.conversationId(), user.getId());
+                }
+                Message message = objectMapper.mapMessageRequestToMessage(request, user, conversationRepository.getReferenceById(request.conversationId()));
+                message.setSeq(messageSequencer.next(request.conversationId()));
+                messages.add(message);
+                outcomes.add(new BatchOutcome(MessageBatchResponse.Status.SAVED, message, null));
+                if (request.clientMessageId() != null) {
+                    sent.put(request.clientMessageId(), message);
+                }
+            } catch (ApiException e) {
+                outcomes.add(new BatchOutcome(MessageBatchResponse.Status.REJECTED, null, e));
+            }
+        }
+
+        // Flushed here so a sequence or clientMessageId conflict surfaces in this attempt
+        messageRepository.saveAll(messages);
+        messageRepository.flush();
+        log.info("Message batch saved: {} saved, {} of {} not saved", messages.size(), messageRequests.size() - messages.size(), messageRequests.size());
+
+        List<MessageBatchResponse.Item> items = new ArrayList<>(outcomes.size());
+        for (int i = 0; i < outcomes.size(); i++) {
+            BatchOutcome outcome = outcomes.get(i);
+            items.add(MessageBatchResponse.Item.builder()
+                                               .index(i)
+                                               .status(outcome.status())
+                                               .clientMessageId(messageRequests.get(i).clientMessageId())
+                                               .message(objectMapper.mapMessageToMessageResponse(outcome.message()))
+                                               .errorCode(outcome.error() == null ? null : outcome.error().getErrorCode().getCode())
+                                               .error(outcome.error() == null ? null : outcome.error().getMessage())
+                                               .build());
+        }
+        return MessageBatchResponse.builder()
+                                   .saved(messages.size())
+                                   .duplicates((int) outcomes.stream().filter(outcome -> outcome.status() == MessageBatchResponse.Status.DUPLICATE).count())
+                                   .rejected((int) outcomes.stream().filter(outcome -> outcome.status() == MessageBatchResponse.Status.REJECTED).count())
+                                   .results(items)
+                                   .build();
+    }
+
+    private record BatchOutcome(MessageBatchResponse.Status status, Message message, ApiException error) {
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    @Async
+    public CompletableFuture<Optional<MessageResponse>> findMessageByClientMessageId(Long senderId, String clientMessageId) {
+        return CompletableFuture.completedFuture(messageRepository.findBySenderIdAndClientMessageId(senderId, clientMessageId)
+                                                                  .map(objectMapper::mapMessageToMessageResponse));
+    }
+
     // Participant Management Methods
     @Override
     @Transactional
@@ -151,9 +303,9 @@ public class ConversationServiceImpl implements ConversationService {
         try (MDC.MDCCloseable ignored = MDC.putCloseable(CONVERSATION_ID_LOG, String.valueOf(groupId))) {
             log.info("Adding {} participants to group", participantUsernames.size());
 
+            User user = findOrThrowHelper.findManagedUserOrThrow((User) SecurityContextHolder.getContext().getAuthentication().getPrincipal());
+            preSaveGroupSettings(groupId, user);
             Conversation conversation = findOrThrowHelper.findConversationOrThrow(groupId);
-            User user = (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-            preSaveGroupSettings(conversation, user);
 
             Set<User> newParticipants = participantUsernames.stream()
                                                             .map(findOrThrowHelper::findUserOrThrow)
@@ -177,6 +329,8 @@ public class ConversationServiceImpl implements ConversationService {
             conversation.setParticipantCount(existingParticipants.size());
 
             Conversation savedConversation = conversationRepository.save(conversation);
+            addToInboxes(savedConversation, newParticipants, Instant.now());
+            membershipIndex.invalidate(groupId);
             log.info("Successfully added {} new participants", newParticipants.size());
 
             return savedConversation.getParticipants()
@@ -192,10 +346,10 @@ public class ConversationServiceImpl implements ConversationService {
         try (MDC.MDCCloseable groupContext = MDC.putCloseable(CONVERSATION_ID_LOG, String.valueOf(groupId)); MDC.MDCCloseable userContext = MDC.putCloseable(USERNAME_LOG, username)) {
 
             log.info("Attempting to remove participant from group");
-            User user = (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+            User user = findOrThrowHelper.findManagedUserOrThrow((User) SecurityContextHolder.getContext().getAuthentication().getPrincipal());
 
+            preSaveGroupSettings(groupId, user);
             Conversation conversation = findOrThrowHelper.findConversationOrThrow(groupId);
-            preSaveGroupSettings(conversation, user);
 
             User userToRemove = findOrThrowHelper.findUserOrThrow(username);
 
@@ -206,6 +360,9 @@ public class ConversationServiceImpl implements ConversationService {
 
             conversation.setParticipantCount(conversation.getParticipants().size());
             Conversation savedConversation = conversationRepository.save(conversation);
+            inboxRepository.deleteById(new InboxEntry.Key(userToRemove.getId(), groupId));
+            unreadCounters.set(userToRemove.getId(), groupId, 0);
+            membershipIndex.invalidate(groupId);
 
             log.info("Successfully removed participant from group");
             return savedConversation.getParticipants()
@@ -223,14 +380,15 @@ public class ConversationServiceImpl implements ConversationService {
             log.info("Creating new private conversation");
 
             User participant = findOrThrowHelper.findUserOrThrow(username);
-            User user = (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+            User user = findOrThrowHelper.findManagedUserOrThrow((User) SecurityContextHolder.getContext().getAuthentication().getPrincipal());
 
             // Check if private conversation already exists
             Optional<Conversation> existingConversation = conversationRepository.findPrivateConversationBetweenUsers(username, user.getUsername());
 
             if (existingConversation.isPresent()) {
                 log.info("Found existing private conversation, returning it");
-                return objectMapper.mapConversationToPrivateConversationResponse(existingConversation.get());
+                Conversation conversation = existingConversation.get();
+                return objectMapper.mapConversationToPrivateConversationResponse(conversation, activityStore.get(conversation.getId()).lastMessage());
             }
             Conversation privateConversation = Conversation.builder()
                                                            .type(ConversationType.PRIVATE)
@@ -240,9 +398,10 @@ public class ConversationServiceImpl implements ConversationService {
                                                            .build();
 
             Conversation savedConversation = conversationRepository.save(privateConversation);
+            addToInboxes(savedConversation, privateConversation.getParticipants(), savedConversation.getCreatedAt());
             log.info("Private conversation created successfully with ID: {}", savedConversation.getId());
 
-            return objectMapper.mapConversationToPrivateConversationResponse(savedConversation);
+            return objectMapper.mapConversationToPrivateConversationResponse(savedConversation, null);
         }
     }
 
@@ -255,10 +414,9 @@ public class ConversationServiceImpl implements ConversationService {
             log.info("Fetching messages for conversation, page: {}, size: {}", pageable.getPageNumber(), pageable.getPageSize());
 
             // Verify user has access to this conversation
-            Conversation conversation = findOrThrowHelper.findConversationOrThrow(conversationId);
             User user = findOrThrowHelper.findUserOrThrow(username);
 
-            if (!conversation.getParticipants().contains(user)) {
+            if (!membershipIndex.get(conversationId).isMember(user.getId())) {
                 log.warn("User attempted to access messages without being a participant");
                 throw new ApiException(ACCESS_DENIED, "User is not a participant in this conversation");
             }
@@ -273,64 +431,178 @@ public class ConversationServiceImpl implements ConversationService {
         }
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<MessageResponse> getMessagesAfter(String username, Long conversationId, long afterSeq, int limit) {
+        try (MDC.MDCCloseable convContext = MDC.putCloseable(CONVERSATION_ID_LOG, String.valueOf(conversationId)); MDC.MDCCloseable userContext = MDC.putCloseable(USERNAME_LOG, username)) {
+            log.info("Fetching up to {} messages after sequence {}", limit, afterSeq);
+
+            User user = findOrThrowHelper.findUserOrThrow(username);
+
+            if (!membershipIndex.get(conversationId).isMember(user.getId())) {
+                log.warn("User attempted to sync messages without being a participant");
+                throw new ApiException(ACCESS_DENIED, "User is not a participant in this conversation");
+            }
+
+            return messageRepository.findMessagesAfterSeq(conversationId, afterSeq, Pageable.ofSize(Math.clamp(limit, 1, MAX_SYNC_MESSAGES)))
+                                    .stream()
+                                    .map(objectMapper::mapMessageToMessageResponse)
+                                    .toList();
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public MessageSliceResponse getMessageHistory(String username, Long conversationId, String before, String after, int limit) {
+        try (MDC.MDCCloseable convContext = MDC.putCloseable(CONVERSATION_ID_LOG, String.valueOf(conversationId)); MDC.MDCCloseable userContext = MDC.putCloseable(USERNAME_LOG, username)) {
+            if (before != null && after != null) {
+                throw new ApiException(BAD_REQUEST, "Only one of before and after can be given");
+            }
+            log.info("Fetching up to {} messages {}", limit, before != null ? "before cursor" : after != null ? "after cursor" : "from the end");
+
+            User user = findOrThrowHelper.findUserOrThrow(username);
+
+            if (!membershipIndex.get(conversationId).isMember(user.getId())) {
+                log.warn("User attempted to access messages without being a participant");
+                throw new ApiException(ACCESS_DENIED, "User is not a participant in this conversation");
+            }
+
+            // One extra row tells whether there is a next page
+            int size = Math.clamp(limit, 1, MAX_HISTORY_MESSAGES);
+            MessageCursor beforeCursor = before == null ? null : MessageCursor.decode(before);
+            MessageCursor afterCursor = after == null ? null : MessageCursor.decode(after);
+            List<MessageResponse> messages = tailCache.find(conversationId, beforeCursor, afterCursor, size + 1)
+                                                      .orElseGet(() -> findMessagePage(conversationId, beforeCursor, afterCursor, size + 1));
+            boolean hasMore = messages.size() > size;
+            if (hasMore) {
+                messages = messages.subList(0, size);
+            }
+
+            return MessageSliceResponse.builder()
+                                       .messages(messages)
+                                       .hasMore(hasMore)
+                                       .nextCursor(hasMore ? MessageCursor.of(messages.getLast()).encode() : null)
+                                       .build();
+        }
+    }
+
+    private List<MessageResponse> findMessagePage(Long conversationId, MessageCursor before, MessageCursor after, int limit) {
+        Pageable pageable = Pageable.ofSize(limit);
+        List<Message> messages;
+        if (before != null) {
+            messages = messageRepository.findPageBefore(conversationId, before.createdAt(), before.id(), pageable);
+        } else if (after != null) {
+            messages = messageRepository.findPageAfter(conversationId, after.createdAt(), after.id(), pageable);
+        } else {
+            messages = messageRepository.findLatestPage(conversationId, pageable);
+        }
+        if (!messages.isEmpty()) {
+            messageRepository.fetchMediaItems(messages);
+            messageRepository.fetchReactions(messages);
+        }
+        return messages.stream().map(objectMapper::mapMessageToMessageResponse).toList();
+    }
+
     @Override
     @Transactional
     public MessageDeliveryStatusResponse changeMessageStatus(String username, Long messageId, MessageStatus status) {
         try (MDC.MDCCloseable ignored = MDC.putCloseable("messageId", String.valueOf(messageId))) {
             log.info("Changing message status to: {}", status);
 
-            MessageDeliveryStatus messageDeliveryStatus = messageDeliveryStatusRepository.findByMessageIdAndRecipientUsername(messageId, username)
-                                                                                         .orElseThrow(() -> {
-                                                                                             log.warn("Message delivery status not found");
-                                                                                             return new ApiException(MESSAGE_NOT_FOUND, "Message delivery status not found");
-                                                                                         });
+            Message message = messageRepository.findById(messageId).orElseThrow(() -> {
+                log.warn("Message not found");
+                return new ApiException(MESSAGE_NOT_FOUND, "Message not found");
+            });
+            User user = findOrThrowHelper.findUserOrThrow(username);
+            Conversation conversation = message.getConversation();
 
-            // Validate status transition
-            preSaveStatusTransition(messageDeliveryStatus.getStatus(), status);
+            if (message.getSender().getId().equals(user.getId())
+                    || !membershipIndex.get(conversation.getId()).isMember(user.getId())) {
+                log.warn("User is not a recipient of the message");
+                throw new ApiException(MESSAGE_NOT_FOUND, "Message delivery status not found");
+            }
 
-            messageDeliveryStatus.setStatus(status);
+            // Validate status transition
+            preSaveStatusTransition(status);
+
+            ConversationReadState readState = readStateRepository.findByConversationIdAndUserId(conversation.getId(), user.getId())
+                                                                 .orElseGet(() -> ConversationReadState.builder()
+                                                                                                       .conversation(conversation)
+                                                                                                       .user(user)
+                                                                                                       .createdAt(Instant.now())
+                                                                                                       .build());
+            // Acknowledging a message acknowledges everything before it in the conversation
+            long seq = Optional.ofNullable(message.getSeq()).orElse(0L);
+            if (status == MessageStatus.READ) {
+                readState.markReadUpTo(seq);
+            } else {
+                readState.markDeliveredUpTo(seq);
+            }
 
-            MessageDeliveryStatus savedMessageDeliveryStatus = messageDeliveryStatusRepository.save(messageDeliveryStatus);
+            ConversationReadState savedReadState = readStateRepository.save(readState);
+            if (status == MessageStatus.READ) {
+                unreadCounters.set(user.getId(), conversation.getId(),
+                                   messageRepository.countMessagesAfterSeqNotSentBy(conversation.getId(), savedReadState.getReadSeq(), user.getId()));
+            }
 
             log.info("Message status updated successfully");
 
-            return objectMapper.mapMessageDeliveryStatusToMessageDeliveryStatusResponse(savedMessageDeliveryStatus);
+            return objectMapper.mapReadStateToMessageDeliveryStatusResponse(savedReadState, message);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ReadStateResponse> getReadStates(String username, Long conversationId) {
+        try (MDC.MDCCloseable convContext = MDC.putCloseable(CONVERSATION_ID_LOG, String.valueOf(conversationId)); MDC.MDCCloseable userContext = MDC.putCloseable(USERNAME_LOG, username)) {
+            log.info("Fetching read states for conversation");
+
+            User user = findOrThrowHelper.findUserOrThrow(username);
+
+            if (!membershipIndex.get(conversationId).isMember(user.getId())) {
+                log.warn("User attempted to access read states without being a participant");
+                throw new ApiException(ACCESS_DENIED, "User is not a participant in this conversation");
+            }
+
+            return readStateRepository.findByConversationId(conversationId)
+                                      .stream()
+                                      .map(objectMapper::mapReadStateToReadStateResponse)
+                                      .toList();
         }
     }
 
     // Conversation Retrieval Methods
     @Override
     @Transactional(readOnly = true)
-    public Page<PrivateConversationResponse> getUserPrivateChats(Pageable pageable) {
+    public Page<ConversationSummaryResponse> getUserPrivateChats(Pageable pageable) {
         User user = (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
         try (MDC.MDCCloseable ignored = MDC.putCloseable(USERNAME_LOG, user.getUsername())) {
             log.info("Fetching private conversations,  page: {}, size: {}", pageable.getPageNumber(), pageable.getPageSize());
 
-            Page<Conversation> conversations = conversationRepository.findPrivateConversationsByUserUsername(user.getUsername(), pageable);
+            Page<Long> conversationIds = inboxRepository.findConversationIdsByType(user.getId(), ConversationType.PRIVATE, pageable);
 
-            if (conversations.isEmpty()) {
+            if (conversationIds.isEmpty()) {
                 log.info("No private conversations found for user");
             }
 
-            return conversations.map(objectMapper::mapConversationToPrivateConversationResponse);
+            return summarize(user, conversationIds);
         }
     }
 
     @Override
     @Transactional(readOnly = true)
-    public Page<GroupConversationResponse> getUserGroupChats(Pageable pageable) {
+    public Page<ConversationSummaryResponse> getUserGroupChats(Pageable pageable) {
         User user = (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
         try (MDC.MDCCloseable ignored = MDC.putCloseable(USERNAME_LOG, user.getUsername())) {
             log.info("Fetching group conversations,page: {}, size: {}", pageable.getPageNumber(), pageable.getPageSize());
 
-            Page<Conversation> conversations = conversationRepository.findGroupConversationsByParticipantUsername(user.getUsername(), pageable);
-
+            Page<Long> conversationIds = inboxRepository.findConversationIdsByType(user.getId(), ConversationType.GROUP, pageable);
 
-            if (conversations.isEmpty()) {
+            if (conversationIds.isEmpty()) {
                 log.info("No group conversations found for user");
             }
 
-            return conversations.map(objectMapper::mapConversationToGroupConversationResponse);
+            return summarize(user, conversationIds);
         }
     }
 
@@ -343,24 +615,33 @@ public class ConversationServiceImpl implements ConversationService {
             Conversation conversation = findOrThrowHelper.findConversationOrThrow(conversationId);
 
             log.info("Successfully retrieved conversation of type: {}", conversation.getType());
-            return objectMapper.mapConversationToConversationResponse(conversation);
+            return objectMapper.mapConversationToConversationResponse(conversation, activityStore.get(conversationId).lastMessage());
         }
     }
 
     @Override
     @Transactional(readOnly = true)
-    public Page<ConversationResponse> getUserConversations(Pageable pageable) {
+    public Page<ConversationSummaryResponse> getUserConversations(Pageable pageable) {
         User user = (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
         try (MDC.MDCCloseable ignored = MDC.putCloseable(USERNAME_LOG, user.getUsername())) {
             log.info("Fetching conversations for user, page: {}, size: {}", pageable.getPageNumber(), pageable.getPageSize());
 
-            Page<Conversation> conversations = conversationRepository.findConversationsByParticipantUsername(user.getUsername(), pageable);
+            Page<Long> conversationIds = inboxRepository.findConversationIds(user.getId(), pageable);
 
-            if (conversations.isEmpty()) {
+            if (conversationIds.isEmpty()) {
                 log.warn("No conversations found for user");
             }
 
-            return conversations.map(objectMapper::mapConversationToConversationResponse);
+            return summarize(user, conversationIds);
+        }
+    }
+
+    @Override
+    public Map<Long, Long> getUnreadCounts() {
+        User user = (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        try (MDC.MDCCloseable ignored = MDC.putCloseable(USERNAME_LOG, user.getUsername())) {
+            log.info("Fetching unread counts for user");
+            return unreadCounters.getAll(user.getId());
         }
     }
 
@@ -372,6 +653,10 @@ public class ConversationServiceImpl implements ConversationService {
 
             try {
                 conversationRepository.deleteById(conversationId);
+                inboxRepository.deleteByConversationId(conversationId);
+                activityStore.remove(conversationId);
+                tailCache.remove(conversationId);
+                membershipIndex.invalidate(conversationId);
                 log.info("Conversation deleted successfully");
             } catch (Exception e) {
                 log.error("Failed to delete conversation", e);
@@ -382,32 +667,96 @@ public class ConversationServiceImpl implements ConversationService {
 
     // Private Helper Methods
 
-    private void preSaveGroupSettings(Conversation conversation, User user) {
-        if (!GROUP.equals(conversation.getType())) {
+    private void addToInboxes(Conversation conversation, Collection<User> users, Instant activityAt) {
+        inboxRepository.saveAll(users.stream()
+                                     .map(user -> InboxEntry.builder()
+                                                            .userId(user.getId())
+                                                            .conversationId(conversation.getId())
+                                                            .conversationType(conversation.getType())
+                                                            .lastActivityAt(activityAt)
+                                                            .build())
+                                     .toList());
+    }
+
+    // An inbox page in list form from column-only queries; last messages and unread counts come from memory
+    private Page<ConversationSummaryResponse> summarize(User user, Page<Long> conversationIds) {
+        if (conversationIds.isEmpty()) {
+            return conversationIds.map(id -> null);
+        }
+        List<Long> ids = conversationIds.getContent();
+        Map<Long, ConversationSummary> summaries = conversationRepository.findSummariesByIdIn(ids)
+                                                                         .stream()
+                                                                         .collect(Collectors.toMap(ConversationSummary::getId, Function.identity()));
+        // The lowest other member ids of each conversation from the membership index, then the names of just those members
+        Map<Long, List<Long>> previewIds = new HashMap<>();
+        for (Long id : ids) {
+            List<Long> picked = new ArrayList<>(PARTICIPANT_PREVIEWS);
+            for (long memberId : membershipIndex.get(id).memberIds()) {
+                if (picked.size() == PARTICIPANT_PREVIEWS) {
+                    break;
+                }
+                if (memberId != user.getId()) {
+                    picked.add(memberId);
+                }
+            }
+            previewIds.put(id, picked);
+        }
+        Map<Long, UserPreview> previews = userRepository.findPreviewsByIdIn(previewIds.values().stream().flatMap(List::stream).collect(Collectors.toSet()))
+                                                        .stream()
+                                                        .collect(Collectors.toMap(UserPreview::getId, Function.identity()));
+        Map<Long, ConversationActivityStore.Activity> activity = activityStore.getAll(ids);
+        Map<Long, Long> unread = unreadCounters.getAll(user.getId());
+        return conversationIds.map(id -> objectMapper.mapConversationSummaryToConversationSummaryResponse(summaries.get(id),
+                                                                                                           previewIds.getOrDefault(id, List.of())
+                                                                                                                     .stream()
+                                                                                                                     .map(previews::get)
+                                                                                                                     .filter(Objects::nonNull)
+                                                                                                                     .toList(),
+                                                                                                           activity.get(id).lastMessage(),
+                                                                                                           unread.getOrDefault(id, 0L)));
+    }
+
+    private void preSaveGroupSettings(Long groupId, User user) {
+        ConversationMembershipIndex.Membership membership = membershipIndex.get(groupId);
+        if (!membership.isGroup()) {
             throw new ApiException(INVALID_CONVERSATION_TYPE, "Operation only allowed for group conversations");
         }
-        if (!conversation.getGroupSettings().getAdmins().contains(user)) {
+        if (!membership.isAdmin(user.getId())) {
             throw new ApiException(ACCESS_DENIED, "User is not an admin in this group");
         }
     }
 
-    private void preSaveStatusTransition(MessageStatus currentStatus, MessageStatus newStatus) {
-        if (currentStatus == MessageStatus.DELIVERED && newStatus == MessageStatus.SENT) {
-            throw new ApiException(INVALID_STATUS_TRANSITION, "Cannot change message status from " + currentStatus + " to " + newStatus);
+    private void preSaveStatusTransition(MessageStatus newStatus) {
+        // Watermarks never move back, so only acknowledgements can be recorded
+        if (newStatus == null || newStatus.ordinal() < MessageStatus.RECEIVED.ordinal()) {
+            throw new ApiException(INVALID_STATUS_TRANSITION, "Cannot change message status to " + newStatus);
+        }
+    }
+
+    /**
+     * Also used by the batched and journaled ingestion paths, which validate messages before writing them.
+     */
+    static void preSavePrivateMessage(ConversationMembershipIndex.Membership membership, Long conversationId, Long userId) {
+        if (!membership.isMember(userId)) {
+            log.warn("User is not a participant in private conversation: {}", conversationId);
+            throw new ApiException(ACCESS_DENIED, "User is not a participant in this conversation");
         }
     }
 
-    private void preSaveGroupMessage(Conversation conversation) {
-        if (!conversation.getType().equals(GROUP)) {
-            log.warn("Invalid conversation type for group message: {}", conversation.getId());
+    /**
+     * Also used by the batched and journaled ingestion paths, which validate messages before writing them.
+     */
+    static void preSaveGroupMessage(ConversationMembershipIndex.Membership membership, Long conversationId, Long userId) {
+        if (!membership.isGroup()) {
+            log.warn("Invalid conversation type for group message: {}", conversationId);
             throw new ApiException(INVALID_CONVERSATION_TYPE, "Conversation is not a group chat");
         }
 
-        if (!conversation.getParticipants().contains(findOrThrowHelper.findUserOrThrow("username"))) {
-            log.warn("User is not a participant in group conversation: {}", conversation.getId());
+        if (!membership.isMember(userId)) {
+            log.warn("User is not a participant in group conversation: {}", conversationId);
             throw new ApiException(USER_NOT_IN_GROUP, "User is not a participant in this group");
         }
-        log.info("Group message request validated successfully for conversation: {}", conversation.getId());
+        log.info("Group message request validated successfully for conversation: {}", conversationId);
     }
 }
 
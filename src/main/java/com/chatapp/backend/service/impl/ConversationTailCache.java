@@ -0,0 +1,365 @@
+package com.chatapp.backend.service.impl;
+
+import com.chatapp.backend.dto.response.MessageResponse;
+import com.chatapp.backend.entity.Message;
+import com.chatapp.backend.repository.MessageRepository;
+import com.chatapp.backend.util.MessageCursor;
+import com.chatapp.backend.util.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * The newest messages of active conversations, so that history pages near the end of a
+ * conversation are answered from memory.
+ * <p>
+ * A tail is a ring of up to {@code messages} responses in {@code (createdAt, id)} order, the order of
+ * the history API, and holds every message from its oldest entry onwards. Messages are appended as
+ * they are sent, starting a tail if there is none; a request for the latest page that the tail does
+ * not cover loads it, keeping what was appended meanwhile. A page is served only if the tail covers
+ * all of it, otherwise the caller goes to the database.
+ * <p>
+ * Tails are dropped when idle for {@code idle-seconds}, and least recently used tails are dropped
+ * beyond {@code max-conversations} or the estimated {@code memory-budget-bytes}. Messages sent
+ * through other instances are not appended here, so tails are also reloaded after
+ * {@code max-age-seconds}.
+ * <p>
+ * Metrics: {@code chat.tail.reads} (tagged hit or miss), {@code chat.tail.loads},
+ * {@code chat.tail.evictions}, {@code chat.tail.conversations} and {@code chat.tail.bytes}.
+ */
+@Component
+@Slf4j
+public class ConversationTailCache {
+
+    private final MessageRepository messageRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final int capacity;
+    private final int maxConversations;
+    private final long memoryBudgetBytes;
+    private final long idleNanos;
+    private final long maxAgeNanos;
+    // Guards tails and bytes; access order makes the eldest tail the least recently used
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<Long, Tail> tails = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter loads;
+    private final Counter evictions;
+
+    public ConversationTailCache(MessageRepository messageRepository,
+                                 ObjectMapper objectMapper,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${application.messaging.tail.messages:100}") int capacity,
+                                 @Value("${application.messaging.tail.max-conversations:10000}") int maxConversations,
+                                 @Value("${application.messaging.tail.memory-budget-bytes:67108864}") long memoryBudgetBytes,
+                                 @Value("${application.messaging.tail.idle-seconds:300}") long idleSeconds,
+                                 @Value("${application.messaging.tail.max-age-seconds:60}") long maxAgeSeconds,
+                                 MeterRegistry meterRegistry) {
+        this.messageRepository = messageRepository;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.capacity = capacity;
+        this.maxConversations = maxConversations;
+        this.memoryBudgetBytes = memoryBudgetBytes;
+        this.idleNanos = TimeUnit.SECONDS.toNanos(idleSeconds);
+        this.maxAgeNanos = TimeUnit.SECONDS.toNanos(maxAgeSeconds);
+        this.hits = Counter.builder("chat.tail.reads").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("chat.tail.reads").tag("result", "miss").register(meterRegistry);
+        this.loads = Counter.builder("chat.tail.loads").register(meterRegistry);
+        this.evictions = Counter.builder("chat.tail.evictions").register(meterRegistry);
+        Gauge.builder("chat.tail.conversations", this, cache -> cache.read(() -> cache.tails.size())).register(meterRegistry);
+        Gauge.builder("chat.tail.bytes", this, cache -> cache.read(() -> cache.bytes)).register(meterRegistry);
+    }
+
+    /**
+     * Appends a saved (or, in journaled mode, journaled) message to its conversation's tail. The
+     * first message of a conversation starts one.
+     */
+    public void append(MessageResponse message) {
+        lock.lock();
+        try {
+            Tail tail = tails.get(message.conversationId());
+            if (tail == null) {
+                // Sends complete out of order, and a load may be running: start from this message, so that
+                // nothing newer is lost; older messages arriving later are dropped unless this is the first
+                tail = new Tail(capacity, isFirst(message), System.nanoTime());
+                tails.put(message.conversationId(), tail);
+            }
+            bytes += tail.insert(message);
+            trim();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns up to {@code limit} messages before or after a cursor, or the latest ones when both are
+     * null, in the order of the history API; empty when the tail does not cover the whole page.
+     */
+    public Optional<List<MessageResponse>> find(Long conversationId, MessageCursor before, MessageCursor after, int limit) {
+        long now = System.nanoTime();
+        Optional<List<MessageResponse>> page = Optional.empty();
+        lock.lock();
+        try {
+            Tail tail = tails.get(conversationId);
+            if (tail != null && tail.expired(now, maxAgeNanos)) {
+                bytes -= tail.bytes;
+                tails.remove(conversationId);
+                evictions.increment();
+                tail = null;
+            }
+            if (tail != null) {
+                tail.lastUsedNanos = now;
+                page = tail.page(before, after, limit);
+            }
+        } finally {
+            lock.unlock();
+        }
+        (page.isPresent() ? hits : misses).increment();
+        if (page.isEmpty() && before == null && after == null && limit <= capacity) {
+            Tail loaded = load(conversationId);
+            lock.lock();
+            try {
+                page = loaded.page(null, null, limit);
+            } finally {
+                lock.unlock();
+            }
+        }
+        return page;
+    }
+
+    /**
+     * Forgets a deleted conversation.
+     */
+    public void remove(Long conversationId) {
+        lock.lock();
+        try {
+            Tail tail = tails.remove(conversationId);
+            if (tail != null) {
+                bytes -= tail.bytes;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${application.messaging.tail.sweep-millis:10000}")
+    public void evictIdle() {
+        long now = System.nanoTime();
+        int evicted = 0;
+        lock.lock();
+        try {
+            Iterator<Tail> iterator = tails.values().iterator();
+            while (iterator.hasNext()) {
+                Tail tail = iterator.next();
+                if (now - tail.lastUsedNanos > idleNanos || tail.expired(now, maxAgeNanos)) {
+                    bytes -= tail.bytes;
+                    iterator.remove();
+                    evicted++;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (evicted > 0) {
+            evictions.increment(evicted);
+            log.debug("Evicted {} idle conversation tails", evicted);
+        }
+    }
+
+    private Tail load(Long conversationId) {
+        long started = System.nanoTime();
+        List<MessageResponse> newestFirst = readOnlyTransactionTemplate.execute(status -> {
+            List<Message> messages = messageRepository.findLatestPage(conversationId, Pageable.ofSize(capacity + 1));
+            if (!messages.isEmpty()) {
+                messageRepository.fetchMediaItems(messages);
+                messageRepository.fetchReactions(messages);
+            }
+            return messages.stream().map(objectMapper::mapMessageToMessageResponse).toList();
+        });
+        loads.increment();
+        Tail loaded = new Tail(capacity, newestFirst.size() <= capacity, started);
+        for (int i = Math.min(newestFirst.size(), capacity) - 1; i >= 0; i--) {
+            loaded.insert(newestFirst.get(i));
+        }
+        lock.lock();
+        try {
+            // Keep what was appended while loading
+            Tail current = tails.get(conversationId);
+            if (current != null) {
+                bytes -= current.bytes;
+                for (int i = 0; i < current.size; i++) {
+                    loaded.insert(current.get(i));
+                }
+            }
+            tails.put(conversationId, loaded);
+            bytes += loaded.bytes;
+            trim();
+        } finally {
+            lock.unlock();
+        }
+        return loaded;
+    }
+
+    // Drops least recently used tails until both limits hold; called with the lock held
+    private void trim() {
+        Iterator<Tail> iterator = tails.values().iterator();
+        while ((tails.size() > maxConversations || bytes > memoryBudgetBytes) && iterator.hasNext()) {
+            bytes -= iterator.next().bytes;
+            iterator.remove();
+            evictions.increment();
+        }
+    }
+
+    private <T> T read(Supplier<T> value) {
+        lock.lock();
+        try {
+            return value.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static boolean isFirst(MessageResponse message) {
+        return message.seq() != null && message.seq() == 1;
+    }
+
+    private static int compare(MessageResponse message, MessageCursor cursor) {
+        int byTime = message.createdAt().compareTo(cursor.createdAt());
+        return byTime != 0 ? byTime : Long.compare(message.id(), cursor.id());
+    }
+
+    private static int compare(MessageResponse a, MessageResponse b) {
+        int byTime = a.createdAt().compareTo(b.createdAt());
+        return byTime != 0 ? byTime : Long.compare(a.id(), b.id());
+    }
+
+    // Rough heap size of a response: object headers and references plus the character data
+    private static long estimateBytes(MessageResponse message) {
+        return 256
+                + 2L * (length(message.content()) + length(message.senderUsername()) + length(message.senderDisplayName()) + length(message.clientMessageId()))
+                + 160L * (message.mediaItems() == null ? 0 : message.mediaItems().size())
+                + 96L * (message.reactions() == null ? 0 : message.reactions().size());
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+
+    /**
+     * Ring buffer of one conversation's newest messages, oldest first. Not thread safe.
+     */
+    private static final class Tail {
+
+        private final MessageResponse[] ring;
+        private final long createdAtNanos;
+        private int head;
+        private int size;
+        // True while the tail holds the conversation's very first message
+        private boolean complete;
+        private long bytes;
+        private long lastUsedNanos;
+
+        private Tail(int capacity, boolean complete, long createdAtNanos) {
+            this.ring = new MessageResponse[capacity];
+            this.complete = complete;
+            this.createdAtNanos = createdAtNanos;
+            this.lastUsedNanos = createdAtNanos;
+        }
+
+        private MessageResponse get(int index) {
+            return ring[(head + index) % ring.length];
+        }
+
+        private void set(int index, MessageResponse message) {
+            ring[(head + index) % ring.length] = message;
+        }
+
+        private boolean expired(long now, long maxAgeNanos) {
+            return now - createdAtNanos > maxAgeNanos;
+        }
+
+        /**
+         * Inserts in order, evicting the oldest message when full; returns the change in estimated bytes.
+         */
+        private long insert(MessageResponse message) {
+            // New messages almost always go last
+            int position = size;
+            while (position > 0 && compare(get(position - 1), message) >= 0) {
+                if (get(position - 1).id().equals(message.id())) {
+                    return 0;
+                }
+                position--;
+            }
+            if (position == 0 && size > 0 && !complete) {
+                if (!isFirst(message)) {
+                    // Older than the oldest entry: messages in between may be missing
+                    return 0;
+                }
+                complete = size < ring.length;
+            }
+            long delta = 0;
+            if (size == ring.length) {
+                if (position == 0) {
+                    complete = false;
+                    return 0;
+                }
+                delta -= estimateBytes(get(0));
+                ring[head] = null;
+                head = (head + 1) % ring.length;
+                size--;
+                position--;
+                complete = false;
+            }
+            for (int i = size; i > position; i--) {
+                set(i, get(i - 1));
+            }
+            set(position, message);
+            size++;
+            delta += estimateBytes(message);
+            bytes += delta;
+            return delta;
+        }
+
+        private Optional<List<MessageResponse>> page(MessageCursor before, MessageCursor after, int limit) {
+            List<MessageResponse> page = new ArrayList<>(Math.min(limit, size));
+            if (after != null) {
+                // Everything after the cursor is here once the cursor is at or past the oldest entry
+                if (!complete && (size == 0 || compare(get(0), after) > 0)) {
+                    return Optional.empty();
+                }
+                for (int i = 0; i < size && page.size() < limit; i++) {
+                    if (compare(get(i), after) > 0) {
+                        page.add(get(i));
+                    }
+                }
+                return Optional.of(page);
+            }
+            for (int i = size - 1; i >= 0 && page.size() < limit; i--) {
+                if (before == null || compare(get(i), before) < 0) {
+                    page.add(get(i));
+                }
+            }
+            return page.size() == limit || complete ? Optional.of(page) : Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.chatapp.backend.service.impl;
+
+import com.chatapp.backend.dto.request.MessageRequest;
+import com.chatapp.backend.dto.response.MessageBatchResponse;
+import com.chatapp.backend.dto.response.MessageResponse;
+import com.chatapp.backend.service.ConversationService;
+import com.chatapp.backend.service.MessageIngestionService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Saves each message in its own transaction on the async executor.
+ * <p>
+ * Messages of one conversation are saved concurrently, so they can commit, and be broadcast, out of
+ * sequence order: a client that syncs after seeing {@code n + 1} misses {@code n} if it committed
+ * later. Use mailbox mode where sync must not skip messages.
+ */
+@Service
+@ConditionalOnProperty(name = "application.messaging.ingestion.mode", havingValue = "direct", matchIfMissing = true)
+@RequiredArgsConstructor
+public class DirectMessageIngestionService implements MessageIngestionService {
+
+    private final ConversationService conversationService;
+
+    @Override
+    public CompletableFuture<MessageResponse> submitPrivateMessage(MessageRequest messageRequest) {
+        return conversationService.processPrivateMessage(messageRequest);
+    }
+
+    @Override
+    public CompletableFuture<MessageResponse> submitGroupMessage(Long conversationId, MessageRequest messageRequest) {
+        return conversationService.processGroupMessage(conversationId, messageRequest);
+    }
+
+    // The whole batch in one transaction
+    @Override
+    public CompletableFuture<MessageBatchResponse> submitBatch(List<MessageRequest> messageRequests) {
+        return conversationService.processMessageBatch(messageRequests);
+    }
+}
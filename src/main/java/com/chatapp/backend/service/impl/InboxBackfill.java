@@ -0,0 +1,36 @@
+package com.chatapp.backend.service.impl;
+
+import com.chatapp.backend.repository.InboxEntryRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Adds inbox rows for memberships that have none, once at startup: conversations created before
+ * the inbox table existed, or by an instance running an older version.
+ */
+@Component
+@ConditionalOnProperty(name = "application.messaging.inbox.backfill-on-startup", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class InboxBackfill {
+
+    private final InboxEntryRepository inboxRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public InboxBackfill(InboxEntryRepository inboxRepository, PlatformTransactionManager transactionManager) {
+        this.inboxRepository = inboxRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        Integer added = transactionTemplate.execute(status -> inboxRepository.addMissingEntries());
+        if (added != null && added > 0) {
+            log.info("Added {} missing inbox entries", added);
+        }
+    }
+}
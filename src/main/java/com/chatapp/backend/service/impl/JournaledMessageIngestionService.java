@@ -0,0 +1,371 @@
+package com.chatapp.backend.service.impl;
+
+import com.chatapp.backend.dto.request.MessageRequest;
+import com.chatapp.backend.dto.response.MessageBatchResponse;
+import com.chatapp.backend.dto.response.MessageResponse;
+import com.chatapp.backend.entity.Conversation;
+import com.chatapp.backend.entity.Message;
+import com.chatapp.backend.entity.User;
+import com.chatapp.backend.entity.enums.ConversationType;
+import com.chatapp.backend.entity.enums.MessageType;
+import com.chatapp.backend.entity.id.SnowflakeIdGenerator;
+import com.chatapp.backend.entity.id.SnowflakeIds;
+import com.chatapp.backend.exception.ApiException;
+import com.chatapp.backend.repository.ConversationRepository;
+import com.chatapp.backend.repository.MessageRepository;
+import com.chatapp.backend.repository.UserRepository;
+import com.chatapp.backend.service.MessageIngestionService;
+import com.chatapp.backend.service.impl.MessageJournal.Position;
+import com.chatapp.backend.util.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static com.chatapp.backend.entity.enums.ConversationType.GROUP;
+import static com.chatapp.backend.exception.ErrorCode.*;
+
+/**
+ * Journaled ingestion, enabled with {@code application.messaging.ingestion.mode=journaled}.
+ * <p>
+ * A message is validated, given its id and sequence number, appended to the local
+ * {@link MessageJournal} and acknowledged once the append is on disk, without waiting for the
+ * database. A flusher thread saves journaled messages in batches of up to {@code max-batch-size}
+ * and advances the journal checkpoint; on startup, messages journaled but not yet saved are
+ * replayed before any new message is accepted. Database outages are retried without losing
+ * acknowledged messages. A message the database rejects outright (e.g. its conversation was
+ * deleted meanwhile) is moved to the journal's dead-letter file before the checkpoint passes it.
+ * <p>
+ * Sequence numbers are allocated before the message is saved, so a conversation must only be
+ * written by one instance while this mode is on.
+ * <p>
+ * Metrics: {@code chat.journal.append} (until durable), {@code chat.journal.sync.batch},
+ * {@code chat.journal.flush}, {@code chat.journal.unflushed} and {@code chat.journal.dead.letters}.
+ */
+@Service
+@ConditionalOnProperty(name = "application.messaging.ingestion.mode", havingValue = "journaled")
+@Slf4j
+public class JournaledMessageIngestionService implements MessageIngestionService {
+
+    private static final long RETRY_DELAY_MILLIS = 1000;
+
+    record JournaledMessage(long id, long seq, long conversationId, long senderId,
+                            MessageType type, Instant createdAt, String content, String clientMessageId) {
+
+        byte[] encode() {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + (content != null ? content.length() * 3 : 0));
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                out.writeLong(id);
+                out.writeLong(seq);
+                out.writeLong(conversationId);
+                out.writeLong(senderId);
+                out.writeUTF(type.name());
+                out.writeLong(createdAt.getEpochSecond());
+                out.writeInt(createdAt.getNano());
+                byte[] text = content != null ? content.getBytes(StandardCharsets.UTF_8) : null;
+                out.writeInt(text != null ? text.length : -1);
+                if (text != null) {
+                    out.write(text);
+                }
+                out.writeBoolean(clientMessageId != null);
+                if (clientMessageId != null) {
+                    out.writeUTF(clientMessageId);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return bytes.toByteArray();
+        }
+
+        static JournaledMessage decode(byte[] payload) {
+            try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+                long id = in.readLong();
+                long seq = in.readLong();
+                long conversationId = in.readLong();
+                long senderId = in.readLong();
+                MessageType type = MessageType.valueOf(in.readUTF());
+                Instant createdAt = Instant.ofEpochSecond(in.readLong(), in.readInt());
+                int length = in.readInt();
+                String content = length >= 0 ? new String(in.readNBytes(length), StandardCharsets.UTF_8) : null;
+                String clientMessageId = in.readBoolean() ? in.readUTF() : null;
+                return new JournaledMessage(id, seq, conversationId, senderId, type, createdAt, content, clientMessageId);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private record Unflushed(JournaledMessage message, Position end) {
+    }
+
+    private final ConversationRepository conversationRepository;
+    private final UserRepository userRepository;
+    private final MessageRepository messageRepository;
+    private final ObjectMapper objectMapper;
+    private final MessageSequencer messageSequencer;
+    private final ConversationMembershipIndex membershipIndex;
+    private final MessageBatchSubmitter batchSubmitter;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final MessageJournal journal;
+    private final SnowflakeIds ids;
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final BlockingQueue<Unflushed> unflushed = new LinkedBlockingQueue<>();
+    private final Semaphore capacity;
+    private final int maxBatchSize;
+    private final Timer appendTime;
+    private final Timer flushTime;
+    private final Counter deadLetters;
+    private volatile boolean running = true;
+    private Thread flusher;
+
+    public JournaledMessageIngestionService(ConversationRepository conversationRepository,
+                                            UserRepository userRepository,
+                                            MessageRepository messageRepository,
+                                            ObjectMapper objectMapper,
+                                            MessageSequencer messageSequencer,
+                                            ConversationMembershipIndex membershipIndex,
+                                            MessageBatchSubmitter batchSubmitter,
+                                            PlatformTransactionManager transactionManager,
+                                            @Value("${application.messaging.journal.directory}") Path directory,
+                                            @Value("${application.messaging.journal.segment-bytes:67108864}") int segmentBytes,
+                                            @Value("${application.messaging.journal.fsync:true}") boolean fsync,
+                                            @Value("${application.persistence.node-id}") int nodeId,
+                                            @Value("${application.messaging.ingestion.max-batch-size:256}") int maxBatchSize,
+                                            @Value("${application.messaging.ingestion.queue-capacity:10000}") int queueCapacity,
+                                            MeterRegistry meterRegistry) {
+        this.conversationRepository = conversationRepository;
+        this.userRepository = userRepository;
+        this.messageRepository = messageRepository;
+        this.objectMapper = objectMapper;
+        this.messageSequencer = messageSequencer;
+        this.membershipIndex = membershipIndex;
+        this.batchSubmitter = batchSubmitter;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.ids = SnowflakeIdGenerator.forNode(nodeId);
+        this.capacity = new Semaphore(queueCapacity);
+        this.maxBatchSize = maxBatchSize;
+        DistributionSummary syncBatches = DistributionSummary.builder("chat.journal.sync.batch").register(meterRegistry);
+        this.journal = new MessageJournal(directory, segmentBytes, fsync, syncBatches::record);
+        this.appendTime = Timer.builder("chat.journal.append").publishPercentiles(0.5, 0.99).register(meterRegistry);
+        this.flushTime = Timer.builder("chat.journal.flush").register(meterRegistry);
+        this.deadLetters = Counter.builder("chat.journal.dead.letters").register(meterRegistry);
+        Gauge.builder("chat.journal.unflushed", unflushed, BlockingQueue::size).register(meterRegistry);
+        log.info("Message journal in {}, {} byte segments, fsync {}.", directory.toAbsolutePath(), segmentBytes, fsync ? "on" : "off");
+    }
+
+    @PostConstruct
+    void start() throws IOException, InterruptedException {
+        List<MessageJournal.Entry> entries = journal.open();
+        if (!entries.isEmpty()) {
+            log.info("Replaying {} journaled messages into the database.", entries.size());
+            for (int from = 0; from < entries.size(); from += maxBatchSize) {
+                flush(entries.subList(from, Math.min(from + maxBatchSize, entries.size()))
+                             .stream()
+                             .map(entry -> new Unflushed(JournaledMessage.decode(entry.payload()), entry.end()))
+                             .toList());
+            }
+        }
+        journal.start();
+        flusher = Thread.ofPlatform().name("message-journal-flush").daemon().start(this::runFlusher);
+        log.info("Journaled message ingestion started.");
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        // The flusher saves what is already journaled unless the database is unreachable; replay covers the rest
+        running = false;
+        flusher.join(TimeUnit.SECONDS.toMillis(10));
+        flusher.interrupt();
+        journal.close();
+    }
+
+    @Override
+    public CompletableFuture<MessageResponse> submitPrivateMessage(MessageRequest messageRequest) {
+        return submit(messageRequest.conversationId(), ConversationType.PRIVATE, messageRequest);
+    }
+
+    @Override
+    public CompletableFuture<MessageResponse> submitGroupMessage(Long conversationId, MessageRequest messageRequest) {
+        return submit(conversationId, GROUP, messageRequest);
+    }
+
+    @Override
+    public CompletableFuture<MessageBatchResponse> submitBatch(List<MessageRequest> messageRequests) {
+        return batchSubmitter.submitEach(messageRequests, this);
+    }
+
+    private CompletableFuture<MessageResponse> submit(Long conversationId, ConversationType type, MessageRequest request) {
+        User principal = (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        if (!running || !capacity.tryAcquire()) {
+            log.warn("Message journal backlog full, rejecting message for conversation {}", conversationId);
+            return CompletableFuture.failedFuture(new ApiException(MESSAGE_INGESTION_OVERLOADED));
+        }
+        try {
+            Message message = readOnlyTransactionTemplate.execute(status -> prepare(principal.getId(), conversationId, type, request));
+            long started = System.nanoTime();
+            MessageJournal.Appended appended;
+            // Sequence numbers are journaled, and so saved, in the order they are allocated
+            appendLock.lock();
+            try {
+                message.setSeq(messageSequencer.next(conversationId));
+                JournaledMessage entry = new JournaledMessage(message.getId(), message.getSeq(), conversationId, principal.getId(),
+                        message.getType(), message.getCreatedAt(), message.getContent(), message.getClientMessageId());
+                appended = journal.append(entry.encode());
+                unflushed.add(new Unflushed(entry, appended.end()));
+            } finally {
+                appendLock.unlock();
+            }
+            MessageResponse response = objectMapper.mapMessageToMessageResponse(message);
+            return appended.durable().thenApply(ignored -> {
+                appendTime.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+                return response;
+            });
+        } catch (ApiException e) {
+            capacity.release();
+            return CompletableFuture.failedFuture(e);
+        } catch (RuntimeException e) {
+            capacity.release();
+            log.error("Error journaling {} message", type.name().toLowerCase(), e);
+            return CompletableFuture.failedFuture(new ApiException(INTERNAL_SERVER_ERROR, "Error processing message"));
+        }
+    }
+
+    private Message prepare(Long senderId, Long conversationId, ConversationType type, MessageRequest request) {
+        ConversationMembershipIndex.Membership membership = membershipIndex.get(conversationId);
+        User sender = userRepository.findById(senderId).orElseThrow(() ->
+                new ApiException(USER_NOT_FOUND, "User not found: " + senderId));
+        if (type == GROUP) {
+            ConversationServiceImpl.preSaveGroupMessage(membership, conversationId, senderId);
+        } else {
+            ConversationServiceImpl.preSavePrivateMessage(membership, conversationId, senderId);
+        }
+        // A retry the dedupe window no longer remembers would only fail once saved, after it was acknowledged.
+        // The error makes the MessageDeduplicator answer with the stored message instead.
+        if (request.clientMessageId() != null && messageRepository.findBySenderIdAndClientMessageId(senderId, request.clientMessageId()).isPresent()) {
+            throw new ApiException(UNIQUE_CONSTRAINT_VIOLATION, "Message " + request.clientMessageId() + " was already sent");
+        }
+        Conversation conversation = conversationRepository.getReferenceById(conversationId);
+        Message message = objectMapper.mapMessageRequestToMessage(request, sender, conversation);
+        message.setId(ids.nextId());
+        return message;
+    }
+
+    private void runFlusher() {
+        List<Unflushed> batch = new ArrayList<>(maxBatchSize);
+        while (running || !unflushed.isEmpty()) {
+            try {
+                Unflushed first = unflushed.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                unflushed.drainTo(batch, maxBatchSize - 1);
+                try {
+                    flush(batch);
+                    // A failed checkpoint is caught up by the next one
+                    journal.checkpoint(batch.getLast().end());
+                } finally {
+                    capacity.release(batch.size());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException e) {
+                log.error("Failed to write the message journal checkpoint", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Saves the batch, retrying while the database is unavailable. Messages already saved before a
+     * restart are skipped; messages the database rejects are dead-lettered.
+     */
+    private void flush(List<Unflushed> batch) throws InterruptedException {
+        while (true) {
+            try {
+                flushTime.record(() -> transactionTemplate.executeWithoutResult(status -> persist(batch)));
+                return;
+            } catch (DataIntegrityViolationException e) {
+                if (batch.size() == 1) {
+                    JournaledMessage message = batch.getFirst().message();
+                    try {
+                        journal.deadLetter(message.encode());
+                    } catch (IOException deadLetterError) {
+                        log.warn("Dead-lettering journaled message {} failed, retrying in {}ms: {}", message.id(), RETRY_DELAY_MILLIS, deadLetterError.getMessage());
+                        Thread.sleep(RETRY_DELAY_MILLIS);
+                        continue;
+                    }
+                    deadLetters.increment();
+                    log.error("Dead-lettered journaled message {} for conversation {}: {}", message.id(), message.conversationId(), e.getMessage());
+                    return;
+                }
+                // Isolate the message that broke the batch
+                log.warn("Batch of {} journaled messages failed, retrying individually: {}", batch.size(), e.getMessage());
+                for (Unflushed single : batch) {
+                    flush(List.of(single));
+                }
+                return;
+            } catch (RuntimeException e) {
+                log.warn("Saving {} journaled messages failed, retrying in {}ms: {}", batch.size(), RETRY_DELAY_MILLIS, e.getMessage());
+                Thread.sleep(RETRY_DELAY_MILLIS);
+            }
+        }
+    }
+
+    private void persist(List<Unflushed> batch) {
+        Set<Long> saved = new HashSet<>(messageRepository.findExistingIds(batch.stream().map(pending -> pending.message().id()).toList()));
+        List<Message> messages = batch.stream()
+                                      .map(Unflushed::message)
+                                      .filter(message -> !saved.contains(message.id()))
+                                      .map(message -> Message.builder()
+                                                             .id(message.id())
+                                                             .seq(message.seq())
+                                                             .conversation(conversationRepository.getReferenceById(message.conversationId()))
+                                                             .sender(userRepository.getReferenceById(message.senderId()))
+                                                             .type(message.type())
+                                                             .content(message.content())
+                                                             .clientMessageId(message.clientMessageId())
+                                                             .createdAt(message.createdAt())
+                                                             .build())
+                                      .toList();
+        messageRepository.saveAll(messages);
+        messageRepository.flush();
+        log.debug("Saved {} journaled messages ({} already saved)", messages.size(), saved.size());
+    }
+}
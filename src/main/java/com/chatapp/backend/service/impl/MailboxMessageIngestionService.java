@@ -0,0 +1,50 @@
+package com.chatapp.backend.service.impl;
+
+import com.chatapp.backend.dto.request.MessageRequest;
+import com.chatapp.backend.dto.response.MessageBatchResponse;
+import com.chatapp.backend.dto.response.MessageResponse;
+import com.chatapp.backend.entity.User;
+import com.chatapp.backend.service.ConversationService;
+import com.chatapp.backend.service.MessageIngestionService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Ordered ingestion, enabled with {@code application.messaging.ingestion.mode=mailbox}.
+ * <p>
+ * Like direct mode, each message is saved in its own transaction, but through the conversation's
+ * mailbox (see {@link ConversationMailboxes}) instead of the {@code @Async} pool: messages of one
+ * conversation are saved, and their futures completed, strictly in the order they arrived, so
+ * broadcasts go out in sequence order. Conversations are processed in parallel on virtual threads.
+ */
+@Service
+@ConditionalOnProperty(name = "application.messaging.ingestion.mode", havingValue = "mailbox")
+@RequiredArgsConstructor
+public class MailboxMessageIngestionService implements MessageIngestionService {
+
+    private final ConversationService conversationService;
+    private final ConversationMailboxes mailboxes;
+    private final MessageBatchSubmitter batchSubmitter;
+
+    @Override
+    public CompletableFuture<MessageResponse> submitPrivateMessage(MessageRequest messageRequest) {
+        User sender = (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        return mailboxes.submit(messageRequest.conversationId(), () -> conversationService.savePrivateMessage(sender, messageRequest));
+    }
+
+    @Override
+    public CompletableFuture<MessageResponse> submitGroupMessage(Long conversationId, MessageRequest messageRequest) {
+        User sender = (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        return mailboxes.submit(conversationId, () -> conversationService.saveGroupMessage(sender, conversationId, messageRequest));
+    }
+
+    @Override
+    public CompletableFuture<MessageBatchResponse> submitBatch(List<MessageRequest> messageRequests) {
+        return batchSubmitter.submitEach(messageRequests, this);
+    }
+}
@@ -0,0 +1,94 @@
+package com.chatapp.backend.service.impl;
+
+import com.chatapp.backend.dto.request.MessageRequest;
+import com.chatapp.backend.dto.response.MessageBatchResponse;
+import com.chatapp.backend.dto.response.MessageResponse;
+import com.chatapp.backend.entity.User;
+import com.chatapp.backend.exception.ApiException;
+import com.chatapp.backend.service.MessageIngestionService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static com.chatapp.backend.exception.ErrorCode.INTERNAL_SERVER_ERROR;
+
+/**
+ * Submits the messages of a batch one by one, in list order, through an ingestion mode that owns
+ * sequence allocation and ordering (mailbox, batched, journaled), so a batch is saved the same way
+ * as single sends. Sends with a {@code clientMessageId} go through the {@link MessageDeduplicator}.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+class MessageBatchSubmitter {
+
+    private final ConversationMembershipIndex membershipIndex;
+    private final MessageDeduplicator messageDeduplicator;
+
+    CompletableFuture<MessageBatchResponse> submitEach(List<MessageRequest> messageRequests, MessageIngestionService ingestion) {
+        User sender = (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        List<CompletableFuture<MessageBatchResponse.Item>> items = new ArrayList<>(messageRequests.size());
+        for (int i = 0; i < messageRequests.size(); i++) {
+            MessageRequest request = messageRequests.get(i);
+            int index = i;
+            CompletableFuture<MessageDeduplicator.Accepted> accepted;
+            try {
+                accepted = messageDeduplicator.submit(sender.getId(), request, () -> submit(sender, request, ingestion));
+            } catch (RuntimeException e) {
+                accepted = CompletableFuture.failedFuture(e);
+            }
+            items.add(accepted.handle((result, error) -> item(index, request, result, error)));
+        }
+        return CompletableFuture.allOf(items.toArray(CompletableFuture[]::new)).thenApply(ignored -> {
+            List<MessageBatchResponse.Item> results = items.stream().map(CompletableFuture::join).toList();
+            return MessageBatchResponse.builder()
+                                       .saved(count(results, MessageBatchResponse.Status.SAVED))
+                                       .duplicates(count(results, MessageBatchResponse.Status.DUPLICATE))
+                                       .rejected(count(results, MessageBatchResponse.Status.REJECTED))
+                                       .results(results)
+                                       .build();
+        });
+    }
+
+    private CompletableFuture<MessageResponse> submit(User sender, MessageRequest request, MessageIngestionService ingestion) {
+        ConversationMembershipIndex.Membership membership = membershipIndex.get(request.conversationId());
+        if (membership.isGroup()) {
+            return ingestion.submitGroupMessage(request.conversationId(), request);
+        }
+        ConversationServiceImpl.preSavePrivateMessage(membership, request.conversationId(), sender.getId());
+        return ingestion.submitPrivateMessage(request);
+    }
+
+    private static MessageBatchResponse.Item item(int index, MessageRequest request, MessageDeduplicator.Accepted accepted, Throwable error) {
+        MessageBatchResponse.Item.ItemBuilder item = MessageBatchResponse.Item.builder()
+                                                                              .index(index)
+                                                                              .clientMessageId(request.clientMessageId());
+        if (error == null) {
+            return item.status(accepted.duplicate() ? MessageBatchResponse.Status.DUPLICATE : MessageBatchResponse.Status.SAVED)
+                       .message(accepted.response())
+                       .build();
+        }
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof ApiException e && e.getErrorCode() != INTERNAL_SERVER_ERROR) {
+            return item.status(MessageBatchResponse.Status.REJECTED)
+                       .errorCode(e.getErrorCode().getCode())
+                       .error(e.getMessage())
+                       .build();
+        }
+        log.error("Error processing message {} of batch", index, cause);
+        return item.status(MessageBatchResponse.Status.FAILED)
+                   .errorCode(INTERNAL_SERVER_ERROR.getCode())
+                   .error("Error processing message")
+                   .build();
+    }
+
+    private static int count(List<MessageBatchResponse.Item> results, MessageBatchResponse.Status status) {
+        return (int) results.stream().filter(item -> item.status() == status).count();
+    }
+}
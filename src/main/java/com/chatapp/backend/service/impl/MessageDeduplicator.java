@@ -0,0 +1,134 @@
+package com.chatapp.backend.service.impl;
+
+import com.chatapp.backend.dto.request.MessageRequest;
+import com.chatapp.backend.dto.response.MessageResponse;
+import com.chatapp.backend.service.ConversationService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Makes sends that carry a {@code clientMessageId} idempotent per sender.
+ * <p>
+ * Recent ids are kept in a window bounded by {@code max-entries} and {@code window-seconds}: a retry
+ * inside it gets the original response, waiting for it if the original is still being saved.
+ * Retries outside the window, or sent to another instance, hit the unique
+ * {@code (sender_id, client_message_id)} index instead and are answered with the stored message.
+ * Journaled mode looks the stored message up before journaling a send, since the index would
+ * only reject the retry after it was acknowledged.
+ * <p>
+ * Metrics: {@code chat.ingest.duplicates}, tagged by {@code source} (window or index).
+ */
+@Component
+@Slf4j
+public class MessageDeduplicator {
+
+    public record Accepted(MessageResponse response, boolean duplicate) {
+    }
+
+    private record Key(Long senderId, String clientMessageId) {
+    }
+
+    private record Sent(CompletableFuture<Accepted> accepted, long expiresAtNanos) {
+    }
+
+    private final ConversationService conversationService;
+    private final long windowNanos;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<Key, Sent> window;
+    private final Counter windowDuplicates;
+    private final Counter indexDuplicates;
+
+    public MessageDeduplicator(ConversationService conversationService,
+                               @Value("${application.messaging.dedupe.window-seconds:600}") long windowSeconds,
+                               @Value("${application.messaging.dedupe.max-entries:100000}") int maxEntries,
+                               MeterRegistry meterRegistry) {
+        this.conversationService = conversationService;
+        this.windowNanos = TimeUnit.SECONDS.toNanos(windowSeconds);
+        // Insertion order is also expiry order
+        this.window = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Sent> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        this.windowDuplicates = Counter.builder("chat.ingest.duplicates").tag("source", "window").register(meterRegistry);
+        this.indexDuplicates = Counter.builder("chat.ingest.duplicates").tag("source", "index").register(meterRegistry);
+    }
+
+    public CompletableFuture<Accepted> submit(Long senderId, MessageRequest request, Supplier<CompletableFuture<MessageResponse>> send) {
+        if (request.clientMessageId() == null) {
+            return send.get().thenApply(response -> new Accepted(response, false));
+        }
+        Key key = new Key(senderId, request.clientMessageId());
+        Sent sent = new Sent(new CompletableFuture<>(), System.nanoTime() + windowNanos);
+        Sent original;
+        lock.lock();
+        try {
+            evictExpired(System.nanoTime());
+            original = window.putIfAbsent(key, sent);
+        } finally {
+            lock.unlock();
+        }
+        if (original != null) {
+            windowDuplicates.increment();
+            log.info("Duplicate send {} from user {}, answering with the original message", key.clientMessageId(), senderId);
+            return original.accepted().thenApply(accepted -> new Accepted(accepted.response(), true));
+        }
+
+        CompletableFuture<MessageResponse> response;
+        try {
+            response = send.get();
+        } catch (RuntimeException e) {
+            response = CompletableFuture.failedFuture(e);
+        }
+        response.thenApply(saved -> new Accepted(saved, false))
+                .exceptionallyCompose(error -> conversationService.findMessageByClientMessageId(senderId, key.clientMessageId())
+                                                                  .thenApply(stored -> new Accepted(stored.orElseThrow(() -> asCompletionException(error)), true)))
+                .whenComplete((accepted, error) -> {
+                    if (error != null) {
+                        // Let a retry try again
+                        forget(key, sent);
+                        sent.accepted().completeExceptionally(error);
+                        return;
+                    }
+                    if (accepted.duplicate()) {
+                        indexDuplicates.increment();
+                        log.info("Duplicate send {} from user {} matched a stored message", key.clientMessageId(), senderId);
+                    }
+                    sent.accepted().complete(accepted);
+                });
+        return sent.accepted();
+    }
+
+    private void forget(Key key, Sent sent) {
+        lock.lock();
+        try {
+            window.remove(key, sent);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void evictExpired(long now) {
+        Iterator<Sent> iterator = window.values().iterator();
+        while (iterator.hasNext() && iterator.next().expiresAtNanos() - now < 0) {
+            iterator.remove();
+        }
+    }
+
+    private static CompletionException asCompletionException(Throwable error) {
+        return error instanceof CompletionException completion ? completion : new CompletionException(error);
+    }
+}
@@ -0,0 +1,349 @@
+package com.chatapp.backend.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntConsumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only local journal in fixed-size, memory-mapped segment files.
+ * <p>
+ * Each record is its length, the CRC32C of its payload and the payload. A zero length marks the
+ * end of the written data and {@value #ROLLED} the end of a segment that was rolled over. One sync
+ * thread forces everything written since its previous pass, so concurrent appends share a single
+ * fsync (group commit). The checkpoint file holds the position up to which records are known to be
+ * saved elsewhere; segments before it are deleted. Records that can never be saved are copied to
+ * the dead-letter file, in the same record format, before the checkpoint moves past them.
+ */
+@Slf4j
+class MessageJournal implements Closeable {
+
+    record Position(long segment, int offset) {
+    }
+
+    record Entry(byte[] payload, Position end) {
+    }
+
+    record Appended(Position end, CompletableFuture<Void> durable) {
+    }
+
+    private static final int HEADER_BYTES = 8;
+    private static final int ROLLED = -1;
+    private static final String SEGMENT_SUFFIX = ".journal";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+    private static final String DEAD_LETTER_FILE = "dead-letters";
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final boolean fsync;
+    private final IntConsumer syncListener;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition appended = lock.newCondition();
+    private List<CompletableFuture<Void>> unsynced = new ArrayList<>();
+    private long segment;
+    private MappedByteBuffer buffer;
+    private int syncedOffset;
+    private long checkpointSegment;
+    private boolean closed;
+    private Thread syncer;
+
+    MessageJournal(Path directory, int segmentBytes, boolean fsync, IntConsumer syncListener) {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.fsync = fsync;
+        this.syncListener = syncListener;
+    }
+
+    /**
+     * Reads the records written after the checkpoint, in order. A torn or corrupt record ends the
+     * replay; new records go to a fresh segment.
+     */
+    List<Entry> open() throws IOException {
+        Files.createDirectories(directory);
+        Position checkpoint = readCheckpoint();
+        checkpointSegment = checkpoint.segment();
+        List<Entry> entries = new ArrayList<>();
+        long lastSegment = checkpoint.segment() - 1;
+        for (long index : segmentIndexes()) {
+            lastSegment = Math.max(lastSegment, index);
+            if (index >= checkpoint.segment()) {
+                readSegment(index, index == checkpoint.segment() ? checkpoint.offset() : 0, entries);
+            }
+        }
+        segment = lastSegment + 1;
+        buffer = map(segment);
+        syncedOffset = 0;
+        openDeadLetters();
+        return entries;
+    }
+
+    /**
+     * Starts accepting appends. Everything replayed by {@link #open()} must have been saved by now.
+     */
+    void start() throws IOException {
+        checkpoint(new Position(segment, 0));
+        syncer = Thread.ofPlatform().name("message-journal-sync").daemon().start(this::runSyncer);
+    }
+
+    Appended append(byte[] payload) {
+        int recordBytes = HEADER_BYTES + payload.length;
+        if (recordBytes > segmentBytes - Integer.BYTES) {
+            throw new IllegalArgumentException("Journal record of " + payload.length + " bytes does not fit in a segment");
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+        CompletableFuture<Void> durable = new CompletableFuture<>();
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Message journal is closed");
+            }
+            if (buffer.remaining() < recordBytes + Integer.BYTES) {
+                roll();
+            }
+            buffer.putInt(payload.length).putInt((int) crc.getValue()).put(payload);
+            unsynced.add(durable);
+            appended.signal();
+            return new Appended(new Position(segment, buffer.position()), durable);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Records that everything up to the position is saved and deletes the segments before it.
+     * The checkpoint itself is not forced: replaying records that were already saved is harmless.
+     */
+    void checkpoint(Position position) throws IOException {
+        Path temp = directory.resolve(CHECKPOINT_FILE + ".tmp");
+        Files.write(temp, ByteBuffer.allocate(Long.BYTES + Integer.BYTES)
+                                    .putLong(position.segment())
+                                    .putInt(position.offset())
+                                    .array());
+        Files.move(temp, directory.resolve(CHECKPOINT_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        if (position.segment() > checkpointSegment) {
+            for (long index : segmentIndexes()) {
+                if (index < position.segment()) {
+                    Files.deleteIfExists(segmentPath(index));
+                }
+            }
+            checkpointSegment = position.segment();
+        }
+    }
+
+    /**
+     * Appends a record that can never be saved to the dead-letter file and forces it, so the
+     * checkpoint can move past the record without losing it.
+     */
+    void deadLetter(byte[] payload) throws IOException {
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+        Path file = directory.resolve(DEAD_LETTER_FILE);
+        boolean created = !Files.exists(file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + payload.length)
+                                          .putInt(payload.length)
+                                          .putInt((int) crc.getValue())
+                                          .put(payload)
+                                          .flip();
+            while (record.hasRemaining()) {
+                channel.write(record);
+            }
+            channel.force(false);
+        }
+        if (created) {
+            syncDirectory();
+        }
+    }
+
+    // Payloads in the dead-letter file, oldest first
+    List<byte[]> deadLetters() throws IOException {
+        return readDeadLetters().stream().map(Entry::payload).toList();
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            appended.signal();
+        } finally {
+            lock.unlock();
+        }
+        if (syncer != null) {
+            try {
+                syncer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void runSyncer() {
+        while (true) {
+            List<CompletableFuture<Void>> batch;
+            MappedByteBuffer target;
+            int from;
+            int to;
+            lock.lock();
+            try {
+                while (unsynced.isEmpty() && !closed) {
+                    appended.awaitUninterruptibly();
+                }
+                if (unsynced.isEmpty()) {
+                    return;
+                }
+                batch = unsynced;
+                unsynced = new ArrayList<>();
+                target = buffer;
+                from = syncedOffset;
+                to = buffer.position();
+                syncedOffset = to;
+            } finally {
+                lock.unlock();
+            }
+            try {
+                if (fsync && to > from) {
+                    target.force(from, to - from);
+                }
+                batch.forEach(durable -> durable.complete(null));
+                syncListener.accept(batch.size());
+            } catch (UncheckedIOException e) {
+                log.error("Failed to sync the message journal", e);
+                batch.forEach(durable -> durable.completeExceptionally(e));
+            }
+        }
+    }
+
+    // Called with the lock held; the rolled segment is forced before appends move on
+    private void roll() {
+        if (buffer.remaining() >= Integer.BYTES) {
+            buffer.putInt(ROLLED);
+        }
+        if (fsync) {
+            buffer.force(syncedOffset, buffer.position() - syncedOffset);
+        }
+        try {
+            buffer = map(++segment);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create journal segment " + segment, e);
+        }
+        syncedOffset = 0;
+        log.debug("Rolled message journal to segment {}", segment);
+    }
+
+    private void readSegment(long index, int startOffset, List<Entry> entries) throws IOException {
+        ByteBuffer data;
+        try (FileChannel channel = FileChannel.open(segmentPath(index), StandardOpenOption.READ)) {
+            data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        data.position(startOffset);
+        readRecords(data, index, "journal segment " + index, entries);
+    }
+
+    private List<Entry> readDeadLetters() throws IOException {
+        Path file = directory.resolve(DEAD_LETTER_FILE);
+        List<Entry> entries = new ArrayList<>();
+        if (Files.exists(file)) {
+            readRecords(ByteBuffer.wrap(Files.readAllBytes(file)), 0, DEAD_LETTER_FILE, entries);
+        }
+        return entries;
+    }
+
+    // Cuts a record torn by a crash off the dead-letter file, so later records are not appended behind it
+    private void openDeadLetters() throws IOException {
+        Path file = directory.resolve(DEAD_LETTER_FILE);
+        if (!Files.exists(file)) {
+            return;
+        }
+        List<Entry> entries = readDeadLetters();
+        int valid = entries.isEmpty() ? 0 : entries.getLast().end().offset();
+        if (Files.size(file) > valid) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.truncate(valid);
+                channel.force(false);
+            }
+        }
+        log.warn("{} dead-lettered journal records in {}", entries.size(), file.toAbsolutePath());
+    }
+
+    private static void readRecords(ByteBuffer data, long index, String source, List<Entry> entries) {
+        while (data.remaining() >= HEADER_BYTES) {
+            int length = data.getInt();
+            if (length == 0 || length == ROLLED) {
+                return;
+            }
+            int checksum = data.getInt();
+            if (length < 0 || length > data.remaining()) {
+                log.warn("Torn record at offset {} of {}, ignoring the rest", data.position() - HEADER_BYTES, source);
+                return;
+            }
+            byte[] payload = new byte[length];
+            data.get(payload);
+            CRC32C crc = new CRC32C();
+            crc.update(payload);
+            if ((int) crc.getValue() != checksum) {
+                log.warn("Corrupt record at offset {} of {}, ignoring the rest", data.position() - length - HEADER_BYTES, source);
+                return;
+            }
+            entries.add(new Entry(payload, new Position(index, data.position())));
+        }
+    }
+
+    private MappedByteBuffer map(long index) throws IOException {
+        MappedByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(segmentPath(index), StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        }
+        // Forcing the segment's data does not persist its directory entry
+        syncDirectory();
+        return mapped;
+    }
+
+    private void syncDirectory() throws IOException {
+        if (fsync) {
+            try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+                channel.force(true);
+            }
+        }
+    }
+
+    private Position readCheckpoint() throws IOException {
+        Path file = directory.resolve(CHECKPOINT_FILE);
+        if (!Files.exists(file)) {
+            return new Position(0, 0);
+        }
+        ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(file));
+        return new Position(data.getLong(), data.getInt());
+    }
+
+    private List<Long> segmentIndexes() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                        .filter(name -> name.endsWith(SEGMENT_SUFFIX))
+                        .map(name -> Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())))
+                        .sorted()
+                        .toList();
+        }
+    }
+
+    private Path segmentPath(long index) {
+        return directory.resolve("%020d%s".formatted(index, SEGMENT_SUFFIX));
+    }
+}
@@ -0,0 +1,136 @@
+package com.chatapp.backend.service.impl;
+
+import com.chatapp.backend.repository.MessageRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Allocates the per-conversation message sequence numbers from in-memory counters, each seeded
+ * with the highest sequence stored for its conversation.
+ * <p>
+ * The unique {@code (conversation_id, seq)} constraint keeps numbers unique when several instances
+ * write to the same conversation: the losing insert fails, the counter is {@link #reset} so the
+ * next allocation reseeds from the database, and {@link #save} retries the insert. When
+ * {@link #save} is the only writer of a conversation (mailbox mode), any failed attempt resets the
+ * counter, so the number it took is handed out again; in direct mode the number of a failed insert
+ * is not reused, which leaves a gap in the sequence.
+ * <p>
+ * Counters unused for {@code idle-seconds} are dropped and reseeded on next use.
+ * <p>
+ * Numbers are allocated in order, but only committed in order when one writer saves a
+ * conversation's messages at a time (the mailbox, batched and journaled ingestion modes). Writers
+ * racing on the same conversation, as in direct mode, can commit {@code n + 1} before {@code n},
+ * so a client syncing after {@code n + 1} in between misses {@code n}.
+ */
+@Component
+@Slf4j
+class MessageSequencer {
+
+    private static final String SEQUENCE_CONSTRAINT = "uk_message_conversation_seq";
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final MessageRepository messageRepository;
+    private final TransactionTemplate newTransactionTemplate;
+    private final Map<Long, Counter> counters = new ConcurrentHashMap<>();
+    private final boolean singleWriter;
+    private final long idleNanos;
+
+    private static final class Counter {
+        private final AtomicLong seq;
+        private volatile long lastUsedNanos;
+
+        private Counter(long seq) {
+            this.seq = new AtomicLong(seq);
+        }
+    }
+
+    MessageSequencer(MessageRepository messageRepository, PlatformTransactionManager transactionManager,
+                     @Value("${application.messaging.ingestion.mode:direct}") String ingestionMode,
+                     @Value("${application.messaging.sequence.idle-seconds:600}") long idleSeconds) {
+        this.messageRepository = messageRepository;
+        this.newTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.newTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        // Only direct and mailbox modes save through save(); batched and journaled modes reset their own counters
+        this.singleWriter = "mailbox".equals(ingestionMode);
+        this.idleNanos = TimeUnit.SECONDS.toNanos(idleSeconds);
+    }
+
+    long next(Long conversationId) {
+        Counter counter = counters.get(conversationId);
+        if (counter == null) {
+            // Seeded outside the map, so the query does not block other conversations' counters
+            Counter seeded = new Counter(messageRepository.findMaxSeq(conversationId));
+            Counter existing = counters.putIfAbsent(conversationId, seeded);
+            counter = existing != null ? existing : seeded;
+        }
+        counter.lastUsedNanos = System.nanoTime();
+        return counter.seq.incrementAndGet();
+    }
+
+    void reset(Long conversationId) {
+        if (counters.remove(conversationId) != null) {
+            log.debug("Reset message sequence counter for conversation {}", conversationId);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${application.messaging.sequence.sweep-millis:60000}")
+    void evictIdle() {
+        long now = System.nanoTime();
+        counters.values().removeIf(counter -> now - counter.lastUsedNanos > idleNanos);
+    }
+
+    /**
+     * Runs {@code insert}, which allocates a number with {@link #next} and flushes the message, in
+     * a new transaction. When another instance took the number first, the counter is reseeded and
+     * the insert retried in a fresh transaction, up to {@value #MAX_ATTEMPTS} attempts.
+     */
+    <T> T save(Long conversationId, Supplier<T> insert) {
+        return save(List.of(conversationId), insert);
+    }
+
+    // For inserts into several conversations, which are all reseeded on a conflict
+    <T> T save(Collection<Long> conversationIds, Supplier<T> insert) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return newTransactionTemplate.execute(status -> insert.get());
+            } catch (DataIntegrityViolationException e) {
+                if (!isSequenceConflict(e) || attempt == MAX_ATTEMPTS) {
+                    resetIfSingleWriter(conversationIds);
+                    throw e;
+                }
+                log.warn("Sequence conflict in conversations {}, reseeding (attempt {} of {})", conversationIds, attempt, MAX_ATTEMPTS);
+                conversationIds.forEach(this::reset);
+            } catch (RuntimeException e) {
+                resetIfSingleWriter(conversationIds);
+                throw e;
+            }
+        }
+    }
+
+    // Nothing else allocates for these conversations meanwhile, so the database holds every number still in use
+    private void resetIfSingleWriter(Collection<Long> conversationIds) {
+        if (singleWriter) {
+            conversationIds.forEach(this::reset);
+        }
+    }
+
+    static boolean isSequenceConflict(DataIntegrityViolationException e) {
+        String message = e.getMostSpecificCause().getMessage();
+        return message != null && message.toLowerCase(Locale.ROOT).contains(SEQUENCE_CONSTRAINT);
+    }
+}
@@ -0,0 +1,141 @@
+package com.chatapp.backend.service.impl;
+
+import com.chatapp.backend.exception.ApiException;
+import com.chatapp.backend.repository.ConversationReadStateRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Unread message counts per user and conversation, so inbox badges are one map read instead of a
+ * GROUP BY over every unread message of the user.
+ * <p>
+ * A user's counts are loaded from the database on first read and then kept up to date in memory:
+ * every sent message increments the counts of the other members that are loaded, and a read
+ * acknowledgement sets the reader's count to what is left above the new read watermark. Counts
+ * are reloaded once older than {@code reconcile-seconds}, which corrects drift from sends that
+ * race a load, sends through other instances and deleted conversations.
+ * <p>
+ * Metrics: {@code chat.unread.loads}, {@code chat.unread.users}.
+ */
+@Component
+@Slf4j
+public class UnreadCounterStore {
+
+    private record UserCounts(Map<Long, AtomicLong> unread, long loadedAtNanos) {
+    }
+
+    private final ConversationReadStateRepository readStateRepository;
+    private final ConversationMembershipIndex membershipIndex;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final Map<Long, UserCounts> users = new ConcurrentHashMap<>();
+    private final long reconcileNanos;
+    private final int maxUsers;
+    private final Counter loads;
+
+    public UnreadCounterStore(ConversationReadStateRepository readStateRepository,
+                              ConversationMembershipIndex membershipIndex,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${application.messaging.unread.reconcile-seconds:300}") long reconcileSeconds,
+                              @Value("${application.messaging.unread.max-users:100000}") int maxUsers,
+                              MeterRegistry meterRegistry) {
+        this.readStateRepository = readStateRepository;
+        this.membershipIndex = membershipIndex;
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.reconcileNanos = TimeUnit.SECONDS.toNanos(reconcileSeconds);
+        this.maxUsers = maxUsers;
+        this.loads = Counter.builder("chat.unread.loads").register(meterRegistry);
+        Gauge.builder("chat.unread.users", users, Map::size).register(meterRegistry);
+    }
+
+    /**
+     * Counts a saved message as unread for every member but the sender. Users whose counts are not
+     * loaded are skipped; their next read loads the message from the database.
+     */
+    public void recordMessage(Long conversationId, Long senderId) {
+        long[] memberIds;
+        try {
+            memberIds = membershipIndex.get(conversationId).memberIds();
+        } catch (ApiException e) {
+            // Deleted since the message was saved
+            return;
+        }
+        for (long memberId : memberIds) {
+            UserCounts counts = memberId == senderId ? null : users.get(memberId);
+            if (counts != null) {
+                counts.unread().computeIfAbsent(conversationId, id -> new AtomicLong()).incrementAndGet();
+            }
+        }
+    }
+
+    // After a read acknowledgement or leaving the conversation
+    public void set(Long userId, Long conversationId, long unread) {
+        UserCounts counts = users.get(userId);
+        if (counts == null) {
+            return;
+        }
+        if (unread > 0) {
+            counts.unread().computeIfAbsent(conversationId, id -> new AtomicLong()).set(unread);
+        } else {
+            counts.unread().remove(conversationId);
+        }
+    }
+
+    /**
+     * Conversation id to unread count for the user, conversations without unread messages left out.
+     */
+    public Map<Long, Long> getAll(Long userId) {
+        UserCounts counts = users.get(userId);
+        if (counts == null || System.nanoTime() - counts.loadedAtNanos() > reconcileNanos) {
+            counts = load(userId);
+        }
+        Map<Long, Long> result = new HashMap<>();
+        counts.unread().forEach((conversationId, unread) -> {
+            if (unread.get() > 0) {
+                result.put(conversationId, unread.get());
+            }
+        });
+        return result;
+    }
+
+    // Drops counts due for reconciliation, so users who stopped reading do not keep them in memory
+    @Scheduled(fixedDelayString = "${application.messaging.unread.sweep-millis:60000}")
+    public void evictStale() {
+        long now = System.nanoTime();
+        users.values().removeIf(counts -> now - counts.loadedAtNanos() > reconcileNanos);
+    }
+
+    private UserCounts load(Long userId) {
+        Map<Long, AtomicLong> unread = new ConcurrentHashMap<>();
+        readOnlyTransactionTemplate.executeWithoutResult(status ->
+                readStateRepository.countUnreadMessagesPerConversation(userId)
+                                   .forEach(count -> unread.put(count.getConversationId(), new AtomicLong(count.getUnreadCount()))));
+        loads.increment();
+        if (users.size() >= maxUsers) {
+            // Any entry will do; evicted users are simply loaded again
+            Iterator<Long> iterator = users.keySet().iterator();
+            if (iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+            }
+        }
+        UserCounts counts = new UserCounts(unread, System.nanoTime());
+        users.put(userId, counts);
+        log.debug("Loaded unread counts of {} conversations for user {}", unread.size(), userId);
+        return counts;
+    }
+}
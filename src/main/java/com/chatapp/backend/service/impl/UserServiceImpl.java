@@ -1,6 +1,7 @@
 package com.chatapp.backend.service.impl;
 
 import com.chatapp.backend.config.jwt.JwtService;
+import com.chatapp.backend.config.jwt.TokenRevocationRegistry;
 import com.chatapp.backend.dto.request.SignInRequest;
 import com.chatapp.backend.dto.request.SignUpRequest;
 import com.chatapp.backend.dto.request.UserPreferenceRequest;
@@ -19,6 +20,7 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -44,6 +46,7 @@ public class UserServiceImpl implements UserService {
     private final ObjectMapper objectMapper;
     private final JwtService jwtService;
     private final AuthenticationManager authenticationManager;
+    private final ObjectProvider<TokenRevocationRegistry> revocationRegistry;
 
     @Override
     @Transactional
@@ -145,8 +148,9 @@ public class UserServiceImpl implements UserService {
     @Transactional
     public UserPreferenceResponse updatePreferences(UserPreferenceRequest request) {
 
-        User user = (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-        log.info("Updating preferences for username: {}", user.getUsername());
+        User principal = (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        log.info("Updating preferences for username: {}", principal.getUsername());
+        User user = principal.isClaimsOnly() ? getUserByUsernameOrThrow(principal.getUsername()) : principal;
 
         UserPreferences preferences = objectMapper.mapUserPreferenceRequestToUserPreferences(request, user.getPreferences());
         user.setPreferences(preferences);
@@ -185,6 +189,8 @@ public class UserServiceImpl implements UserService {
     @Transactional
     public void logout() {
         User user = (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-        userRepository.updateRefreshToken(user.getId(), null);
+        Instant loggedOutAt = Instant.now();
+        userRepository.revokeTokens(user.getId(), loggedOutAt);
+        revocationRegistry.ifAvailable(registry -> registry.revokeTokensIssuedBefore(user.getId(), loggedOutAt));
     }
 }
\ No newline at end of file
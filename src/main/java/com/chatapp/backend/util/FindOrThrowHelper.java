@@ -35,6 +35,13 @@ public class FindOrThrowHelper {
         });
     }
 
+    /**
+     * Returns the principal itself, or loads the full user when the principal was built from token claims only.
+     */
+    public User findManagedUserOrThrow(User principal) {
+        return principal.isClaimsOnly() ? findUserOrThrow(principal.getUsername()) : principal;
+    }
+
     public Conversation findConversationOrThrow(Long conversationId) {
         return conversationRepository.findById(conversationId).orElseThrow(() -> {
             log.warn("Conversation not found: {}", conversationId);
@@ -0,0 +1,45 @@
+package com.chatapp.backend.util;
+
+import com.chatapp.backend.dto.response.MessageResponse;
+import com.chatapp.backend.exception.ApiException;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.util.Base64;
+
+import static com.chatapp.backend.exception.ErrorCode.BAD_REQUEST;
+
+/**
+ * Position in a conversation's history, ordered by {@code (createdAt, id)}. Clients receive it as an
+ * opaque URL-safe token and hand it back unchanged to continue from the message it was taken from.
+ */
+public record MessageCursor(Instant createdAt, Long id) {
+
+    private static final int LENGTH = Long.BYTES + Integer.BYTES + Long.BYTES;
+
+    public static MessageCursor of(MessageResponse message) {
+        return new MessageCursor(message.createdAt(), message.id());
+    }
+
+    public static MessageCursor decode(String token) {
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(Base64.getUrlDecoder().decode(token));
+            if (buffer.remaining() != LENGTH) {
+                throw new IllegalArgumentException("Unexpected length " + buffer.remaining());
+            }
+            return new MessageCursor(Instant.ofEpochSecond(buffer.getLong(), buffer.getInt()), buffer.getLong());
+        } catch (IllegalArgumentException | BufferUnderflowException | DateTimeException e) {
+            throw new ApiException(BAD_REQUEST, "Invalid cursor");
+        }
+    }
+
+    public String encode() {
+        ByteBuffer buffer = ByteBuffer.allocate(LENGTH)
+                                      .putLong(createdAt.getEpochSecond())
+                                      .putInt(createdAt.getNano())
+                                      .putLong(id);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+}
@@ -4,21 +4,27 @@ import com.chatapp.backend.dto.request.*;
 import com.chatapp.backend.dto.response.*;
 import com.chatapp.backend.entity.*;
 import com.chatapp.backend.entity.enums.MediaType;
+import com.chatapp.backend.repository.ConversationRepository.ConversationSummary;
+import com.chatapp.backend.repository.UserRepository.UserPreview;
 import jakarta.validation.constraints.NotNull;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
 
 import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 
 import static com.chatapp.backend.entity.enums.ConversationType.GROUP;
-import static com.chatapp.backend.entity.enums.MessageStatus.NOT_SENT;
+import static com.chatapp.backend.entity.enums.MessageType.TEXT;
 import static com.chatapp.backend.entity.enums.UserStatus.OFFLINE;
 
 @Component
 public class ObjectMapper {
+    private static final int LAST_MESSAGE_PREVIEW_LENGTH = 120;
+
     private final PasswordEncoder passwordEncoder;
 
     public ObjectMapper(@NotNull PasswordEncoder passwordEncoder) {
@@ -79,7 +85,7 @@ public class ObjectMapper {
     // Conversation Mappings
     //---------------------------------------------------------------------------------------------
 
-    public PrivateConversationResponse mapConversationToPrivateConversationResponse(Conversation conversation) {
+    public PrivateConversationResponse mapConversationToPrivateConversationResponse(Conversation conversation, MessageResponse lastMessage) {
         return PrivateConversationResponse.builder()
                                           .conversationId(conversation.getId())
                                           // TODO:  This is a hack, fix it later when spring security is added by fetching loggedin user username
@@ -89,19 +95,19 @@ public class ObjectMapper {
                                                                                                           .equals("LoggedInUserUserName"))
                                                                                      .toList()
                                                                                      .getFirst()))
-                                          .lastMessage(mapMessageToMessageResponse(conversation.getLastMessage()))
+                                          .lastMessage(lastMessage)
                                           .createdAt(conversation.getCreatedAt())
                                           .updatedAt(conversation.getUpdatedAt())
                                           .build();
     }
 
-    public GroupConversationResponse mapConversationToGroupConversationResponse(Conversation conversation) {
+    public GroupConversationResponse mapConversationToGroupConversationResponse(Conversation conversation, MessageResponse lastMessage) {
         GroupSettings groupSettings = conversation.getGroupSettings();
         return GroupConversationResponse.builder()
                                         .conversationId(conversation.getId())
                                         .participants(mapUsersToUserResponses(conversation.getParticipants()))
                                         .participantCount(conversation.getParticipantCount())
-                                        .lastMessage(mapMessageToMessageResponse(conversation.getLastMessage()))
+                                        .lastMessage(lastMessage)
                                         .createdAt(conversation.getCreatedAt())
                                         .updatedAt(conversation.getUpdatedAt())
                                         .groupName(groupSettings.getName())
@@ -115,7 +121,7 @@ public class ObjectMapper {
                                         .build();
     }
 
-    public ConversationResponse mapConversationToConversationResponse(Conversation conversation) {
+    public ConversationResponse mapConversationToConversationResponse(Conversation conversation, MessageResponse lastMessage) {
         return ConversationResponse.builder()
                                    .conversationId(conversation.getId())
                                    // TODO:  This is a hack, fix it later when spring security is added by fetching loggedin user username
@@ -125,12 +131,54 @@ public class ObjectMapper {
                                                                                                    .equals("LoggedInUserUserName"))
                                                                               .toList()
                                                                               .getFirst()))
-                                   .lastMessage(mapMessageToMessageResponse(conversation.getLastMessage()))
+                                   .lastMessage(lastMessage)
                                    .createdAt(conversation.getCreatedAt())
                                    .updatedAt(conversation.getUpdatedAt())
                                    .build();
     }
 
+    public ConversationSummaryResponse mapConversationSummaryToConversationSummaryResponse(ConversationSummary summary,
+                                                                                          List<UserPreview> participants,
+                                                                                          MessageResponse lastMessage,
+                                                                                          long unreadCount) {
+        List<ConversationSummaryResponse.Participant> previews = participants.stream()
+                                                                             .map(participant -> ConversationSummaryResponse.Participant.builder()
+                                                                                                                                        .id(participant.getId())
+                                                                                                                                        .username(participant.getUsername())
+                                                                                                                                        .displayName(participant.getDisplayName())
+                                                                                                                                        .build())
+                                                                             .toList();
+        String title = summary.getType() == GROUP || previews.isEmpty() ? summary.getGroupName() : previews.getFirst().displayName();
+        return ConversationSummaryResponse.builder()
+                                          .conversationId(summary.getId())
+                                          .type(summary.getType())
+                                          .title(title)
+                                          .participantCount(summary.getParticipantCount())
+                                          .participantPreviews(previews)
+                                          .lastMessage(mapMessageResponseToLastMessage(lastMessage))
+                                          .unreadCount(unreadCount)
+                                          .createdAt(summary.getCreatedAt())
+                                          .updatedAt(summary.getUpdatedAt())
+                                          .build();
+    }
+
+    // Only what a list row shows: no media, no reactions, and the start of the content
+    private ConversationSummaryResponse.LastMessage mapMessageResponseToLastMessage(MessageResponse message) {
+        if (message == null) {
+            return null;
+        }
+        String content = message.content();
+        return ConversationSummaryResponse.LastMessage.builder()
+                                                      .id(message.id())
+                                                      .seq(message.seq())
+                                                      .senderUsername(message.senderUsername())
+                                                      .senderDisplayName(message.senderDisplayName())
+                                                      .content(content != null && content.length() > LAST_MESSAGE_PREVIEW_LENGTH ? content.substring(0, LAST_MESSAGE_PREVIEW_LENGTH) : content)
+                                                      .type(message.type())
+                                                      .createdAt(message.createdAt())
+                                                      .build();
+    }
+
     public GroupSettings mapGroupSettingsRequestToGroupSettings(GroupSettingsRequest request, Conversation conversation, User creator, Set<User> admins) {
         return GroupSettings.builder()
                             .conversation(conversation)
@@ -176,24 +224,15 @@ public class ObjectMapper {
     //---------------------------------------------------------------------------------------------
 
     public Message mapMessageRequestToMessage(MessageRequest request, User sender, Conversation conversation) {
-        Message message = Message.builder()
-                                 .content(request.content())
-                                 .sender(sender)
-                                 .deliveryStatuses(conversation.getParticipants()
-                                                               .stream()
-                                                               .filter(user -> !user.getUsername()
-                                                                                    .equals("LOGGED_IN_USER"))//TODO : Replace with authenticated user from spring context once implemented Spring security
-                                                               .map(user -> MessageDeliveryStatus.builder()
-                                                                                                 .recipient(user)
-                                                                                                 .status(NOT_SENT)
-                                                                                                 .statusTimestamp(Instant.now())
-                                                                                                 .build())
-                                                               .collect(Collectors.toSet()))
-                                 .conversation(conversation)
-                                 .build();
-
-        message.initializeDeliveryStatus(conversation.getParticipants());
-        return message;
+        return Message.builder()
+                      .content(request.content())
+                      .clientMessageId(request.clientMessageId())
+                      .sender(sender)
+                      .conversation(conversation)
+                      .type(Optional.ofNullable(request.type()).orElse(TEXT))
+                      // At the database's precision, so the response and history cursors match the stored row
+                      .createdAt(Instant.now().truncatedTo(ChronoUnit.MICROS))
+                      .build();
     }
 
     public MessageResponse mapMessageToMessageResponse(Message message) {
@@ -204,6 +243,8 @@ public class ObjectMapper {
         return MessageResponse.builder()
                               .id(message.getId())
                               .conversationId(message.getConversation().getId())
+                              .seq(message.getSeq())
+                              .clientMessageId(message.getClientMessageId())
                               .senderUsername(message.getSender().getUsername())
                               .senderDisplayName(message.getSender().getDisplayName())
                               .content(message.getContent())
@@ -212,10 +253,6 @@ public class ObjectMapper {
                               .reactions(mapReactionsToReactionResponses(message.getReactions()))
                               .createdAt(message.getCreatedAt())
                               .editedAt(message.getEditedAt())
-                              .deliveryStatus(message.getDeliveryStatuses()
-                                                     .stream()
-                                                     .map(this::mapMessageDeliveryStatusToMessageDeliveryStatusResponse)
-                                                     .collect(Collectors.toSet()))
                               .build();
     }
 
@@ -276,12 +313,23 @@ public class ObjectMapper {
     // Delivery Status Mapping
     //---------------------------------------------------------------------------------------------
 
-    public MessageDeliveryStatusResponse mapMessageDeliveryStatusToMessageDeliveryStatusResponse(MessageDeliveryStatus deliveryStatus) {
+    public MessageDeliveryStatusResponse mapReadStateToMessageDeliveryStatusResponse(ConversationReadState readState, Message message) {
+        long seq = Optional.ofNullable(message.getSeq()).orElse(0L);
         return MessageDeliveryStatusResponse.builder()
-                                            .messageDeliveryStatusId(deliveryStatus.getId())
-                                            .statusTimestamp(deliveryStatus.getStatusTimestamp())
-                                            .recipient(mapUserToUserResponse(deliveryStatus.getRecipient()))
-                                            .status(deliveryStatus.getStatus())
+                                            .messageId(message.getId())
+                                            .statusTimestamp(readState.statusTimestampOf(seq))
+                                            .recipient(mapUserToUserResponse(readState.getUser()))
+                                            .status(readState.statusOf(seq))
                                             .build();
     }
+
+    public ReadStateResponse mapReadStateToReadStateResponse(ConversationReadState readState) {
+        return ReadStateResponse.builder()
+                                .username(readState.getUser().getUsername())
+                                .deliveredSeq(readState.getDeliveredSeq())
+                                .readSeq(readState.getReadSeq())
+                                .deliveredAt(readState.getDeliveredAt())
+                                .readAt(readState.getReadAt())
+                                .build();
+    }
 }
@@ -0,0 +1,237 @@
+package com.chatapp.backend.util;
+
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.UnaryOperator;
+
+/**
+ * Concurrent map keyed by a primitive {@code long} (conversation ids, user ids).
+ * <p>
+ * The key space is split over a fixed number of stripes, each one an open-addressing
+ * table guarded by its own {@link StampedLock}. Reads are optimistic and never block
+ * unless they race with a write on the same stripe; writes only contend with other
+ * writes that hash to the same stripe. Keys are never boxed.
+ *
+ * @param <V> value type, {@code null} values are not supported
+ */
+public class StripedLongMap<V> {
+
+    private static final int INITIAL_STRIPE_CAPACITY = 16;
+
+    private final Stripe<V>[] stripes;
+    private final int stripeMask;
+
+    @SuppressWarnings("unchecked")
+    public StripedLongMap(int stripeCount) {
+        int count = Integer.highestOneBit(Math.max(1, stripeCount - 1) << 1);
+        this.stripes = new Stripe[count];
+        this.stripeMask = count - 1;
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new Stripe<>();
+        }
+    }
+
+    public V get(long key) {
+        long hash = hash(key);
+        Stripe<V> stripe = stripeFor(hash);
+        long stamp = stripe.lock.tryOptimisticRead();
+        V value = stripe.find(key, hash);
+        if (!stripe.lock.validate(stamp)) {
+            stamp = stripe.lock.readLock();
+            try {
+                value = stripe.find(key, hash);
+            } finally {
+                stripe.lock.unlockRead(stamp);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Atomically replaces the value mapped to {@code key} with the result of {@code remapping}.
+     * The function receives {@code null} when the key is absent; returning {@code null}
+     * removes the mapping.
+     *
+     * @return the new value, or {@code null} if the mapping was removed
+     */
+    public V update(long key, UnaryOperator<V> remapping) {
+        long hash = hash(key);
+        Stripe<V> stripe = stripeFor(hash);
+        long stamp = stripe.lock.writeLock();
+        try {
+            V current = stripe.find(key, hash);
+            V next = remapping.apply(current);
+            if (next == null) {
+                if (current != null) {
+                    stripe.remove(key, hash);
+                }
+            } else if (next != current) {
+                stripe.put(key, hash, next);
+            }
+            return next;
+        } finally {
+            stripe.lock.unlockWrite(stamp);
+        }
+    }
+
+    public V remove(long key) {
+        long hash = hash(key);
+        Stripe<V> stripe = stripeFor(hash);
+        long stamp = stripe.lock.writeLock();
+        try {
+            return stripe.remove(key, hash);
+        } finally {
+            stripe.lock.unlockWrite(stamp);
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe<V> stripe : stripes) {
+            long stamp = stripe.lock.readLock();
+            try {
+                size += stripe.size;
+            } finally {
+                stripe.lock.unlockRead(stamp);
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Visits every entry, one stripe at a time under that stripe's read lock.
+     * The consumer must not write back into this map.
+     */
+    public void forEach(LongObjectConsumer<? super V> consumer) {
+        for (Stripe<V> stripe : stripes) {
+            long stamp = stripe.lock.readLock();
+            try {
+                stripe.forEach(consumer);
+            } finally {
+                stripe.lock.unlockRead(stamp);
+            }
+        }
+    }
+
+    private Stripe<V> stripeFor(long hash) {
+        return stripes[(int) (hash >>> 40) & stripeMask];
+    }
+
+    private static long hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 29);
+    }
+
+    @FunctionalInterface
+    public interface LongObjectConsumer<V> {
+        void accept(long key, V value);
+    }
+
+    private static final class Stripe<V> {
+        private final StampedLock lock = new StampedLock();
+        private long[] keys = new long[INITIAL_STRIPE_CAPACITY];
+        private Object[] values = new Object[INITIAL_STRIPE_CAPACITY];
+        private int size;
+
+        // Safe to call without a lock as long as the caller validates afterwards: the probe
+        // is bounded by the table length and both arrays are read once.
+        @SuppressWarnings("unchecked")
+        V find(long key, long hash) {
+            long[] k = keys;
+            Object[] v = values;
+            if (k.length != v.length) {
+                return null;
+            }
+            int mask = k.length - 1;
+            int index = (int) hash & mask;
+            for (int probes = 0; probes < k.length; probes++) {
+                Object value = v[index];
+                if (value == null) {
+                    return null;
+                }
+                if (k[index] == key) {
+                    return (V) value;
+                }
+                index = (index + 1) & mask;
+            }
+            return null;
+        }
+
+        void put(long key, long hash, V value) {
+            int mask = keys.length - 1;
+            int index = (int) hash & mask;
+            while (values[index] != null) {
+                if (keys[index] == key) {
+                    values[index] = value;
+                    return;
+                }
+                index = (index + 1) & mask;
+            }
+            keys[index] = key;
+            values[index] = value;
+            if (++size > (keys.length >> 1) + (keys.length >> 2)) {
+                resize();
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        V remove(long key, long hash) {
+            int mask = keys.length - 1;
+            int index = (int) hash & mask;
+            while (values[index] != null) {
+                if (keys[index] == key) {
+                    V removed = (V) values[index];
+                    shiftBack(index, mask);
+                    size--;
+                    return removed;
+                }
+                index = (index + 1) & mask;
+            }
+            return null;
+        }
+
+        // Backward-shift deletion keeps probe chains intact without tombstones.
+        private void shiftBack(int hole, int mask) {
+            int slot = (hole + 1) & mask;
+            while (values[slot] != null) {
+                int ideal = (int) hash(keys[slot]) & mask;
+                boolean movable = hole <= slot ? (ideal <= hole || ideal > slot) : (ideal <= hole && ideal > slot);
+                if (movable) {
+                    keys[hole] = keys[slot];
+                    values[hole] = values[slot];
+                    hole = slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+            values[hole] = null;
+        }
+
+        private void resize() {
+            long[] oldKeys = keys;
+            Object[] oldValues = values;
+            long[] newKeys = new long[oldKeys.length << 1];
+            Object[] newValues = new Object[oldValues.length << 1];
+            int mask = newKeys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldValues[i] != null) {
+                    int index = (int) hash(oldKeys[i]) & mask;
+                    while (newValues[index] != null) {
+                        index = (index + 1) & mask;
+                    }
+                    newKeys[index] = oldKeys[i];
+                    newValues[index] = oldValues[i];
+                }
+            }
+            keys = newKeys;
+            values = newValues;
+        }
+
+        @SuppressWarnings("unchecked")
+        void forEach(LongObjectConsumer<? super V> consumer) {
+            for (int i = 0; i < keys.length; i++) {
+                if (values[i] != null) {
+                    consumer.accept(keys[i], (V) values[i]);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.chatapp.backend;
+
+import org.springframework.boot.SpringApplication;
+
+/**
+ * Starts the application with the test classpath, which adds the load harness, the
+ * {@code embedded} profile and H2. Used by {@code mvn spring-boot:test-run}.
+ */
+public class TestChatappApplication {
+
+    public static void main(String[] args) {
+        SpringApplication.from(ChatappApplication::main).run(args);
+    }
+}
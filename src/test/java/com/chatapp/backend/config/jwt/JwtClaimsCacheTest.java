@@ -0,0 +1,49 @@
+package com.chatapp.backend.config.jwt;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JwtClaimsCacheTest {
+
+    private static final Instant NOW = Instant.parse("2024-05-01T12:00:00Z");
+
+    @Test
+    void fullCacheEvictsTheLeastRecentlyUsedToken() {
+        JwtClaimsCache cache = new JwtClaimsCache(2);
+        cache.put("a", claims("alice"));
+        cache.put("b", claims("bob"));
+        cache.get("a", NOW);
+
+        cache.put("c", claims("carol"));
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.get("a", NOW)).isEqualTo(claims("alice"));
+        assertThat(cache.get("b", NOW)).isNull();
+        assertThat(cache.get("c", NOW)).isEqualTo(claims("carol"));
+    }
+
+    @Test
+    void expiredTokensAreNotReturned() {
+        JwtClaimsCache cache = new JwtClaimsCache(2);
+        cache.put("a", claims("alice"));
+
+        assertThat(cache.get("a", NOW.plusSeconds(3600))).isNull();
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void zeroSizeDisablesCaching() {
+        JwtClaimsCache cache = new JwtClaimsCache(0);
+        cache.put("a", claims("alice"));
+
+        assertThat(cache.get("a", NOW)).isNull();
+    }
+
+    private static JwtClaims claims(String username) {
+        return new JwtClaims(username, 1L, List.of("USER"), NOW.minusSeconds(60), NOW.plusSeconds(900));
+    }
+}
@@ -0,0 +1,73 @@
+package com.chatapp.backend.config.jwt;
+
+import com.chatapp.backend.exception.ApiException;
+import com.chatapp.backend.exception.ErrorCode;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JwtServiceTest {
+
+    static final String SECRET_KEY = "F5F371295B3764BEB21E27A7C6359E86BB9C27100F888C330741BC952B20F09E";
+    static final UserDetails USER = User.withUsername("alice").password("unused").authorities("USER").build();
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void parsesEachTokenOnce() {
+        JwtService jwtService = jwtService(100, meterRegistry);
+        String token = jwtService.generateAccessToken(USER);
+
+        assertThat(jwtService.verify(token).username()).isEqualTo("alice");
+        assertThat(jwtService.verify(token).username()).isEqualTo("alice");
+        assertThat(jwtService.extractUsername(token)).isEqualTo("alice");
+
+        assertThat(meterRegistry.get("chat.jwt.parse").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("chat.jwt.cache").tag("result", "hit").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void extractUsernameTranslatesMalformedTokens() {
+        JwtService jwtService = jwtService(100, meterRegistry);
+
+        assertThatThrownBy(() -> jwtService.extractUsername("not-a-token"))
+                .isInstanceOfSatisfying(ApiException.class, e -> assertThat(e.getErrorCode()).isEqualTo(ErrorCode.JWT_MALFORMED));
+    }
+
+    @Test
+    void extractUsernameTranslatesForgedTokens() {
+        JwtService jwtService = jwtService(100, meterRegistry);
+        String token = jwtService.generateAccessToken(USER);
+        String[] parts = token.split("\\.");
+        String forged = parts[0] + "." + parts[1] + "." + new StringBuilder(parts[2]).reverse();
+
+        assertThatThrownBy(() -> jwtService.extractUsername(forged))
+                .isInstanceOfSatisfying(ApiException.class, e -> assertThat(e.getErrorCode()).isEqualTo(ErrorCode.JWT_SIGNATURE_INVALID));
+    }
+
+    @Test
+    void extractUsernameTranslatesExpiredTokens() {
+        JwtService jwtService = jwtService(100, meterRegistry);
+        ReflectionTestUtils.setField(jwtService, "accessTokenExpirationMillis", -1_000L);
+        String token = jwtService.generateAccessToken(USER);
+
+        assertThatThrownBy(() -> jwtService.extractUsername(token))
+                .isInstanceOfSatisfying(ApiException.class, e -> assertThat(e.getErrorCode()).isEqualTo(ErrorCode.JWT_EXPIRED));
+    }
+
+    static JwtService jwtService(int cacheMaxSize, MeterRegistry meterRegistry) {
+        JwtService jwtService = new JwtService(meterRegistry);
+        ReflectionTestUtils.setField(jwtService, "secretKey", SECRET_KEY);
+        ReflectionTestUtils.setField(jwtService, "accessTokenExpirationMillis", 86_400_000L);
+        ReflectionTestUtils.setField(jwtService, "refreshTokenExpirationMillis", 604_800_000L);
+        ReflectionTestUtils.setField(jwtService, "claimsCacheMaxSize", cacheMaxSize);
+        jwtService.init();
+        return jwtService;
+    }
+}
@@ -0,0 +1,54 @@
+package com.chatapp.backend.config.jwt;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares {@link JwtService#verify} with the claims cache against the same call with the cache
+ * disabled, which verifies the signature and parses the token every time. Run its {@code main}
+ * from the test classpath; arguments are the iterations per round (default 200000) and the number
+ * of distinct tokens cycled through (default 1000).
+ */
+public class JwtVerifyBenchmark {
+
+    private static final int ROUNDS = 10;
+
+    public static void main(String[] args) {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int distinctTokens = args.length > 1 ? Integer.parseInt(args[1]) : 1_000;
+        // Keeps per-token log lines out of the timings
+        ((Logger) LoggerFactory.getLogger(JwtService.class)).setLevel(Level.WARN);
+
+        JwtService cached = JwtServiceTest.jwtService(distinctTokens, new SimpleMeterRegistry());
+        JwtService uncached = JwtServiceTest.jwtService(0, new SimpleMeterRegistry());
+        List<String> tokens = new ArrayList<>(distinctTokens);
+        for (int i = 0; i < distinctTokens; i++) {
+            tokens.add(cached.generateAccessToken(Map.of("n", i), JwtServiceTest.USER));
+        }
+
+        // The first rounds warm up the JIT and fill the cache
+        for (int round = 1; round <= ROUNDS; round++) {
+            System.out.printf("round %d: cached %.2f us/op, uncached %.2f us/op%n",
+                    round, measure(cached, tokens, iterations), measure(uncached, tokens, iterations / 10));
+        }
+    }
+
+    private static double measure(JwtService jwtService, List<String> tokens, int iterations) {
+        long blackhole = 0;
+        long started = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            blackhole += jwtService.verify(tokens.get(i % tokens.size())).username().length();
+        }
+        long elapsed = System.nanoTime() - started;
+        if (blackhole == 0) {
+            throw new IllegalStateException();
+        }
+        return elapsed / 1e3 / iterations;
+    }
+}
@@ -0,0 +1,97 @@
+package com.chatapp.backend.config.jwt;
+
+import com.chatapp.backend.repository.UserRepository;
+import com.chatapp.backend.repository.UserRepository.UserAccessState;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TokenRevocationRegistryTest {
+
+    private static final long EXPIRATION_MILLIS = 900_000;
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final Instant loggedOutAt = Instant.now().truncatedTo(ChronoUnit.SECONDS).minusSeconds(60);
+
+    @Test
+    void appliesLogoutsMadeOnOtherInstances() {
+        TokenRevocationRegistry registry = registry();
+        when(userRepository.findAccessStatesUpdatedSince(any())).thenReturn(List.of(new State(1L, true, false, loggedOutAt)));
+
+        registry.refresh();
+
+        assertThat(registry.isRevoked(claims(1L, loggedOutAt.minusSeconds(1)))).isTrue();
+        assertThat(registry.isRevoked(claims(1L, loggedOutAt))).isFalse();
+        assertThat(registry.isRevoked(claims(2L, loggedOutAt.minusSeconds(1)))).isFalse();
+    }
+
+    @Test
+    void loadsRecentLogoutsAndDisabledUsersAtStartup() {
+        when(userRepository.findRevokedAccessStates(any())).thenReturn(List.of(new State(1L, true, false, loggedOutAt),
+                new State(2L, false, false, null)));
+        TokenRevocationRegistry registry = registry();
+
+        registry.loadRevokedUsers();
+
+        assertThat(registry.isRevoked(claims(1L, loggedOutAt.minusSeconds(1)))).isTrue();
+        assertThat(registry.isRevoked(claims(2L, Instant.now()))).isTrue();
+    }
+
+    @Test
+    void reenabledUserKeepsTheLogout() {
+        TokenRevocationRegistry registry = registry();
+        when(userRepository.findAccessStatesUpdatedSince(any())).thenReturn(List.of(new State(1L, false, false, loggedOutAt)),
+                List.of(new State(1L, true, false, loggedOutAt)));
+
+        registry.refresh();
+        assertThat(registry.isRevoked(claims(1L, Instant.now()))).isTrue();
+        registry.refresh();
+
+        assertThat(registry.isRevoked(claims(1L, Instant.now()))).isFalse();
+        assertThat(registry.isRevoked(claims(1L, loggedOutAt.minusSeconds(1)))).isTrue();
+    }
+
+    private TokenRevocationRegistry registry() {
+        return new TokenRevocationRegistry(userRepository, EXPIRATION_MILLIS, new SimpleMeterRegistry());
+    }
+
+    private static JwtClaims claims(Long userId, Instant issuedAt) {
+        return new JwtClaims("user" + userId, userId, List.of(), issuedAt, issuedAt.plusMillis(EXPIRATION_MILLIS));
+    }
+
+    private record State(Long id, boolean active, boolean deleted, Instant tokensValidAfter) implements UserAccessState {
+
+        @Override
+        public Long getId() {
+            return id;
+        }
+
+        @Override
+        public boolean isActive() {
+            return active;
+        }
+
+        @Override
+        public boolean isDeleted() {
+            return deleted;
+        }
+
+        @Override
+        public Instant getTokensValidAfter() {
+            return tokensValidAfter;
+        }
+
+        @Override
+        public Instant getUpdatedAt() {
+            return tokensValidAfter == null ? Instant.now() : tokensValidAfter;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.chatapp.backend.config.websocket;
+
+import com.chatapp.backend.dto.response.MessageResponse;
+import com.chatapp.backend.entity.enums.MessageType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.converter.MessageConverter;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StompPayloadCodecTest {
+
+    private static final MessageResponse MESSAGE = MessageResponse.builder()
+                                                                  .id(1042L)
+                                                                  .conversationId(17L)
+                                                                  .seq(311L)
+                                                                  .clientMessageId("c5d0f1a2-6a4e-4bb7-9d55-0f3a1c2e7b90")
+                                                                  .senderUsername("alice")
+                                                                  .senderDisplayName("Alice")
+                                                                  .content("See you at the station at six?")
+                                                                  .type(MessageType.TEXT)
+                                                                  .createdAt(Instant.parse("2024-05-01T18:04:12.345Z"))
+                                                                  .build();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<MessageConverter> converters = new StompPayloadCodec(new Jackson2ObjectMapperBuilder(), meterRegistry).messageConverters();
+
+    @Test
+    void bothFormatsRoundTripAndCborIsSmaller() {
+        byte[] json = encode(converters.get(0));
+        byte[] cbor = encode(converters.get(1));
+
+        assertThat(decode(converters.get(0), json, PayloadFormat.JSON)).isEqualTo(MESSAGE);
+        assertThat(decode(converters.get(1), cbor, PayloadFormat.CBOR)).isEqualTo(MESSAGE);
+        assertThat(cbor.length).isLessThan(json.length);
+    }
+
+    @Test
+    void timesEncodingAndDecodingPerFormat() {
+        for (PayloadFormat format : PayloadFormat.values()) {
+            MessageConverter converter = converters.get(format.ordinal());
+            decode(converter, encode(converter), format);
+        }
+
+        for (PayloadFormat format : PayloadFormat.values()) {
+            String tag = format.name().toLowerCase();
+            assertThat(meterRegistry.get("chat.ws.payload.encode").tags("format", tag, "path", "source").timer().count()).isEqualTo(1);
+            assertThat(meterRegistry.get("chat.ws.payload.decode").tag("format", tag).timer().count()).isEqualTo(1);
+        }
+    }
+
+    private static byte[] encode(MessageConverter converter) {
+        return (byte[]) converter.toMessage(MESSAGE, null).getPayload();
+    }
+
+    private static Object decode(MessageConverter converter, byte[] body, PayloadFormat format) {
+        Message<byte[]> message = MessageBuilder.withPayload(body).setHeader(MessageHeaders.CONTENT_TYPE, format.mimeType()).build();
+        return converter.fromMessage(message, MessageResponse.class);
+    }
+}
@@ -0,0 +1,142 @@
+package com.chatapp.backend.loadtest;
+
+import com.chatapp.backend.entity.User;
+import com.chatapp.backend.entity.enums.ConversationType;
+import com.chatapp.backend.repository.ConversationRepository;
+import com.chatapp.backend.repository.InboxEntryRepository;
+import com.chatapp.backend.service.ConversationService;
+import com.chatapp.backend.service.impl.ConversationActivityStore;
+import com.chatapp.backend.util.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Conversation list benchmark, active with the {@code loadtest} profile and {@code scenario: inbox}.
+ * One user shares {@code conversations} groups of {@code members} users; the group chat list is
+ * read {@code iterations} times with full entities and the old {@code GroupConversationResponse}
+ * mapping, then through {@code ConversationService.getUserGroupChats}, and the statements,
+ * entities and heap allocated per page are logged for both.
+ */
+@Component
+@Profile("loadtest")
+@ConditionalOnProperty(name = "application.loadtest.scenario", havingValue = "inbox")
+@Slf4j
+public class InboxBenchmarkRunner implements ApplicationRunner {
+
+    private record Result(double statements, double entities, double collections, double kilobytes, double millis) {
+
+        @Override
+        public String toString() {
+            return String.format("%.1f statements, %.0f entities, %.0f collections, %.0f KB, %.2f ms per page",
+                    statements, entities, collections, kilobytes, millis);
+        }
+    }
+
+    private final LoadTestFixtures fixtures;
+    private final ConversationService conversationService;
+    private final ConversationRepository conversationRepository;
+    private final InboxEntryRepository inboxRepository;
+    private final ConversationActivityStore activityStore;
+    private final ObjectMapper objectMapper;
+    private final Statistics statistics;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final ConfigurableApplicationContext context;
+
+    @Value("${application.loadtest.inbox.conversations:20}")
+    private int conversations;
+    @Value("${application.loadtest.inbox.members:100}")
+    private int members;
+    @Value("${application.loadtest.inbox.iterations:200}")
+    private int iterations;
+    @Value("${application.loadtest.exit-when-done:true}")
+    private boolean exitWhenDone;
+
+    public InboxBenchmarkRunner(LoadTestFixtures fixtures,
+                                ConversationService conversationService,
+                                ConversationRepository conversationRepository,
+                                InboxEntryRepository inboxRepository,
+                                ConversationActivityStore activityStore,
+                                ObjectMapper objectMapper,
+                                EntityManagerFactory entityManagerFactory,
+                                PlatformTransactionManager transactionManager,
+                                ConfigurableApplicationContext context) {
+        this.fixtures = fixtures;
+        this.conversationService = conversationService;
+        this.conversationRepository = conversationRepository;
+        this.inboxRepository = inboxRepository;
+        this.activityStore = activityStore;
+        this.objectMapper = objectMapper;
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.context = context;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        User user = fixtures.createInbox(conversations, members);
+        Pageable page = PageRequest.of(0, conversations);
+        log.info("Inbox benchmark: {} group conversations of {} members, {} iterations.", conversations, members, iterations);
+
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+        boolean statisticsEnabled = statistics.isStatisticsEnabled();
+        statistics.setStatisticsEnabled(true);
+        try {
+            Runnable entities = () -> readOnlyTransactionTemplate.executeWithoutResult(status -> {
+                List<Long> ids = inboxRepository.findConversationIdsByType(user.getId(), ConversationType.GROUP, page).getContent();
+                Map<Long, ConversationActivityStore.Activity> activity = activityStore.getAll(ids);
+                conversationRepository.findAllById(ids)
+                                      .forEach(conversation -> objectMapper.mapConversationToGroupConversationResponse(conversation, activity.get(conversation.getId()).lastMessage()));
+            });
+            Runnable projections = () -> conversationService.getUserGroupChats(page);
+
+            // Warm up both paths, including the activity and unread stores
+            measure(entities);
+            measure(projections);
+            log.info("Inbox benchmark result: entities: {}; projections: {}", measure(entities), measure(projections));
+        } finally {
+            statistics.setStatisticsEnabled(statisticsEnabled);
+            SecurityContextHolder.clearContext();
+        }
+        if (exitWhenDone) {
+            System.exit(SpringApplication.exit(context));
+        }
+    }
+
+    private Result measure(Runnable read) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        statistics.clear();
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        long started = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            read.run();
+        }
+        long elapsed = System.nanoTime() - started;
+        long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+        return new Result((double) statistics.getPrepareStatementCount() / iterations,
+                (double) statistics.getEntityLoadCount() / iterations,
+                (double) statistics.getCollectionLoadCount() / iterations,
+                allocated / 1024.0 / iterations,
+                elapsed / 1e6 / iterations);
+    }
+}
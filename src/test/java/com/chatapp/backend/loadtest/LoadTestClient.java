@@ -0,0 +1,133 @@
+package com.chatapp.backend.loadtest;
+
+import com.chatapp.backend.dto.request.MessageRequest;
+import com.chatapp.backend.dto.response.MessageResponse;
+import com.chatapp.backend.loadtest.LoadTestFixtures.SyntheticUser;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.lang.reflect.Type;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * One synthetic STOMP client: subscribes to its private and group conversations and, on each
+ * tick, sends to one of them. A share of sends is sent twice with the same client message id, as a
+ * client retrying after a reconnect would; the retry must not be delivered again.
+ */
+@Slf4j
+class LoadTestClient extends StompSessionHandlerAdapter {
+
+    static final String PRIVATE_DESTINATION = "/app/chat.sendPrivateMessage";
+    static final String GROUP_DESTINATION = "/app/chat.sendGroupMessage/";
+
+    private final SyntheticUser user;
+    private final int groupSize;
+    private final double groupRatio;
+    private final double retryRatio;
+    private final LoadTestStats stats;
+    private volatile StompSession session;
+    private volatile boolean closing;
+
+    LoadTestClient(SyntheticUser user, int groupSize, double groupRatio, double retryRatio, LoadTestStats stats) {
+        this.user = user;
+        this.groupSize = groupSize;
+        this.groupRatio = groupRatio;
+        this.retryRatio = retryRatio;
+        this.stats = stats;
+    }
+
+    CompletableFuture<StompSession> connect(WebSocketStompClient stompClient, String url) {
+        String authorization = "Bearer " + user.token();
+        // The handshake goes through the HTTP security filter, CONNECT through the channel interceptor
+        WebSocketHttpHeaders handshakeHeaders = new WebSocketHttpHeaders();
+        handshakeHeaders.add("Authorization", authorization);
+        StompHeaders connectHeaders = new StompHeaders();
+        connectHeaders.add("Authorization", authorization);
+        return stompClient.connectAsync(url, handshakeHeaders, connectHeaders, this);
+    }
+
+    @Override
+    public void afterConnected(StompSession session, StompHeaders connectedHeaders) {
+        this.session = session;
+        session.subscribe("/queue/chat/" + user.privateConversationId(), new DeliveryHandler());
+        session.subscribe("/topic/chat/" + user.groupConversationId(), new DeliveryHandler());
+    }
+
+    void sendNext() {
+        StompSession current = session;
+        if (current == null || !current.isConnected()) {
+            return;
+        }
+        boolean group = ThreadLocalRandom.current().nextDouble() < groupRatio;
+        Long conversationId = group ? user.groupConversationId() : user.privateConversationId();
+        String content = stats.recordSend(group ? groupSize : 2);
+        MessageRequest request = MessageRequest.builder()
+                                               .conversationId(conversationId)
+                                               .content(content)
+                                               .clientMessageId(UUID.randomUUID().toString())
+                                               .build();
+        try {
+            current.send(group ? GROUP_DESTINATION : PRIVATE_DESTINATION, request);
+            if (ThreadLocalRandom.current().nextDouble() < retryRatio) {
+                current.send(group ? GROUP_DESTINATION : PRIVATE_DESTINATION, request);
+            }
+        } catch (RuntimeException e) {
+            stats.recordError();
+            log.debug("Send failed for {}: {}", user.username(), e.getMessage());
+        }
+    }
+
+    void disconnect() {
+        closing = true;
+        StompSession current = session;
+        if (current != null && current.isConnected()) {
+            current.disconnect();
+        }
+    }
+
+    @Override
+    public void handleFrame(StompHeaders headers, Object payload) {
+        // ERROR frames from the server
+        if (closing) {
+            return;
+        }
+        stats.recordError();
+        log.warn("Error frame for {}: {}", user.username(), headers.getFirst("message"));
+    }
+
+    @Override
+    public void handleException(StompSession session, StompCommand command, StompHeaders headers, byte[] payload, Throwable exception) {
+        stats.recordError();
+        log.warn("Failed to handle {} frame for {}: {}", command, user.username(), exception.getMessage());
+    }
+
+    @Override
+    public void handleTransportError(StompSession session, Throwable exception) {
+        if (closing) {
+            return;
+        }
+        stats.recordError();
+        log.warn("Transport error for {}: {}", user.username(), exception.getMessage());
+    }
+
+    private class DeliveryHandler implements StompFrameHandler {
+
+        @Override
+        public Type getPayloadType(StompHeaders headers) {
+            return MessageResponse.class;
+        }
+
+        @Override
+        public void handleFrame(StompHeaders headers, Object payload) {
+            stats.recordDelivery(((MessageResponse) payload).content());
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.chatapp.backend.loadtest;
+
+import com.chatapp.backend.config.jwt.JwtService;
+import com.chatapp.backend.entity.Conversation;
+import com.chatapp.backend.entity.GroupSettings;
+import com.chatapp.backend.entity.InboxEntry;
+import com.chatapp.backend.entity.User;
+import com.chatapp.backend.entity.enums.ConversationType;
+import com.chatapp.backend.repository.ConversationRepository;
+import com.chatapp.backend.repository.InboxEntryRepository;
+import com.chatapp.backend.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import static com.chatapp.backend.entity.enums.UserStatus.OFFLINE;
+
+/**
+ * Creates the synthetic users and conversations for a load test run. Names carry a run id so
+ * repeated runs against the same database never collide.
+ */
+@Component
+@Profile("loadtest")
+@RequiredArgsConstructor
+@Slf4j
+public class LoadTestFixtures {
+
+    private final UserRepository userRepository;
+    private final ConversationRepository conversationRepository;
+    private final InboxEntryRepository inboxEntryRepository;
+    private final PasswordEncoder passwordEncoder;
+    private final JwtService jwtService;
+
+    /**
+     * A synthetic client: its access token, the private conversation it shares with one other
+     * client and the group conversation it belongs to.
+     */
+    public record SyntheticUser(String username, String token, Long privateConversationId, Long groupConversationId) {
+    }
+
+    /**
+     * Pairs clients into private conversations and splits them into groups of {@code groupSize}.
+     * The client count must be even.
+     */
+    @Transactional
+    public List<SyntheticUser> create(int clients, int groupSize) {
+        String runId = Long.toString(System.currentTimeMillis(), 36);
+        String password = passwordEncoder.encode(runId);
+        Instant now = Instant.now();
+
+        List<User> users = new ArrayList<>(clients);
+        for (int i = 0; i < clients; i++) {
+            String username = "lt-" + runId + "-" + i;
+            users.add(User.builder()
+                          .username(username)
+                          .displayName("Load test " + i)
+                          .email(username + "@loadtest.local")
+                          .password(password)
+                          .status(OFFLINE)
+                          .createdAt(now)
+                          .emailVerified(true)
+                          .isActive(true)
+                          .build());
+        }
+        users = userRepository.saveAll(users);
+
+        Long[] privateConversations = new Long[clients];
+        for (int i = 0; i < clients; i += 2) {
+            Conversation conversation = conversationRepository.save(Conversation.builder()
+                                                                                 .type(ConversationType.PRIVATE)
+                                                                                 .participants(new HashSet<>(List.of(users.get(i), users.get(i + 1))))
+                                                                                 .participantCount(2)
+                                                                                 .createdAt(now)
+                                                                                 .build());
+            privateConversations[i] = conversation.getId();
+            privateConversations[i + 1] = conversation.getId();
+            addToInboxes(conversation, List.of(users.get(i), users.get(i + 1)));
+        }
+
+        Long[] groupConversations = new Long[clients];
+        for (int start = 0; start < clients; start += groupSize) {
+            List<User> members = users.subList(start, Math.min(start + groupSize, clients));
+            Conversation conversation = Conversation.builder()
+                                                    .type(ConversationType.GROUP)
+                                                    .participants(new HashSet<>(members))
+                                                    .participantCount(members.size())
+                                                    .createdAt(now)
+                                                    .build();
+            conversation.setGroupSettings(GroupSettings.builder()
+                                                       .conversation(conversation)
+                                                       .name("Load test " + runId + " #" + start / groupSize)
+                                                       .creator(members.get(0))
+                                                       .admins(new HashSet<>(List.of(members.get(0))))
+                                                       .createdAt(now)
+                                                       .build());
+            Long conversationId = conversationRepository.save(conversation).getId();
+            for (int i = start; i < start + members.size(); i++) {
+                groupConversations[i] = conversationId;
+            }
+            addToInboxes(conversation, members);
+        }
+
+        List<SyntheticUser> syntheticUsers = new ArrayList<>(clients);
+        for (int i = 0; i < clients; i++) {
+            User user = users.get(i);
+            String token = jwtService.generateAccessToken(Map.of("userId", user.getId()), user);
+            syntheticUsers.add(new SyntheticUser(user.getUsername(), token, privateConversations[i], groupConversations[i]));
+        }
+        log.info("Created {} load test users in run {}: {} private and {} group conversations.",
+                clients, runId, clients / 2, (clients + groupSize - 1) / groupSize);
+        return syntheticUsers;
+    }
+
+    /**
+     * Creates {@code members} users sharing {@code conversations} groups and returns the first user,
+     * whose inbox holds all of them.
+     */
+    @Transactional
+    public User createInbox(int conversations, int members) {
+        String runId = Long.toString(System.currentTimeMillis(), 36);
+        String password = passwordEncoder.encode(runId);
+        Instant now = Instant.now();
+
+        List<User> users = new ArrayList<>(members);
+        for (int i = 0; i < members; i++) {
+            String username = "ib-" + runId + "-" + i;
+            users.add(User.builder()
+                          .username(username)
+                          .displayName("Inbox benchmark " + i)
+                          .email(username + "@loadtest.local")
+                          .password(password)
+                          .status(OFFLINE)
+                          .createdAt(now)
+                          .emailVerified(true)
+                          .isActive(true)
+                          .build());
+        }
+        users = userRepository.saveAll(users);
+
+        for (int i = 0; i < conversations; i++) {
+            Conversation conversation = Conversation.builder()
+                                                    .type(ConversationType.GROUP)
+                                                    .participants(new HashSet<>(users))
+                                                    .participantCount(members)
+                                                    .createdAt(now)
+                                                    .build();
+            conversation.setGroupSettings(GroupSettings.builder()
+                                                       .conversation(conversation)
+                                                       .name("Inbox benchmark " + runId + " #" + i)
+                                                       .creator(users.get(0))
+                                                       .admins(new HashSet<>(List.of(users.get(0))))
+                                                       .createdAt(now)
+                                                       .build());
+            conversation = conversationRepository.save(conversation);
+            addToInboxes(conversation, users);
+        }
+        log.info("Created {} inbox benchmark users in run {} sharing {} group conversations.", members, runId, conversations);
+        return users.get(0);
+    }
+
+    private void addToInboxes(Conversation conversation, List<User> users) {
+        inboxEntryRepository.saveAll(users.stream()
+                                          .map(user -> InboxEntry.builder()
+                                                                 .userId(user.getId())
+                                                                 .conversationId(conversation.getId())
+                                                                 .conversationType(conversation.getType())
+                                                                 .lastActivityAt(conversation.getCreatedAt())
+                                                                 .build())
+                                          .toList());
+    }
+}
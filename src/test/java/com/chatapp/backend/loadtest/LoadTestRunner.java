@@ -0,0 +1,131 @@
+package com.chatapp.backend.loadtest;
+
+import com.chatapp.backend.loadtest.LoadTestFixtures.SyntheticUser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * STOMP load harness, active with the {@code loadtest} profile (add {@code embedded} to run
+ * without Postgres). Once the application has started it connects {@code clients} synthetic users
+ * to its own {@code /ws} endpoint, has each send {@code rate-per-client} messages per second to
+ * its private or group conversation, and logs end-to-end latency percentiles and throughput
+ * measured after the warm-up. Latency is also published as {@code chat.loadtest.latency}.
+ */
+@Component
+@Profile("loadtest")
+@ConditionalOnProperty(name = "application.loadtest.scenario", havingValue = "messaging", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+public class LoadTestRunner implements ApplicationRunner {
+
+    private final LoadTestFixtures fixtures;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final Environment environment;
+    private final ConfigurableApplicationContext context;
+
+    @Value("${application.loadtest.url:}")
+    private String url;
+    @Value("${application.loadtest.clients:50}")
+    private int clients;
+    @Value("${application.loadtest.group-size:10}")
+    private int groupSize;
+    @Value("${application.loadtest.rate-per-client:5}")
+    private double ratePerClient;
+    @Value("${application.loadtest.group-ratio:0.5}")
+    private double groupRatio;
+    @Value("${application.loadtest.retry-ratio:0}")
+    private double retryRatio;
+    @Value("${application.loadtest.warmup-seconds:5}")
+    private int warmupSeconds;
+    @Value("${application.loadtest.duration-seconds:30}")
+    private int durationSeconds;
+    @Value("${application.loadtest.drain-seconds:5}")
+    private int drainSeconds;
+    @Value("${application.loadtest.exit-when-done:true}")
+    private boolean exitWhenDone;
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        String target = url.isEmpty() ? "ws://localhost:" + environment.getProperty("local.server.port") + "/ws/websocket" : url;
+        int clientCount = clients + clients % 2;
+        log.info("Load test: {} clients at {} msg/s each ({}% group) against {}, {}s warm-up, {}s measured.",
+                clientCount, ratePerClient, Math.round(groupRatio * 100), target, warmupSeconds, durationSeconds);
+
+        LoadTestStats stats = new LoadTestStats(meterRegistry, Duration.ofSeconds(warmupSeconds + durationSeconds + drainSeconds + 60));
+        List<LoadTestClient> loadClients = new ArrayList<>(clientCount);
+        for (SyntheticUser user : fixtures.create(clientCount, groupSize)) {
+            loadClients.add(new LoadTestClient(user, Math.min(groupSize, clientCount), groupRatio, retryRatio, stats));
+        }
+
+        WebSocketStompClient stompClient = new WebSocketStompClient(new StandardWebSocketClient());
+        stompClient.setMessageConverter(new MappingJackson2MessageConverter(objectMapper));
+        ScheduledExecutorService senders = Executors.newScheduledThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors() / 2));
+        try {
+            connect(loadClients, stompClient, target);
+
+            long periodNanos = (long) (TimeUnit.SECONDS.toNanos(1) / ratePerClient);
+            for (LoadTestClient client : loadClients) {
+                // Spread the clients' ticks over one period instead of firing them together
+                senders.scheduleAtFixedRate(client::sendNext, ThreadLocalRandom.current().nextLong(periodNanos), periodNanos, TimeUnit.NANOSECONDS);
+            }
+            TimeUnit.SECONDS.sleep(warmupSeconds);
+            stats.startWindow();
+            TimeUnit.SECONDS.sleep(durationSeconds);
+            stats.endWindow();
+            senders.shutdownNow();
+            // Let messages sent at the end of the window arrive
+            TimeUnit.SECONDS.sleep(drainSeconds);
+            log.info("Load test result: {}", stats.summary());
+        } finally {
+            senders.shutdownNow();
+            loadClients.forEach(LoadTestClient::disconnect);
+            stompClient.stop();
+        }
+        if (exitWhenDone) {
+            System.exit(SpringApplication.exit(context));
+        }
+    }
+
+    private void connect(List<LoadTestClient> loadClients, WebSocketStompClient stompClient, String target) {
+        List<CompletableFuture<?>> connections = new ArrayList<>(loadClients.size());
+        for (LoadTestClient client : loadClients) {
+            connections.add(client.connect(stompClient, target));
+        }
+        int failed = 0;
+        for (CompletableFuture<?> connection : connections) {
+            try {
+                connection.get(30, TimeUnit.SECONDS);
+            } catch (Exception e) {
+                failed++;
+            }
+        }
+        if (failed > 0) {
+            log.warn("{} of {} load test clients failed to connect.", failed, loadClients.size());
+        }
+        log.info("Connected {} load test clients.", loadClients.size() - failed);
+    }
+}
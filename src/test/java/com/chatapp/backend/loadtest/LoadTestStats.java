@@ -0,0 +1,99 @@
+package com.chatapp.backend.loadtest;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Counters and the end-to-end latency histogram of a load test run. Only messages sent inside the
+ * measurement window are counted; the send time travels in the message content.
+ */
+class LoadTestStats {
+
+    private static final String CONTENT_PREFIX = "lt:";
+
+    private final Timer latency;
+    private final Counter sent;
+    private final Counter delivered;
+    private final Counter errors;
+    private volatile long windowStartNanos = Long.MAX_VALUE;
+    private volatile long windowEndNanos = Long.MAX_VALUE;
+    private long expectedDeliveries;
+
+    LoadTestStats(MeterRegistry meterRegistry, Duration runLength) {
+        this.latency = Timer.builder("chat.loadtest.latency")
+                            .description("Time from a synthetic client's send to delivery at each subscriber")
+                            .publishPercentiles(0.5, 0.99, 0.999)
+                            .percentilePrecision(2)
+                            .distributionStatisticExpiry(runLength)
+                            .distributionStatisticBufferLength(1)
+                            .register(meterRegistry);
+        this.sent = Counter.builder("chat.loadtest.sent").register(meterRegistry);
+        this.delivered = Counter.builder("chat.loadtest.delivered").register(meterRegistry);
+        this.errors = Counter.builder("chat.loadtest.errors").register(meterRegistry);
+    }
+
+    void startWindow() {
+        windowStartNanos = System.nanoTime();
+    }
+
+    void endWindow() {
+        windowEndNanos = System.nanoTime();
+    }
+
+    /**
+     * Returns the content for a message sent now, counting it when the window is open.
+     */
+    String recordSend(int recipients) {
+        long now = System.nanoTime();
+        if (now >= windowStartNanos && now < windowEndNanos) {
+            sent.increment();
+            synchronized (this) {
+                expectedDeliveries += recipients;
+            }
+        }
+        return CONTENT_PREFIX + now;
+    }
+
+    void recordDelivery(String content) {
+        if (content == null || !content.startsWith(CONTENT_PREFIX)) {
+            return;
+        }
+        long sentNanos = Long.parseLong(content.substring(CONTENT_PREFIX.length()));
+        if (sentNanos >= windowStartNanos && sentNanos < windowEndNanos) {
+            delivered.increment();
+            latency.record(System.nanoTime() - sentNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    void recordError() {
+        errors.increment();
+    }
+
+    String summary() {
+        double seconds = (windowEndNanos - windowStartNanos) / 1e9;
+        HistogramSnapshot snapshot = latency.takeSnapshot();
+        StringBuilder percentiles = new StringBuilder();
+        for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+            percentiles.append(String.format(" p%s=%.2fms", formatPercentile(percentile.percentile()), percentile.value(TimeUnit.MILLISECONDS)));
+        }
+        long expected;
+        synchronized (this) {
+            expected = expectedDeliveries;
+        }
+        return String.format("sent %.0f (%.1f msg/s), delivered %.0f of %d (%.1f msg/s), errors %.0f, latency%s max=%.2fms",
+                sent.count(), sent.count() / seconds,
+                delivered.count(), expected, delivered.count() / seconds,
+                errors.count(), percentiles, snapshot.max(TimeUnit.MILLISECONDS));
+    }
+
+    private static String formatPercentile(double percentile) {
+        return new BigDecimal(Double.toString(percentile)).movePointRight(2).stripTrailingZeros().toPlainString().replace(".", "");
+    }
+}
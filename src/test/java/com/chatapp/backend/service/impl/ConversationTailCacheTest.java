@@ -0,0 +1,140 @@
+package com.chatapp.backend.service.impl;
+
+import com.chatapp.backend.dto.response.MessageResponse;
+import com.chatapp.backend.entity.Message;
+import com.chatapp.backend.repository.MessageRepository;
+import com.chatapp.backend.util.MessageCursor;
+import com.chatapp.backend.util.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ConversationTailCacheTest {
+
+    private static final Long CONVERSATION_ID = 7L;
+    private static final Instant START = Instant.parse("2024-05-01T12:00:00Z");
+
+    private final MessageRepository messageRepository = mock(MessageRepository.class);
+    private final ObjectMapper objectMapper = mock(ObjectMapper.class);
+    private final Map<Long, MessageResponse> responses = new HashMap<>();
+
+    @Test
+    void keepsOutOfOrderAppendsInHistoryOrder() {
+        ConversationTailCache cache = cache(10);
+        cache.append(message(1));
+        cache.append(message(3));
+        cache.append(message(2));
+        cache.append(message(3));
+
+        assertThat(latest(cache, 10)).containsExactly(message(3), message(2), message(1));
+        verify(messageRepository, times(0)).findLatestPage(any(), any());
+    }
+
+    @Test
+    void dropsMessagesOlderThanAnIncompleteTail() {
+        ConversationTailCache cache = cache(10);
+        cache.append(message(5));
+        // Messages between 4 and the start of the conversation are not here, so 4 cannot be placed
+        cache.append(message(4));
+        cache.append(message(6));
+
+        assertThat(cache.find(CONVERSATION_ID, cursor(6), null, 1)).contains(List.of(message(5)));
+        assertThat(cache.find(CONVERSATION_ID, cursor(6), null, 2)).isEmpty();
+    }
+
+    @Test
+    void loadKeepsMessagesAppendedWhileItRuns() {
+        ConversationTailCache cache = cache(10);
+        when(messageRepository.findLatestPage(eq(CONVERSATION_ID), any())).thenAnswer(invocation -> {
+            // A send completing between the query and the load taking the lock
+            cache.append(message(3));
+            return List.of(entity(2), entity(1));
+        });
+
+        assertThat(latest(cache, 10)).containsExactly(message(3), message(2), message(1));
+        assertThat(latest(cache, 10)).containsExactly(message(3), message(2), message(1));
+        verify(messageRepository, times(1)).findLatestPage(eq(CONVERSATION_ID), any());
+    }
+
+    @Test
+    void fullRingEvictsTheOldestAndNoLongerCoversTheStart() {
+        ConversationTailCache cache = cache(3);
+        for (long seq = 1; seq <= 5; seq++) {
+            cache.append(message(seq));
+        }
+        // Older than everything in a full ring
+        cache.append(message(2));
+
+        assertThat(latest(cache, 3)).containsExactly(message(5), message(4), message(3));
+        assertThat(cache.find(CONVERSATION_ID, cursor(4), null, 1)).contains(List.of(message(3)));
+        assertThat(cache.find(CONVERSATION_ID, cursor(3), null, 1)).isEmpty();
+        assertThat(cache.find(CONVERSATION_ID, null, cursor(2), 10)).isEmpty();
+    }
+
+    @Test
+    void servesPagesBeforeACursor() {
+        ConversationTailCache cache = cache(10);
+        for (long seq = 1; seq <= 5; seq++) {
+            cache.append(message(seq));
+        }
+
+        assertThat(cache.find(CONVERSATION_ID, cursor(4), null, 2)).contains(List.of(message(3), message(2)));
+        // The tail holds the first message, so a short page at the start is still complete
+        assertThat(cache.find(CONVERSATION_ID, cursor(2), null, 5)).contains(List.of(message(1)));
+    }
+
+    @Test
+    void servesPagesAfterACursorItCovers() {
+        ConversationTailCache cache = cache(10);
+        for (long seq = 3; seq <= 6; seq++) {
+            cache.append(message(seq));
+        }
+
+        assertThat(cache.find(CONVERSATION_ID, null, cursor(3), 2)).contains(List.of(message(4), message(5)));
+        assertThat(cache.find(CONVERSATION_ID, null, cursor(6), 10)).contains(List.of());
+        // Message 3 may have had predecessors the tail never saw
+        assertThat(cache.find(CONVERSATION_ID, null, cursor(2), 10)).isEmpty();
+    }
+
+    private ConversationTailCache cache(int capacity) {
+        when(objectMapper.mapMessageToMessageResponse(any())).thenAnswer(invocation -> message(invocation.<Message>getArgument(0).getId() / 10));
+        return new ConversationTailCache(messageRepository, objectMapper, mock(PlatformTransactionManager.class),
+                capacity, 100, Long.MAX_VALUE, 300, 60, new SimpleMeterRegistry());
+    }
+
+    private static List<MessageResponse> latest(ConversationTailCache cache, int limit) {
+        return cache.find(CONVERSATION_ID, null, null, limit).orElseThrow();
+    }
+
+    // Message n has sequence n, id 10n and was sent n seconds after START
+    private MessageResponse message(long seq) {
+        return responses.computeIfAbsent(seq, ignored -> MessageResponse.builder()
+                                                                        .id(seq * 10)
+                                                                        .conversationId(CONVERSATION_ID)
+                                                                        .seq(seq)
+                                                                        .content("message " + seq)
+                                                                        .createdAt(START.plusSeconds(seq))
+                                                                        .build());
+    }
+
+    private static Message entity(long seq) {
+        return Message.builder().id(seq * 10).build();
+    }
+
+    private MessageCursor cursor(long seq) {
+        return MessageCursor.of(message(seq));
+    }
+}
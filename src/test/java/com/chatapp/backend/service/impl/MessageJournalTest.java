@@ -0,0 +1,224 @@
+package com.chatapp.backend.service.impl;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MessageJournalTest {
+
+    private static final int SEGMENT_BYTES = 4096;
+
+    @TempDir
+    Path directory;
+
+    private final List<MessageJournal> opened = new ArrayList<>();
+
+    @AfterEach
+    void closeJournals() {
+        opened.forEach(MessageJournal::close);
+    }
+
+    @Test
+    void replaysRecordsAppendedBeforeRestart() throws Exception {
+        MessageJournal journal = started(SEGMENT_BYTES);
+        append(journal, "one");
+        append(journal, "two");
+        append(journal, "three");
+        journal.close();
+
+        assertThat(payloads(open(SEGMENT_BYTES).open())).containsExactly("one", "two", "three");
+    }
+
+    @Test
+    void replaysOnlyRecordsAfterTheCheckpoint() throws Exception {
+        MessageJournal journal = started(SEGMENT_BYTES);
+        append(journal, "one");
+        MessageJournal.Position saved = append(journal, "two");
+        append(journal, "three");
+        journal.checkpoint(saved);
+        journal.close();
+
+        assertThat(payloads(open(SEGMENT_BYTES).open())).containsExactly("three");
+    }
+
+    @Test
+    void recordsReplayedOnceAreNotReplayedAgain() throws Exception {
+        MessageJournal journal = started(SEGMENT_BYTES);
+        append(journal, "one");
+        journal.close();
+
+        MessageJournal reopened = open(SEGMENT_BYTES);
+        assertThat(payloads(reopened.open())).containsExactly("one");
+        reopened.start();
+        append(reopened, "two");
+        reopened.close();
+
+        assertThat(payloads(open(SEGMENT_BYTES).open())).containsExactly("two");
+    }
+
+    @Test
+    void stopsReplayAtATornRecord() throws Exception {
+        MessageJournal journal = started(SEGMENT_BYTES);
+        append(journal, "one");
+        MessageJournal.Position end = append(journal, "two");
+        journal.close();
+
+        // A header whose payload never made it to disk
+        write(segment(end.segment()), end.offset(), ByteBuffer.allocate(8).putInt(SEGMENT_BYTES).putInt(42).array());
+
+        assertThat(payloads(open(SEGMENT_BYTES).open())).containsExactly("one", "two");
+    }
+
+    @Test
+    void stopsReplayAtACorruptRecord() throws Exception {
+        MessageJournal journal = started(SEGMENT_BYTES);
+        MessageJournal.Position first = append(journal, "one");
+        append(journal, "two");
+        append(journal, "three");
+        journal.close();
+
+        // Flips the first payload byte of "two", behind its length and checksum
+        write(segment(first.segment()), first.offset() + 8, new byte[]{'x'});
+
+        assertThat(payloads(open(SEGMENT_BYTES).open())).containsExactly("one");
+    }
+
+    @Test
+    void appendsAfterACorruptTailGoToAFreshSegment() throws Exception {
+        MessageJournal journal = started(SEGMENT_BYTES);
+        MessageJournal.Position first = append(journal, "one");
+        append(journal, "two");
+        journal.close();
+        write(segment(first.segment()), first.offset() + 8, new byte[]{'x'});
+
+        MessageJournal reopened = open(SEGMENT_BYTES);
+        assertThat(payloads(reopened.open())).containsExactly("one");
+        // Not started: as if the replayed records could not be saved yet
+        MessageJournal.Position next = reopened.append("three".getBytes(StandardCharsets.UTF_8)).end();
+        assertThat(next.segment()).isGreaterThan(first.segment());
+        reopened.close();
+
+        assertThat(payloads(open(SEGMENT_BYTES).open())).containsExactly("one", "three");
+    }
+
+    @Test
+    void rollsOverToNewSegmentsAndReplaysAcrossThem() throws Exception {
+        // Room for two records of 8 + 20 bytes per segment
+        MessageJournal journal = started(64);
+        List<String> written = new ArrayList<>();
+        List<MessageJournal.Position> ends = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            String payload = "message-%012d".formatted(i);
+            written.add(payload);
+            ends.add(append(journal, payload));
+        }
+        journal.close();
+
+        assertThat(ends.stream().map(MessageJournal.Position::segment).distinct()).hasSize(4);
+        assertThat(payloads(open(64).open())).containsExactlyElementsOf(written);
+    }
+
+    @Test
+    void checkpointDeletesSegmentsBeforeIt() throws Exception {
+        MessageJournal journal = started(64);
+        List<MessageJournal.Position> ends = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ends.add(append(journal, "message-%012d".formatted(i)));
+        }
+
+        journal.checkpoint(ends.get(3));
+
+        assertThat(segmentIndexes()).allMatch(index -> index >= ends.get(3).segment());
+        journal.close();
+        assertThat(payloads(open(64).open())).containsExactly("message-%012d".formatted(4));
+    }
+
+    @Test
+    void keepsDeadLettersAcrossRestarts() throws Exception {
+        MessageJournal journal = started(SEGMENT_BYTES);
+        journal.deadLetter("rejected".getBytes(StandardCharsets.UTF_8));
+        journal.close();
+
+        MessageJournal reopened = open(SEGMENT_BYTES);
+        reopened.open();
+        reopened.deadLetter("rejected again".getBytes(StandardCharsets.UTF_8));
+
+        assertThat(reopened.deadLetters()).extracting(MessageJournalTest::text).containsExactly("rejected", "rejected again");
+    }
+
+    @Test
+    void cutsATornDeadLetterBeforeAppendingBehindIt() throws Exception {
+        MessageJournal journal = started(SEGMENT_BYTES);
+        journal.deadLetter("rejected".getBytes(StandardCharsets.UTF_8));
+        journal.close();
+        Path file = directory.resolve("dead-letters");
+        Files.write(file, ByteBuffer.allocate(6).putInt(100).putShort((short) 1).array(), StandardOpenOption.APPEND);
+
+        MessageJournal reopened = open(SEGMENT_BYTES);
+        reopened.open();
+        reopened.deadLetter("rejected again".getBytes(StandardCharsets.UTF_8));
+
+        assertThat(reopened.deadLetters()).extracting(MessageJournalTest::text).containsExactly("rejected", "rejected again");
+    }
+
+    private MessageJournal open(int segmentBytes) {
+        MessageJournal journal = new MessageJournal(directory, segmentBytes, true, synced -> {
+        });
+        opened.add(journal);
+        return journal;
+    }
+
+    private MessageJournal started(int segmentBytes) throws IOException {
+        MessageJournal journal = open(segmentBytes);
+        journal.open();
+        journal.start();
+        return journal;
+    }
+
+    private static MessageJournal.Position append(MessageJournal journal, String payload) throws Exception {
+        MessageJournal.Appended appended = journal.append(payload.getBytes(StandardCharsets.UTF_8));
+        appended.durable().get(5, TimeUnit.SECONDS);
+        return appended.end();
+    }
+
+    private static List<String> payloads(List<MessageJournal.Entry> entries) {
+        return entries.stream().map(entry -> text(entry.payload())).toList();
+    }
+
+    private static String text(byte[] payload) {
+        return new String(payload, StandardCharsets.UTF_8);
+    }
+
+    private Path segment(long index) {
+        return directory.resolve("%020d.journal".formatted(index));
+    }
+
+    private List<Long> segmentIndexes() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                        .filter(name -> name.endsWith(".journal"))
+                        .map(name -> Long.parseLong(name.substring(0, name.length() - ".journal".length())))
+                        .toList();
+        }
+    }
+
+    private static void write(Path file, int offset, byte[] bytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(bytes), offset);
+        }
+    }
+}
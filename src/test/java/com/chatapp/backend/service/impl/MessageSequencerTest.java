@@ -0,0 +1,85 @@
+package com.chatapp.backend.service.impl;
+
+import com.chatapp.backend.repository.MessageRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.SQLException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MessageSequencerTest {
+
+    private static final Long CONVERSATION_ID = 7L;
+
+    private final MessageRepository messageRepository = mock(MessageRepository.class);
+
+    @Test
+    void mailboxModeReusesTheNumberOfAFailedInsert() {
+        MessageSequencer sequencer = sequencer("mailbox");
+        when(messageRepository.findMaxSeq(CONVERSATION_ID)).thenReturn(4L);
+
+        assertThatThrownBy(() -> sequencer.save(CONVERSATION_ID, () -> {
+            sequencer.next(CONVERSATION_ID);
+            throw conflict("uk_message_sender_client_id");
+        })).isInstanceOf(DataIntegrityViolationException.class);
+
+        assertThat(sequencer.next(CONVERSATION_ID)).isEqualTo(5L);
+    }
+
+    @Test
+    void directModeLeavesAGapAfterAFailedInsert() {
+        MessageSequencer sequencer = sequencer("direct");
+        when(messageRepository.findMaxSeq(CONVERSATION_ID)).thenReturn(4L);
+
+        assertThatThrownBy(() -> sequencer.save(CONVERSATION_ID, () -> {
+            sequencer.next(CONVERSATION_ID);
+            throw new IllegalStateException("failed");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(sequencer.next(CONVERSATION_ID)).isEqualTo(6L);
+    }
+
+    @Test
+    void sequenceConflictReseedsAndRetries() {
+        MessageSequencer sequencer = sequencer("direct");
+        when(messageRepository.findMaxSeq(CONVERSATION_ID)).thenReturn(4L, 5L);
+        int[] attempts = {0};
+
+        long seq = sequencer.save(CONVERSATION_ID, () -> {
+            long next = sequencer.next(CONVERSATION_ID);
+            if (attempts[0]++ == 0) {
+                throw conflict("uk_message_conversation_seq");
+            }
+            return next;
+        });
+
+        assertThat(seq).isEqualTo(6L);
+        verify(messageRepository, times(2)).findMaxSeq(CONVERSATION_ID);
+    }
+
+    @Test
+    void idleCountersAreReseeded() {
+        MessageSequencer sequencer = new MessageSequencer(messageRepository, mock(PlatformTransactionManager.class), "direct", 0);
+        when(messageRepository.findMaxSeq(CONVERSATION_ID)).thenReturn(4L, 9L);
+
+        assertThat(sequencer.next(CONVERSATION_ID)).isEqualTo(5L);
+        sequencer.evictIdle();
+
+        assertThat(sequencer.next(CONVERSATION_ID)).isEqualTo(10L);
+    }
+
+    private MessageSequencer sequencer(String ingestionMode) {
+        return new MessageSequencer(messageRepository, mock(PlatformTransactionManager.class), ingestionMode, 600);
+    }
+
+    private static DataIntegrityViolationException conflict(String constraint) {
+        return new DataIntegrityViolationException("insert failed", new SQLException("Unique index or primary key violation: " + constraint));
+    }
+}